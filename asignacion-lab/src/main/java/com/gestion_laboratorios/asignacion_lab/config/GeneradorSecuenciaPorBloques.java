@@ -0,0 +1,40 @@
+package com.gestion_laboratorios.asignacion_lab.config;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Generador de ids sobre secuencia con optimizador pooled-lo: cada llamada a la secuencia reserva
+ * un bloque de app.ids.tamano-bloque ids que se asignan en memoria.
+ */
+public class GeneradorSecuenciaPorBloques extends SequenceStyleGenerator {
+
+    public static final String TAMANO_BLOQUE = "app.ids.tamano-bloque";
+    public static final int TAMANO_BLOQUE_POR_DEFECTO = 50;
+
+    private final String nombreSecuencia;
+
+    public GeneradorSecuenciaPorBloques(SecuenciaPorBloques config) {
+        this.nombreSecuencia = config.nombre();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        int tamanoBloque = serviceRegistry.requireService(ConfigurationService.class)
+                .getSetting(TAMANO_BLOQUE, StandardConverters.INTEGER, TAMANO_BLOQUE_POR_DEFECTO);
+
+        parameters.put(SEQUENCE_PARAM, nombreSecuencia);
+        parameters.put(INCREMENT_PARAM, String.valueOf(tamanoBloque));
+        parameters.put(OPT_PARAM, tamanoBloque > 1
+                ? StandardOptimizerDescriptor.POOLED_LO.getExternalName()
+                : StandardOptimizerDescriptor.NONE.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -0,0 +1,41 @@
+package com.gestion_laboratorios.asignacion_lab.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Modo de ejecución con hilos virtuales. Lo activa spring.threads.virtual.enabled=true sobre Java 21:
+ * Tomcat atiende cada petición (y con ella las llamadas @Transactional de los servicios) en un hilo
+ * virtual, igual que las tareas @Async y @Scheduled. En Java 17 la propiedad no tiene efecto y todo sigue
+ * en hilos de plataforma. En este modo el DataSource se envuelve en un {@link DataSourceAcotado} con
+ * tantos permisos como conexiones tiene el pool.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class HilosVirtualesConfig {
+
+    @Bean
+    static BeanPostProcessor acotarDataSource(Environment entorno) {
+        int permisos = entorno.getProperty("app.jdbc.bulkhead.permisos", Integer.class,
+                entorno.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        long esperaMaximaMs = entorno.getProperty("app.jdbc.bulkhead.espera-maxima-ms", Long.class, 5000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceAcotado)) {
+                    log.info("Hilos virtuales: DataSource '{}' acotado a {} conexiones simultáneas", nombre, permisos);
+                    return new DataSourceAcotado(dataSource, permisos, esperaMaximaMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.gestion_laboratorios.asignacion_lab.service.RevocacionTokens;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -22,6 +23,7 @@ import java.util.List;
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtTokenUtil jwtTokenUtil;
+    private final RevocacionTokens revocacionTokens;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -32,28 +34,22 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ") && SecurityContextHolder.getContext().getAuthentication() == null) {
             String token = header.substring(7);
 
-            if (jwtTokenUtil.validateToken(token)) {
-                String username = null;
-                String role = null;
-                try {
-                    username = jwtTokenUtil.extractUsername(token);
-                    role = jwtTokenUtil.extractRole(token);
-                } catch (Exception e) {
-                    log.debug("Failed to extract claims: {}", e.getMessage());
-                }
-
-                if (username != null) {
-                    List<SimpleGrantedAuthority> authorities = List.of();
-                    if (role != null && !role.isBlank()) {
-                        authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
-                    }
-
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(username, null, authorities);
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                }
-            }
+            // Un único parseo y verificación de firma por token; las peticiones siguientes salen de la caché
+            jwtTokenUtil.verificar(token)
+                    .filter(verificado -> verificado.usuario() != null)
+                    // La caché de verificados no sabe de revocaciones: se consulta en cada petición
+                    .filter(verificado -> !revocacionTokens.revocado(verificado.jti()))
+                    .ifPresent(verificado -> {
+                        List<SimpleGrantedAuthority> authorities = List.of();
+                        if (verificado.rol() != null && !verificado.rol().isBlank()) {
+                            authorities = List.of(new SimpleGrantedAuthority("ROLE_" + verificado.rol()));
+                        }
+
+                        UsernamePasswordAuthenticationToken authentication =
+                                new UsernamePasswordAuthenticationToken(verificado.usuario(), null, authorities);
+                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                    });
         }
 
         chain.doFilter(request, response);
@@ -1,16 +1,31 @@
 package com.gestion_laboratorios.asignacion_lab.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
-import java.util.Date;
-import java.util.function.Function;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
 
+/**
+ * Verificación de los JWT emitidos por el servicio de usuarios. La clave y el parser se construyen una vez
+ * (JwtParser es inmutable y thread-safe) y cada token se parsea y verifica una sola vez: los claims
+ * verificados se guardan por el SHA-256 del token hasta su expiración, acotados en número y en tiempo.
+ * Los tokens inválidos no se cachean.
+ */
 @Component
 @Slf4j
 public class JwtTokenUtil {
@@ -18,40 +33,79 @@ public class JwtTokenUtil {
     @Value("${jwt.secret:mySecretKey123456789012345678901234567890123456789012345678901234567890}")
     private String secret;
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
+    @Value("${jwt.cache.tamano-maximo:10000}")
+    private int tamanoMaximoCache;
+
+    @Value("${jwt.cache.ttl-maximo-segundos:300}")
+    private long ttlMaximoSegundos;
+
+    private JwtParser parser;
+    private Cache<String, TokenVerificado> verificados;
+
+    @PostConstruct
+    void inicializar() {
+        parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes()))
+                .build();
+        Duration ttlMaximo = Duration.ofSeconds(ttlMaximoSegundos);
+        verificados = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximoCache)
+                .expireAfter(new Expiry<String, TokenVerificado>() {
+                    @Override
+                    public long expireAfterCreate(String clave, TokenVerificado token, long ahora) {
+                        Duration restante = token.expiracion() == null
+                                ? ttlMaximo
+                                : Duration.between(Instant.now(), token.expiracion());
+                        return Math.max(0, Math.min(restante.toNanos(), ttlMaximo.toNanos()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String clave, TokenVerificado token, long ahora, long restante) {
+                        return expireAfterCreate(clave, token, ahora);
+                    }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+                    @Override
+                    public long expireAfterRead(String clave, TokenVerificado token, long ahora, long restante) {
+                        return restante;
+                    }
+                })
+                .build();
     }
 
-    public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+    // Claims del token si la firma es válida y no ha expirado
+    public Optional<TokenVerificado> verificar(String token) {
+        String clave = huella(token);
+        TokenVerificado verificado = verificados.getIfPresent(clave);
+        if (verificado == null) {
+            verificado = parsear(token);
+            if (verificado == null) {
+                return Optional.empty();
+            }
+            verificados.put(clave, verificado);
+        }
+        return verificado.vigenteEn(Instant.now()) ? Optional.of(verificado) : Optional.empty();
     }
 
-    public boolean validateToken(String token) {
+    private TokenVerificado parsear(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            Date expiration = claims.getExpiration();
-            return expiration == null || expiration.after(new Date());
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            return new TokenVerificado(
+                    claims.getId(),
+                    claims.getSubject(),
+                    claims.get("role", String.class),
+                    claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
         } catch (Exception e) {
             log.debug("Token validation failed: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String huella(String token) {
+        try {
+            byte[] resumen = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(resumen);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 }
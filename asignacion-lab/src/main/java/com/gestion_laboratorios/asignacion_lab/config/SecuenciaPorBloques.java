@@ -0,0 +1,22 @@
+package com.gestion_laboratorios.asignacion_lab.config;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Id generado desde una secuencia con optimizador pooled-lo: cada llamada a la secuencia
+ * reserva un bloque de ids en memoria (app.ids.tamano-bloque), en lugar de un viaje por insert.
+ */
+@IdGeneratorType(GeneradorSecuenciaPorBloques.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface SecuenciaPorBloques {
+
+    String nombre();
+}
@@ -34,6 +34,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/laboratorios/health").permitAll()
                         .requestMatchers("/api/tipos-analisis/health").permitAll()
                         .requestMatchers("/api/asignaciones/health").permitAll()
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/error").permitAll()
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().permitAll()
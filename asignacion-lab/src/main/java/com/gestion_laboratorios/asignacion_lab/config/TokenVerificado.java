@@ -0,0 +1,13 @@
+package com.gestion_laboratorios.asignacion_lab.config;
+
+import java.time.Instant;
+
+/**
+ * Claims de un JWT cuya firma ya se verificó. jti y expiracion son null si el token no los incluye.
+ */
+public record TokenVerificado(String jti, String usuario, String rol, Instant expiracion) {
+
+    public boolean vigenteEn(Instant instante) {
+        return expiracion == null || expiracion.isAfter(instante);
+    }
+}
@@ -1,18 +1,30 @@
 package com.gestion_laboratorios.asignacion_lab.controller;
 
+import com.gestion_laboratorios.asignacion_lab.dto.AsignacionLoteRequestDto;
+import com.gestion_laboratorios.asignacion_lab.dto.AsignacionLoteResponseDto;
 import com.gestion_laboratorios.asignacion_lab.dto.AsignacionRequestDto;
 import com.gestion_laboratorios.asignacion_lab.dto.AsignacionResponseDto;
 import com.gestion_laboratorios.asignacion_lab.dto.AsignacionUpdateDto;
+import com.gestion_laboratorios.asignacion_lab.dto.ConsistenciaAgendaDto;
+import com.gestion_laboratorios.asignacion_lab.dto.ConsistenciaCapacidadDto;
+import com.gestion_laboratorios.asignacion_lab.dto.ListadoLimitado;
+import com.gestion_laboratorios.asignacion_lab.dto.PaginaDto;
+import com.gestion_laboratorios.asignacion_lab.dto.PrimerHuecoDto;
 import com.gestion_laboratorios.asignacion_lab.entity.Asignacion;
 import com.gestion_laboratorios.asignacion_lab.service.AsignacionService;
+import com.gestion_laboratorios.asignacion_lab.service.ExportacionAsignacionesService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,7 +33,11 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class AsignacionController {
 
+    private static final String CABECERA_TRUNCADO = "X-Resultados-Truncados";
+    private static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+
     private final AsignacionService asignacionService;
+    private final ExportacionAsignacionesService exportacionService;
 
     @PostMapping
     public ResponseEntity<AsignacionResponseDto> crearAsignacion(@Valid @RequestBody AsignacionRequestDto request) {
@@ -29,10 +45,49 @@ public class AsignacionController {
         return new ResponseEntity<>(asignacion, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<AsignacionLoteResponseDto> crearAsignacionesEnLote(
+            @Valid @RequestBody AsignacionLoteRequestDto request) {
+        AsignacionLoteResponseDto resultado = asignacionService.crearAsignacionesEnLote(request.getAsignaciones());
+        HttpStatus status = resultado.getRechazadas() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<>(resultado, status);
+    }
+
     @GetMapping
     public ResponseEntity<List<AsignacionResponseDto>> obtenerTodasLasAsignaciones() {
-        List<AsignacionResponseDto> asignaciones = asignacionService.obtenerTodasLasAsignaciones();
-        return ResponseEntity.ok(asignaciones);
+        return listadoLimitado(asignacionService.obtenerTodasLasAsignaciones());
+    }
+
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaDto<AsignacionResponseDto>> obtenerPaginaAsignaciones(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamano) {
+        PaginaDto<AsignacionResponseDto> pagina = asignacionService.obtenerPaginaAsignaciones(cursor, tamano);
+        return ResponseEntity.ok(pagina);
+    }
+
+    @GetMapping("/primer-hueco")
+    public ResponseEntity<PrimerHuecoDto> buscarPrimerHueco(
+            @RequestParam Long tipoAnalisisId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) String ubicacion,
+            @RequestParam(required = false) String equipamiento,
+            @RequestParam(defaultValue = "5") int alternativas) {
+        PrimerHuecoDto hueco = asignacionService.buscarPrimerHueco(
+                tipoAnalisisId, desde, ubicacion, equipamiento, Math.max(0, Math.min(alternativas, 20)));
+        return ResponseEntity.ok(hueco);
+    }
+
+    @GetMapping(value = "/export", produces = MEDIA_TYPE_NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportarAsignaciones(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        exportacionService.validarRango(desde, hasta);
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportar(desde, hasta, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(MEDIA_TYPE_NDJSON))
+                .body(cuerpo);
     }
 
     @GetMapping("/{id}")
@@ -43,28 +98,51 @@ public class AsignacionController {
 
     @GetMapping("/usuario/{usuarioId}")
     public ResponseEntity<List<AsignacionResponseDto>> obtenerAsignacionesPorUsuario(@PathVariable Long usuarioId) {
-        List<AsignacionResponseDto> asignaciones = asignacionService.obtenerAsignacionesPorUsuario(usuarioId);
-        return ResponseEntity.ok(asignaciones);
+        return listadoLimitado(asignacionService.obtenerAsignacionesPorUsuario(usuarioId));
     }
 
     @GetMapping("/laboratorio/{laboratorioId}")
     public ResponseEntity<List<AsignacionResponseDto>> obtenerAsignacionesPorLaboratorio(@PathVariable Long laboratorioId) {
-        List<AsignacionResponseDto> asignaciones = asignacionService.obtenerAsignacionesPorLaboratorio(laboratorioId);
-        return ResponseEntity.ok(asignaciones);
+        return listadoLimitado(asignacionService.obtenerAsignacionesPorLaboratorio(laboratorioId));
+    }
+
+    @GetMapping("/laboratorio/{laboratorioId}/pagina")
+    public ResponseEntity<PaginaDto<AsignacionResponseDto>> obtenerPaginaPorLaboratorio(
+            @PathVariable Long laboratorioId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamano) {
+        PaginaDto<AsignacionResponseDto> pagina = asignacionService.obtenerPaginaPorLaboratorio(laboratorioId, cursor, tamano);
+        return ResponseEntity.ok(pagina);
     }
 
     @GetMapping("/fecha/{fecha}")
     public ResponseEntity<List<AsignacionResponseDto>> obtenerAsignacionesPorFecha(
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
-        List<AsignacionResponseDto> asignaciones = asignacionService.obtenerAsignacionesPorFecha(fecha);
-        return ResponseEntity.ok(asignaciones);
+        return listadoLimitado(asignacionService.obtenerAsignacionesPorFecha(fecha));
+    }
+
+    @GetMapping("/fecha/{fecha}/pagina")
+    public ResponseEntity<PaginaDto<AsignacionResponseDto>> obtenerPaginaPorFecha(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamano) {
+        PaginaDto<AsignacionResponseDto> pagina = asignacionService.obtenerPaginaPorFecha(fecha, cursor, tamano);
+        return ResponseEntity.ok(pagina);
     }
 
     @GetMapping("/estado/{estado}")
     public ResponseEntity<List<AsignacionResponseDto>> obtenerAsignacionesPorEstado(
             @PathVariable Asignacion.EstadoAsignacion estado) {
-        List<AsignacionResponseDto> asignaciones = asignacionService.obtenerAsignacionesPorEstado(estado);
-        return ResponseEntity.ok(asignaciones);
+        return listadoLimitado(asignacionService.obtenerAsignacionesPorEstado(estado));
+    }
+
+    @GetMapping("/estado/{estado}/pagina")
+    public ResponseEntity<PaginaDto<AsignacionResponseDto>> obtenerPaginaPorEstado(
+            @PathVariable Asignacion.EstadoAsignacion estado,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamano) {
+        PaginaDto<AsignacionResponseDto> pagina = asignacionService.obtenerPaginaPorEstado(estado, cursor, tamano);
+        return ResponseEntity.ok(pagina);
     }
 
     @PutMapping("/{id}")
@@ -103,12 +181,55 @@ public class AsignacionController {
 
     @GetMapping("/buscar/paciente")
     public ResponseEntity<List<AsignacionResponseDto>> buscarPorPaciente(@RequestParam String nombre) {
-        List<AsignacionResponseDto> asignaciones = asignacionService.buscarPorPaciente(nombre);
-        return ResponseEntity.ok(asignaciones);
+        return listadoLimitado(asignacionService.buscarPorPaciente(nombre));
+    }
+
+    @GetMapping("/buscar/paciente/pagina")
+    public ResponseEntity<PaginaDto<AsignacionResponseDto>> buscarPaginaPorPaciente(
+            @RequestParam String nombre,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamano) {
+        PaginaDto<AsignacionResponseDto> pagina = asignacionService.obtenerPaginaPorPaciente(nombre, cursor, tamano);
+        return ResponseEntity.ok(pagina);
+    }
+
+    @GetMapping("/capacidad/consistencia")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ConsistenciaCapacidadDto> verificarContadoresCapacidad() {
+        ConsistenciaCapacidadDto consistencia = asignacionService.verificarContadoresCapacidad();
+        return ResponseEntity.ok(consistencia);
+    }
+
+    @PostMapping("/capacidad/consistencia/reparacion")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ConsistenciaCapacidadDto> repararContadoresCapacidad() {
+        ConsistenciaCapacidadDto consistencia = asignacionService.repararContadoresCapacidad();
+        return ResponseEntity.ok(consistencia);
+    }
+
+    @GetMapping("/agenda/consistencia")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ConsistenciaAgendaDto> verificarIndiceAgenda() {
+        ConsistenciaAgendaDto reporte = asignacionService.verificarIndiceAgenda();
+        return ResponseEntity.ok(reporte);
+    }
+
+    @PostMapping("/agenda/consistencia/reparacion")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ConsistenciaAgendaDto> repararIndiceAgenda() {
+        ConsistenciaAgendaDto reporte = asignacionService.repararIndiceAgenda();
+        return ResponseEntity.ok(reporte);
     }
 
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Controlador de asignaciones funcionando correctamente");
     }
-}
\ No newline at end of file
+
+    // Los listados sin paginar devuelven como mucho app.asignaciones.listado.limite-filas elementos
+    private static ResponseEntity<List<AsignacionResponseDto>> listadoLimitado(ListadoLimitado<AsignacionResponseDto> listado) {
+        return ResponseEntity.ok()
+                .header(CABECERA_TRUNCADO, String.valueOf(listado.truncado()))
+                .body(listado.elementos());
+    }
+}
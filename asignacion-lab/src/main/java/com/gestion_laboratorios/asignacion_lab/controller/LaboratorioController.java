@@ -1,16 +1,20 @@
 package com.gestion_laboratorios.asignacion_lab.controller;
 
+import com.gestion_laboratorios.asignacion_lab.dto.DisponibilidadLaboratorioDto;
+import com.gestion_laboratorios.asignacion_lab.dto.EstadisticasCacheDto;
 import com.gestion_laboratorios.asignacion_lab.dto.LaboratorioRequestDto;
 import com.gestion_laboratorios.asignacion_lab.dto.LaboratorioResponseDto;
 import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
 import com.gestion_laboratorios.asignacion_lab.service.LaboratorioService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -46,6 +50,17 @@ public class LaboratorioController {
         return ResponseEntity.ok(laboratorio);
     }
 
+    @GetMapping("/{id}/disponibilidad")
+    public ResponseEntity<DisponibilidadLaboratorioDto> obtenerDisponibilidad(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam Long tipoAnalisisId) {
+        DisponibilidadLaboratorioDto disponibilidad = laboratorioService.obtenerDisponibilidad(
+                id, desde, hasta != null ? hasta : desde.plusDays(1), tipoAnalisisId);
+        return ResponseEntity.ok(disponibilidad);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<LaboratorioResponseDto> actualizarLaboratorio(
@@ -77,6 +92,19 @@ public class LaboratorioController {
         return ResponseEntity.ok(laboratorio);
     }
 
+    @GetMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<EstadisticasCacheDto>> obtenerEstadisticasCache() {
+        return ResponseEntity.ok(laboratorioService.obtenerEstadisticasCache());
+    }
+
+    @DeleteMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> invalidarCacheCatalogo() {
+        laboratorioService.invalidarCacheCatalogo();
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Controlador de laboratorios funcionando correctamente");
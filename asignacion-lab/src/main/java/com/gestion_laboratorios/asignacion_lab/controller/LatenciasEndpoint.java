@@ -0,0 +1,26 @@
+package com.gestion_laboratorios.asignacion_lab.controller;
+
+import com.gestion_laboratorios.asignacion_lab.dto.LatenciaRutaDto;
+import com.gestion_laboratorios.asignacion_lab.service.LatenciasRutas;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/latencias: percentiles de latencia por ruta en la ventana reciente (sólo ADMIN).
+ */
+@Component
+@Endpoint(id = "latencias")
+@RequiredArgsConstructor
+public class LatenciasEndpoint {
+
+    private final LatenciasRutas latenciasRutas;
+
+    @ReadOperation
+    public List<LatenciaRutaDto> latencias() {
+        return latenciasRutas.percentiles();
+    }
+}
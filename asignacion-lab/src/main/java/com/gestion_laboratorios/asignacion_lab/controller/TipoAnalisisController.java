@@ -85,6 +85,21 @@ public class TipoAnalisisController {
         return ResponseEntity.ok(tipos);
     }
 
+    @GetMapping("/por-duracion")
+    public ResponseEntity<List<TipoAnalisisResponseDto>> obtenerPorDuracionMaxima(@RequestParam Integer duracionMaxima) {
+        List<TipoAnalisisResponseDto> tipos = tipoAnalisisService.obtenerPorDuracionMaxima(duracionMaxima);
+        return ResponseEntity.ok(tipos);
+    }
+
+    @GetMapping("/filtrar")
+    public ResponseEntity<List<TipoAnalisisResponseDto>> filtrar(
+            @RequestParam(required = false) BigDecimal costoMin,
+            @RequestParam(required = false) BigDecimal costoMax,
+            @RequestParam(required = false) Integer duracionMaxima) {
+        List<TipoAnalisisResponseDto> tipos = tipoAnalisisService.filtrar(costoMin, costoMax, duracionMaxima);
+        return ResponseEntity.ok(tipos);
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Controlador de tipos de análisis funcionando correctamente");
@@ -0,0 +1,54 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import com.gestion_laboratorios.asignacion_lab.entity.Asignacion;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de la exportación NDJSON: sólo identificadores y nombres de laboratorio y tipo de análisis,
+ * sin recorrer colecciones perezosas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AsignacionExportDto {
+
+    private Long id;
+    private Long usuarioId;
+    private String nombrePaciente;
+    private Long laboratorioId;
+    private String laboratorioNombre;
+    private Long tipoAnalisisId;
+    private String tipoAnalisisNombre;
+    private LocalDateTime fechaHoraInicio;
+    private LocalDateTime fechaHoraFin;
+    private Asignacion.EstadoAsignacion estado;
+    private String observaciones;
+    private String resultados;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaActualizacion;
+
+    public static AsignacionExportDto fromEntity(Asignacion asignacion) {
+        return AsignacionExportDto.builder()
+                .id(asignacion.getId())
+                .usuarioId(asignacion.getUsuarioId())
+                .nombrePaciente(asignacion.getNombrePaciente())
+                .laboratorioId(asignacion.getLaboratorio().getId())
+                .laboratorioNombre(asignacion.getLaboratorio().getNombre())
+                .tipoAnalisisId(asignacion.getTipoAnalisis().getId())
+                .tipoAnalisisNombre(asignacion.getTipoAnalisis().getNombre())
+                .fechaHoraInicio(asignacion.getFechaHoraInicio())
+                .fechaHoraFin(asignacion.getFechaHoraFin())
+                .estado(asignacion.getEstado())
+                .observaciones(asignacion.getObservaciones())
+                .resultados(asignacion.getResultados())
+                .fechaCreacion(asignacion.getFechaCreacion())
+                .fechaActualizacion(asignacion.getFechaActualizacion())
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AsignacionLoteRequestDto {
+
+    @NotEmpty(message = "El lote debe contener al menos una asignación")
+    @Size(max = 1000, message = "El lote no puede exceder 1000 asignaciones")
+    private List<@Valid AsignacionRequestDto> asignaciones;
+}
@@ -0,0 +1,47 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AsignacionLoteResponseDto {
+
+    private int total;
+    private int creadas;
+    private int rechazadas;
+    private List<ResultadoItem> resultados;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ResultadoItem {
+        private int indice;
+        private boolean exitoso;
+        private AsignacionResponseDto asignacion;
+        private String error;
+
+        public static ResultadoItem exito(int indice, AsignacionResponseDto asignacion) {
+            return ResultadoItem.builder()
+                    .indice(indice)
+                    .exitoso(true)
+                    .asignacion(asignacion)
+                    .build();
+        }
+
+        public static ResultadoItem rechazo(int indice, String error) {
+            return ResultadoItem.builder()
+                    .indice(indice)
+                    .exitoso(false)
+                    .error(error)
+                    .build();
+        }
+    }
+}
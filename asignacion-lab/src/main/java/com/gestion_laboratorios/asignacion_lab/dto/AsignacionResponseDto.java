@@ -27,13 +27,13 @@ public class AsignacionResponseDto {
     private LocalDateTime fechaCreacion;
     private LocalDateTime fechaActualizacion;
 
-    public static AsignacionResponseDto fromEntity(Asignacion asignacion) {
+    public static AsignacionResponseDto fromEntity(Asignacion asignacion, long asignacionesActivasLaboratorio) {
         return AsignacionResponseDto.builder()
                 .id(asignacion.getId())
                 .usuarioId(asignacion.getUsuarioId())
                 .nombrePaciente(asignacion.getNombrePaciente())
                 .laboratorio(asignacion.getLaboratorio() != null ? 
-                    LaboratorioResponseDto.fromEntity(asignacion.getLaboratorio()) : null)
+                    LaboratorioResponseDto.fromEntity(asignacion.getLaboratorio(), asignacionesActivasLaboratorio) : null)
                 .tipoAnalisis(asignacion.getTipoAnalisis() != null ? 
                     TipoAnalisisResponseDto.fromEntity(asignacion.getTipoAnalisis()) : null)
                 .fechaHoraInicio(asignacion.getFechaHoraInicio())
@@ -0,0 +1,25 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConsistenciaAgendaDto {
+
+    private int registrosBaseDatos;
+    private int registrosIndice;
+    private List<Long> faltantesEnIndice;
+    private List<Long> sobrantesEnIndice;
+    private List<Long> desfasados;
+    private boolean consistente;
+    private boolean reparado;
+    private LocalDateTime fechaVerificacion;
+}
@@ -0,0 +1,35 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConsistenciaCapacidadDto {
+
+    private int diasConAsignaciones;
+    private int contadores;
+    private List<Diferencia> diferencias;
+    private boolean consistente;
+    private boolean reparado;
+    private LocalDateTime fechaVerificacion;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Diferencia {
+
+        private Long laboratorioId;
+        private LocalDate fecha;
+        private long contador;
+        private long real;
+    }
+}
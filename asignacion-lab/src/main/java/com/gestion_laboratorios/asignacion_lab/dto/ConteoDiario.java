@@ -0,0 +1,9 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Número de asignaciones no canceladas de un laboratorio en un día.
+ */
+public record ConteoDiario(Long laboratorioId, LocalDate fecha, Long total) {
+}
@@ -0,0 +1,7 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+/**
+ * Número de asignaciones de un laboratorio que cumplen un criterio (p. ej. no finalizadas).
+ */
+public record ConteoLaboratorio(Long laboratorioId, Long total) {
+}
@@ -0,0 +1,42 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import com.gestion_laboratorios.asignacion_lab.entity.Asignacion;
+import com.gestion_laboratorios.asignacion_lab.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de paginación por clave (keyset) sobre (fechaHoraInicio, id): la página siguiente empieza
+ * estrictamente después de esta pareja. Se serializa como token opaco en base64url.
+ */
+public record CursorAsignacion(LocalDateTime fechaHoraInicio, Long id) {
+
+    public static final CursorAsignacion INICIO = new CursorAsignacion(LocalDateTime.of(1900, 1, 1, 0, 0), 0L);
+
+    public static CursorAsignacion despuesDe(Asignacion asignacion) {
+        return new CursorAsignacion(asignacion.getFechaHoraInicio(), asignacion.getId());
+    }
+
+    public static CursorAsignacion decodificar(String token) {
+        if (token == null || token.isBlank()) {
+            return INICIO;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf('|');
+            return new CursorAsignacion(
+                    LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw BusinessException.cursorInvalido();
+        }
+    }
+
+    public String codificar() {
+        String valor = fechaHoraInicio + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,39 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DisponibilidadLaboratorioDto {
+
+    private Long laboratorioId;
+    private Long tipoAnalisisId;
+    private int duracionMinutos;
+    private int granularidadMinutos;
+    private LocalDateTime desde;
+    private LocalDateTime hasta;
+    private List<HuecoLibre> huecos;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HuecoLibre {
+
+        private LocalDateTime inicio;
+        private LocalDateTime fin;
+        private long minutos;
+
+        public static HuecoLibre de(LocalDateTime inicio, LocalDateTime fin) {
+            return new HuecoLibre(inicio, fin, Duration.between(inicio, fin).toMinutes());
+        }
+    }
+}
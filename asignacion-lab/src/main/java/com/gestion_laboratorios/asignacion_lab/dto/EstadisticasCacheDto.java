@@ -0,0 +1,24 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticasCacheDto {
+
+    private String nombre;
+    private long entradas;
+    private long aciertos;
+    private long fallos;
+    private double tasaAciertos;
+    private long expulsiones;
+    private long invalidaciones;
+    private long cargas;
+    private long cargasFallidas;
+    private double tiempoMedioCargaMs;
+}
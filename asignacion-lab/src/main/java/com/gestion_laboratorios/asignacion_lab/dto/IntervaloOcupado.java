@@ -0,0 +1,37 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import com.gestion_laboratorios.asignacion_lab.entity.Asignacion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Franja [inicio, fin) ocupada por una asignación activa (PROGRAMADA o EN_PROGRESO) de un laboratorio.
+ */
+public record IntervaloOcupado(Long asignacionId, Long laboratorioId, LocalDateTime inicio, LocalDateTime fin) {
+
+    public static final int DURACION_POR_DEFECTO_MINUTOS = 60;
+
+    public IntervaloOcupado {
+        // Registros antiguos pueden no tener fecha de fin
+        if (fin == null || !fin.isAfter(inicio)) {
+            fin = inicio.plusMinutes(DURACION_POR_DEFECTO_MINUTOS);
+        }
+    }
+
+    public static IntervaloOcupado fromEntity(Asignacion asignacion) {
+        return new IntervaloOcupado(
+                asignacion.getId(),
+                asignacion.getLaboratorio().getId(),
+                asignacion.getFechaHoraInicio(),
+                asignacion.getFechaHoraFin()
+        );
+    }
+
+    public static boolean estaActiva(Asignacion asignacion) {
+        return asignacion.estaProgramada() || asignacion.estaEnProgreso();
+    }
+
+    public boolean solapa(LocalDateTime otroInicio, LocalDateTime otroFin) {
+        return inicio.isBefore(otroFin) && fin.isAfter(otroInicio);
+    }
+}
@@ -26,7 +26,8 @@ public class LaboratorioResponseDto {
     private boolean disponible;
     private int asignacionesActivas;
 
-    public static LaboratorioResponseDto fromEntity(Laboratorio laboratorio) {
+    // El conteo de asignaciones activas se calcula aparte para no inicializar la colección perezosa
+    public static LaboratorioResponseDto fromEntity(Laboratorio laboratorio, long asignacionesActivas) {
         return LaboratorioResponseDto.builder()
                 .id(laboratorio.getId())
                 .nombre(laboratorio.getNombre())
@@ -38,10 +39,7 @@ public class LaboratorioResponseDto {
                 .fechaCreacion(laboratorio.getFechaCreacion())
                 .fechaActualizacion(laboratorio.getFechaActualizacion())
                 .disponible(laboratorio.estaDisponible())
-                .asignacionesActivas(laboratorio.getAsignaciones() != null ? 
-                    (int) laboratorio.getAsignaciones().stream()
-                        .filter(a -> !a.estaCompletada() && !a.estaCancelada())
-                        .count() : 0)
+                .asignacionesActivas((int) asignacionesActivas)
                 .build();
     }
 }
\ No newline at end of file
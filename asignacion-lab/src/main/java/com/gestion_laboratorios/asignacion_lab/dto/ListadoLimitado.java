@@ -0,0 +1,9 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de un listado sin paginar acotado a un número máximo de filas.
+ */
+public record ListadoLimitado<T>(List<T> elementos, boolean truncado) {
+}
@@ -0,0 +1,7 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+/**
+ * Proyección mínima para cargar el índice de búsqueda por paciente sin materializar entidades.
+ */
+public record NombrePaciente(Long asignacionId, String nombre) {
+}
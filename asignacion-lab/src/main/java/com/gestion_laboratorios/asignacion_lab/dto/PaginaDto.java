@@ -0,0 +1,21 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaDto<T> {
+
+    private List<T> elementos;
+    private int tamano;
+    private boolean hayMas;
+    // Token para pedir la página siguiente; null en la última página
+    private String siguiente;
+}
@@ -0,0 +1,39 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PrimerHuecoDto {
+
+    private Long tipoAnalisisId;
+    private int duracionMinutos;
+    private LocalDateTime desde;
+    private LocalDateTime hasta;
+    private int laboratoriosEvaluados;
+    private HuecoLaboratorio primero;
+    private List<HuecoLaboratorio> alternativas;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class HuecoLaboratorio {
+
+        private Long laboratorioId;
+        private String laboratorioNombre;
+        private String ubicacion;
+        private LocalDateTime inicio;
+        private LocalDateTime fin;
+        // Fin del hueco libre en el que cae la propuesta
+        private LocalDateTime libreHasta;
+    }
+}
@@ -1,7 +1,7 @@
 package com.gestion_laboratorios.asignacion_lab.entity;
 
+import com.gestion_laboratorios.asignacion_lab.config.SecuenciaPorBloques;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -14,7 +14,14 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "asignaciones")
+@Table(
+        name = "asignaciones",
+        indexes = {
+                @Index(name = "idx_asignaciones_laboratorio_inicio", columnList = "laboratorio_id, fecha_hora_inicio, id"),
+                @Index(name = "idx_asignaciones_inicio", columnList = "fecha_hora_inicio, id"),
+                @Index(name = "idx_asignaciones_estado_inicio", columnList = "estado, fecha_hora_inicio, id")
+        }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,8 +29,7 @@ import java.time.LocalDateTime;
 public class Asignacion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asignacion_seq")
-    @SequenceGenerator(name = "asignacion_seq", sequenceName = "asignacion_sequence", allocationSize = 1)
+    @SecuenciaPorBloques(nombre = "asignacion_sequence")
     private Long id;
 
     @NotNull(message = "El ID del usuario es obligatorio")
@@ -43,7 +49,6 @@ public class Asignacion {
     private TipoAnalisis tipoAnalisis;
 
     @NotNull(message = "La fecha y hora de inicio son obligatorias")
-    @Future(message = "La fecha y hora de inicio debe ser futura")
     @Column(name = "fecha_hora_inicio", nullable = false)
     private LocalDateTime fechaHoraInicio;
 
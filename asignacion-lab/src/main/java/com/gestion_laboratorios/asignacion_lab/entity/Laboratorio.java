@@ -1,5 +1,6 @@
 package com.gestion_laboratorios.asignacion_lab.entity;
 
+import com.gestion_laboratorios.asignacion_lab.config.SecuenciaPorBloques;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -7,6 +8,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -14,6 +17,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "laboratorios")
 @Data
 @NoArgsConstructor
@@ -22,8 +27,7 @@ import java.util.List;
 public class Laboratorio {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "laboratorio_seq")
-    @SequenceGenerator(name = "laboratorio_seq", sequenceName = "laboratorio_sequence", allocationSize = 1)
+    @SecuenciaPorBloques(nombre = "laboratorio_sequence")
     private Long id;
 
     @NotBlank(message = "El nombre del laboratorio es obligatorio")
@@ -1,15 +1,20 @@
 package com.gestion_laboratorios.asignacion_lab.entity;
 
+import com.gestion_laboratorios.asignacion_lab.config.SecuenciaPorBloques;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(
         name = "medico_laboratorio",
         uniqueConstraints = {
@@ -26,8 +31,7 @@ import java.time.LocalDateTime;
 public class MedicoLaboratorio {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medico_laboratorio_seq")
-    @SequenceGenerator(name = "medico_laboratorio_seq", sequenceName = "medico_laboratorio_sequence", allocationSize = 1)
+    @SecuenciaPorBloques(nombre = "medico_laboratorio_sequence")
     private Long id;
 
     @Column(name = "medico_id", nullable = false)
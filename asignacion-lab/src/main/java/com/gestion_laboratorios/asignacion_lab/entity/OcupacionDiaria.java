@@ -0,0 +1,43 @@
+package com.gestion_laboratorios.asignacion_lab.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Contador materializado de asignaciones no canceladas por laboratorio y día.
+ * Se mantiene en la misma transacción que las asignaciones y se reconstruye desde ellas.
+ */
+@Entity
+@Table(name = "ocupacion_diaria_laboratorio")
+@IdClass(OcupacionDiaria.Clave.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OcupacionDiaria {
+
+    @Id
+    @Column(name = "laboratorio_id")
+    private Long laboratorioId;
+
+    @Id
+    @Column(name = "fecha")
+    private LocalDate fecha;
+
+    @Column(name = "total_asignaciones", nullable = false)
+    private Long totalAsignaciones;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private Long laboratorioId;
+        private LocalDate fecha;
+    }
+}
@@ -1,5 +1,6 @@
 package com.gestion_laboratorios.asignacion_lab.entity;
 
+import com.gestion_laboratorios.asignacion_lab.config.SecuenciaPorBloques;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -7,6 +8,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -15,6 +18,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "tipos_analisis")
 @Data
 @NoArgsConstructor
@@ -23,8 +28,7 @@ import java.util.List;
 public class TipoAnalisis {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tipo_analisis_seq")
-    @SequenceGenerator(name = "tipo_analisis_seq", sequenceName = "tipo_analisis_sequence", allocationSize = 1)
+    @SecuenciaPorBloques(nombre = "tipo_analisis_sequence")
     private Long id;
 
     @NotBlank(message = "El nombre del tipo de análisis es obligatorio")
@@ -0,0 +1,27 @@
+package com.gestion_laboratorios.asignacion_lab.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Versión por región de caché. Cada instancia la incrementa en la misma transacción que modifica los datos
+ * cacheados y las demás la consultan periódicamente para invalidar sus cachés locales.
+ */
+@Entity
+@Table(name = "version_cache")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VersionCache {
+
+    @Id
+    @Column(name = "region", length = 50)
+    private String region;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
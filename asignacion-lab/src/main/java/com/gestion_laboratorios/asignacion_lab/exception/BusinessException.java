@@ -25,4 +25,17 @@ public class BusinessException extends RuntimeException {
     public static BusinessException duracionInvalida() {
         return new BusinessException("La duración del análisis no es válida");
     }
+
+    public static BusinessException rangoFechasInvalido(int maximoDias) {
+        return new BusinessException("El rango de fechas no es válido: la fecha final debe ser posterior a la inicial "
+                + "y el rango no puede superar " + maximoDias + " días");
+    }
+
+    public static BusinessException cursorInvalido() {
+        return new BusinessException("El cursor de paginación no es válido");
+    }
+
+    public static BusinessException rangoFechasInvalido() {
+        return new BusinessException("El rango de fechas no es válido: la fecha final debe ser posterior a la inicial");
+    }
 }
\ No newline at end of file
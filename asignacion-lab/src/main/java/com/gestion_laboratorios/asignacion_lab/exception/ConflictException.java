@@ -26,6 +26,10 @@ public class ConflictException extends RuntimeException {
         return new ConflictException("El laboratorio está en mantenimiento");
     }
 
+    public static ConflictException reservaConcurrente() {
+        return new ConflictException("El laboratorio está procesando otra reserva, intente nuevamente");
+    }
+
     public static ConflictException duplicateResource(String resource) {
         return new ConflictException("Ya existe un recurso duplicado: " + resource);
     }
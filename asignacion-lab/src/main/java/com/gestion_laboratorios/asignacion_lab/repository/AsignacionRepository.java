@@ -1,13 +1,22 @@
 package com.gestion_laboratorios.asignacion_lab.repository;
 
+import com.gestion_laboratorios.asignacion_lab.dto.ConteoDiario;
+import com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado;
+import com.gestion_laboratorios.asignacion_lab.dto.NombrePaciente;
 import com.gestion_laboratorios.asignacion_lab.entity.Asignacion;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AsignacionRepository extends JpaRepository<Asignacion, Long> {
@@ -15,6 +24,9 @@ public interface AsignacionRepository extends JpaRepository<Asignacion, Long> {
     List<Asignacion> findByUsuarioId(Long usuarioId);
     
     List<Asignacion> findByUsuarioIdOrderByFechaHoraInicioDesc(Long usuarioId);
+
+    @EntityGraph(attributePaths = {"laboratorio", "tipoAnalisis"})
+    List<Asignacion> findByUsuarioIdOrderByFechaHoraInicioDesc(Long usuarioId, Pageable pageable);
     
     List<Asignacion> findByLaboratorioId(Long laboratorioId);
     
@@ -24,8 +36,10 @@ public interface AsignacionRepository extends JpaRepository<Asignacion, Long> {
     
     List<Asignacion> findByEstadoOrderByFechaHoraInicio(Asignacion.EstadoAsignacion estado);
     
+    // Sin JOIN FETCH del catálogo: de los conflictos sólo se usan ids y horas
     @Query("SELECT a FROM Asignacion a WHERE a.laboratorio.id = :laboratorioId AND " +
-           "a.fechaHoraInicio BETWEEN :fechaInicio AND :fechaFin AND " +
+           "a.fechaHoraInicio < :fechaFin AND " +
+           "COALESCE(a.fechaHoraFin, a.fechaHoraInicio) > :fechaInicio AND " +
            "a.estado IN (com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.PROGRAMADA, " +
            "com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.EN_PROGRESO)")
     List<Asignacion> findConflictosHorario(
@@ -34,6 +48,26 @@ public interface AsignacionRepository extends JpaRepository<Asignacion, Long> {
         @Param("fechaFin") LocalDateTime fechaFin
     );
     
+    @Query("SELECT new com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado(" +
+           "a.id, a.laboratorio.id, a.fechaHoraInicio, a.fechaHoraFin) FROM Asignacion a WHERE " +
+           "a.estado IN (com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.PROGRAMADA, " +
+           "com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.EN_PROGRESO)")
+    List<IntervaloOcupado> findIntervalosActivos();
+
+    // Franjas activas de los laboratorios que solapan [fechaInicio, fechaFin), para el modo CLUSTER
+    @Query("SELECT new com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado(" +
+           "a.id, a.laboratorio.id, a.fechaHoraInicio, a.fechaHoraFin) FROM Asignacion a WHERE " +
+           "a.laboratorio.id IN :laboratorioIds AND " +
+           "a.fechaHoraInicio < :fechaFin AND " +
+           "COALESCE(a.fechaHoraFin, a.fechaHoraInicio) > :fechaInicio AND " +
+           "a.estado IN (com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.PROGRAMADA, " +
+           "com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.EN_PROGRESO)")
+    List<IntervaloOcupado> findIntervalosActivosEntre(
+        @Param("laboratorioIds") Collection<Long> laboratorioIds,
+        @Param("fechaInicio") LocalDateTime fechaInicio,
+        @Param("fechaFin") LocalDateTime fechaFin
+    );
+    
     @Query("SELECT a FROM Asignacion a WHERE " +
            "a.fechaHoraInicio BETWEEN :fechaInicio AND :fechaFin")
     List<Asignacion> findByFechaHoraInicioBetween(
@@ -61,13 +95,106 @@ public interface AsignacionRepository extends JpaRepository<Asignacion, Long> {
     @Query("SELECT a FROM Asignacion a WHERE " +
            "LOWER(a.nombrePaciente) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<Asignacion> findByNombrePacienteContainingIgnoreCase(@Param("searchTerm") String searchTerm);
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis WHERE " +
+           "LOWER(a.nombrePaciente) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+           "ORDER BY a.fechaHoraInicio DESC, a.id DESC")
+    List<Asignacion> findByNombrePacienteContainingIgnoreCase(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query("SELECT new com.gestion_laboratorios.asignacion_lab.dto.NombrePaciente(a.id, a.nombrePaciente) FROM Asignacion a")
+    List<NombrePaciente> findNombresPacientes();
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis WHERE a.id IN :ids")
+    List<Asignacion> findConCatalogoByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Listados limitados sin paginar: las asignaciones más recientes primero, con laboratorio y tipo de análisis
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis " +
+           "ORDER BY a.fechaHoraInicio DESC, a.id DESC")
+    List<Asignacion> findRecientes(Pageable pageable);
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis WHERE a.estado = :estado " +
+           "ORDER BY a.fechaHoraInicio DESC, a.id DESC")
+    List<Asignacion> findRecientesPorEstado(@Param("estado") Asignacion.EstadoAsignacion estado, Pageable pageable);
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis WHERE a.laboratorio.id = :laboratorioId " +
+           "ORDER BY a.fechaHoraInicio DESC, a.id DESC")
+    List<Asignacion> findRecientesPorLaboratorio(@Param("laboratorioId") Long laboratorioId, Pageable pageable);
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis WHERE " +
+           "a.fechaHoraInicio >= :desde AND a.fechaHoraInicio < :hasta " +
+           "ORDER BY a.fechaHoraInicio DESC, a.id DESC")
+    List<Asignacion> findRecientesEntre(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta, Pageable pageable);
+
+    // Paginación por clave (fechaHoraInicio, id) con laboratorio y tipo de análisis en la misma consulta:
+    // cada página continúa estrictamente después del cursor
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis WHERE " +
+           "(a.fechaHoraInicio > :inicio OR (a.fechaHoraInicio = :inicio AND a.id > :id)) " +
+           "ORDER BY a.fechaHoraInicio, a.id")
+    List<Asignacion> findPagina(
+        @Param("inicio") LocalDateTime inicio,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis WHERE a.fechaHoraInicio < :hasta AND " +
+           "(a.fechaHoraInicio > :inicio OR (a.fechaHoraInicio = :inicio AND a.id > :id)) " +
+           "ORDER BY a.fechaHoraInicio, a.id")
+    List<Asignacion> findPaginaHasta(
+        @Param("inicio") LocalDateTime inicio,
+        @Param("id") Long id,
+        @Param("hasta") LocalDateTime hasta,
+        Pageable pageable
+    );
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis WHERE a.estado = :estado AND " +
+           "(a.fechaHoraInicio > :inicio OR (a.fechaHoraInicio = :inicio AND a.id > :id)) " +
+           "ORDER BY a.fechaHoraInicio, a.id")
+    List<Asignacion> findPaginaPorEstado(
+        @Param("estado") Asignacion.EstadoAsignacion estado,
+        @Param("inicio") LocalDateTime inicio,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis WHERE a.laboratorio.id = :laboratorioId AND " +
+           "(a.fechaHoraInicio > :inicio OR (a.fechaHoraInicio = :inicio AND a.id > :id)) " +
+           "ORDER BY a.fechaHoraInicio, a.id")
+    List<Asignacion> findPaginaPorLaboratorio(
+        @Param("laboratorioId") Long laboratorioId,
+        @Param("inicio") LocalDateTime inicio,
+        @Param("id") Long id,
+        Pageable pageable
+    );
     
+    // Rango [inicioDia, finDia) sobre la columna sin funciones para que use idx_asignaciones_laboratorio_inicio
     @Query("SELECT COUNT(a) FROM Asignacion a WHERE " +
            "a.laboratorio.id = :laboratorioId AND " +
-           "DATE(a.fechaHoraInicio) = DATE(:fecha) AND " +
+           "a.fechaHoraInicio >= :inicioDia AND a.fechaHoraInicio < :finDia AND " +
            "a.estado != com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.CANCELADA")
     long countAsignacionesByLaboratorioAndFecha(
         @Param("laboratorioId") Long laboratorioId,
-        @Param("fecha") LocalDateTime fecha
+        @Param("inicioDia") LocalDateTime inicioDia,
+        @Param("finDia") LocalDateTime finDia
+    );
+
+    // Puede devolver varias filas por día si el dialecto conserva la hora al convertir a fecha; se suman al consumir
+    @Query("SELECT new com.gestion_laboratorios.asignacion_lab.dto.ConteoDiario(" +
+           "a.laboratorio.id, cast(a.fechaHoraInicio as LocalDate), COUNT(a)) " +
+           "FROM Asignacion a WHERE " +
+           "a.estado != com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.CANCELADA " +
+           "GROUP BY a.laboratorio.id, cast(a.fechaHoraInicio as LocalDate)")
+    List<ConteoDiario> contarAsignacionesPorLaboratorioYDia();
+
+    // Cursor de sólo avance para exportaciones: se debe consumir dentro de una transacción y cerrar
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.laboratorio JOIN FETCH a.tipoAnalisis WHERE " +
+           "a.fechaHoraInicio >= :desde AND a.fechaHoraInicio < :hasta " +
+           "ORDER BY a.fechaHoraInicio, a.id")
+    Stream<Asignacion> streamByFechaHoraInicioEntre(
+        @Param("desde") LocalDateTime desde,
+        @Param("hasta") LocalDateTime hasta
     );
-}
\ No newline at end of file
+}
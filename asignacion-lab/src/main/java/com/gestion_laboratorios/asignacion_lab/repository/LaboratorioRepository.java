@@ -1,12 +1,20 @@
 package com.gestion_laboratorios.asignacion_lab.repository;
 
+import com.gestion_laboratorios.asignacion_lab.dto.ConteoLaboratorio;
 import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -14,6 +22,7 @@ public interface LaboratorioRepository extends JpaRepository<Laboratorio, Long>
 
     List<Laboratorio> findByEstado(Laboratorio.EstadoLaboratorio estado);
     
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Laboratorio> findByEstadoOrderByNombre(Laboratorio.EstadoLaboratorio estado);
     
     @Query("SELECT l FROM Laboratorio l WHERE l.estado = :estado AND l.capacidadMaxima >= :capacidadMinima")
@@ -28,6 +37,12 @@ public interface LaboratorioRepository extends JpaRepository<Laboratorio, Long>
            "LOWER(l.equipamiento) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<Laboratorio> findBySearchTerm(@Param("searchTerm") String searchTerm);
     
+    // SELECT ... FOR UPDATE: serializa reservas del mismo laboratorio entre instancias
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT l FROM Laboratorio l WHERE l.id = :id")
+    Optional<Laboratorio> findByIdForUpdate(@Param("id") Long id);
+    
     Optional<Laboratorio> findByNombreIgnoreCase(String nombre);
     
     boolean existsByNombreIgnoreCase(String nombre);
@@ -38,4 +53,26 @@ public interface LaboratorioRepository extends JpaRepository<Laboratorio, Long>
            "a.estado IN (com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.PROGRAMADA, " +
            "com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.EN_PROGRESO)")
     long countAsignacionesActivas(@Param("laboratorioId") Long laboratorioId);
+
+    // Mismo criterio que LaboratorioResponseDto.asignacionesActivas: ni completadas ni canceladas
+    @Query("SELECT new com.gestion_laboratorios.asignacion_lab.dto.ConteoLaboratorio(a.laboratorio.id, COUNT(a)) " +
+           "FROM Asignacion a WHERE a.laboratorio.id IN :laboratorioIds AND " +
+           "a.estado NOT IN (com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.COMPLETADA, " +
+           "com.gestion_laboratorios.asignacion_lab.entity.Asignacion.EstadoAsignacion.CANCELADA) " +
+           "GROUP BY a.laboratorio.id")
+    List<ConteoLaboratorio> contarAsignacionesNoFinalizadas(@Param("laboratorioIds") Collection<Long> laboratorioIds);
+
+    // Una consulta agrupada por cada bloque de 1000 laboratorios del listado, el límite de IN de Oracle
+    default Map<Long, Long> asignacionesActivasPorLaboratorio(Collection<Long> laboratorioIds) {
+        if (laboratorioIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = List.copyOf(laboratorioIds);
+        Map<Long, Long> totales = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += 1000) {
+            contarAsignacionesNoFinalizadas(ids.subList(i, Math.min(i + 1000, ids.size())))
+                    .forEach(c -> totales.put(c.laboratorioId(), c.total()));
+        }
+        return totales;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.gestion_laboratorios.asignacion_lab.repository;
+
+import com.gestion_laboratorios.asignacion_lab.entity.OcupacionDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface OcupacionDiariaRepository extends JpaRepository<OcupacionDiaria, OcupacionDiaria.Clave> {
+
+    @Query("SELECT o.totalAsignaciones FROM OcupacionDiaria o WHERE o.laboratorioId = :laboratorioId AND o.fecha = :fecha")
+    Optional<Long> findTotal(@Param("laboratorioId") Long laboratorioId, @Param("fecha") LocalDate fecha);
+
+    @Modifying
+    @Query("UPDATE OcupacionDiaria o SET o.totalAsignaciones = o.totalAsignaciones + :delta " +
+           "WHERE o.laboratorioId = :laboratorioId AND o.fecha = :fecha")
+    int ajustarTotal(@Param("laboratorioId") Long laboratorioId, @Param("fecha") LocalDate fecha, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE OcupacionDiaria o SET o.totalAsignaciones = :total " +
+           "WHERE o.laboratorioId = :laboratorioId AND o.fecha = :fecha")
+    int fijarTotal(@Param("laboratorioId") Long laboratorioId, @Param("fecha") LocalDate fecha, @Param("total") long total);
+}
@@ -1,8 +1,10 @@
 package com.gestion_laboratorios.asignacion_lab.repository;
 
 import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -15,6 +17,7 @@ public interface TipoAnalisisRepository extends JpaRepository<TipoAnalisis, Long
 
     List<TipoAnalisis> findByActivoTrue();
     
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<TipoAnalisis> findByActivoTrueOrderByNombre();
     
     Optional<TipoAnalisis> findByNombreIgnoreCase(String nombre);
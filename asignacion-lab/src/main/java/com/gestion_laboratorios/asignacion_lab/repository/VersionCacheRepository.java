@@ -0,0 +1,16 @@
+package com.gestion_laboratorios.asignacion_lab.repository;
+
+import com.gestion_laboratorios.asignacion_lab.entity.VersionCache;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VersionCacheRepository extends JpaRepository<VersionCache, String> {
+
+    @Modifying
+    @Query("UPDATE VersionCache v SET v.version = v.version + 1 WHERE v.region = :region")
+    int incrementar(@Param("region") String region);
+}
@@ -1,8 +1,17 @@
 package com.gestion_laboratorios.asignacion_lab.service;
 
+import com.gestion_laboratorios.asignacion_lab.dto.AsignacionLoteResponseDto;
 import com.gestion_laboratorios.asignacion_lab.dto.AsignacionRequestDto;
 import com.gestion_laboratorios.asignacion_lab.dto.AsignacionResponseDto;
 import com.gestion_laboratorios.asignacion_lab.dto.AsignacionUpdateDto;
+import com.gestion_laboratorios.asignacion_lab.dto.ConsistenciaAgendaDto;
+import com.gestion_laboratorios.asignacion_lab.dto.ConsistenciaCapacidadDto;
+import com.gestion_laboratorios.asignacion_lab.dto.CursorAsignacion;
+import com.gestion_laboratorios.asignacion_lab.dto.DisponibilidadLaboratorioDto;
+import com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado;
+import com.gestion_laboratorios.asignacion_lab.dto.ListadoLimitado;
+import com.gestion_laboratorios.asignacion_lab.dto.PaginaDto;
+import com.gestion_laboratorios.asignacion_lab.dto.PrimerHuecoDto;
 import com.gestion_laboratorios.asignacion_lab.entity.Asignacion;
 import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
 import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
@@ -11,119 +20,243 @@ import com.gestion_laboratorios.asignacion_lab.exception.ConflictException;
 import com.gestion_laboratorios.asignacion_lab.exception.ResourceNotFoundException;
 import com.gestion_laboratorios.asignacion_lab.repository.AsignacionRepository;
 import com.gestion_laboratorios.asignacion_lab.repository.LaboratorioRepository;
-import com.gestion_laboratorios.asignacion_lab.repository.TipoAnalisisRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "servicio.metodo", histogram = true)
 @Slf4j
 @Transactional
 public class AsignacionService {
 
     private final AsignacionRepository asignacionRepository;
     private final LaboratorioRepository laboratorioRepository;
-    private final TipoAnalisisRepository tipoAnalisisRepository;
+    private final CacheCatalogo cacheCatalogo;
+    private final IndiceAgendaLaboratorio indiceAgenda;
+    private final IndicePacientes indicePacientes;
+    private final BloqueoLaboratorios bloqueoLaboratorios;
+    private final ContadorCapacidadDiaria contadorCapacidad;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.asignaciones.modo-reserva:LOCAL}")
+    private ModoReserva modoReserva;
+
+    @Value("${app.asignaciones.primer-hueco.horizonte-dias:90}")
+    private int horizonteDiasPrimerHueco;
+
+    @Value("${app.asignaciones.listado.limite-filas:1000}")
+    private int limiteFilasListado;
+
+    @Value("${app.asignaciones.listado.tamano-pagina-maximo:500}")
+    private int tamanoPaginaMaximo;
+
+    @Value("${app.asignaciones.busqueda-paciente.max-resultados:1000}")
+    private int maxResultadosBusquedaPaciente;
+
+    // Tramos de la reserva medidos por separado: bloqueo del laboratorio, conflictos de horario y capacidad
+    private Timer timerBloqueo;
+    private Timer timerConflicto;
+    private Timer timerCapacidad;
+
+    public enum ModoReserva {
+        // Bloqueos en memoria e índice local: una sola instancia
+        LOCAL,
+        // SELECT ... FOR UPDATE sobre laboratorios y verificación en base de datos: varias instancias
+        CLUSTER
+    }
+
+    @PostConstruct
+    void registrarMetricas() {
+        timerBloqueo = timerReserva("bloqueo");
+        timerConflicto = timerReserva("conflicto");
+        timerCapacidad = timerReserva("capacidad");
+    }
+
+    private Timer timerReserva(String fase) {
+        return Timer.builder("asignaciones.reserva")
+                .description("Tramos de la reserva de una franja")
+                .tag("fase", fase)
+                .tag("modo", modoReserva.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
     public AsignacionResponseDto crearAsignacion(AsignacionRequestDto request) {
         log.info("Creando asignación para usuario: {}", request.getUsuarioId());
         
-        // Validar que el laboratorio existe y está disponible
-        Laboratorio laboratorio = laboratorioRepository.findById(request.getLaboratorioId())
+        Laboratorio laboratorio = cacheCatalogo.laboratorio(request.getLaboratorioId())
                 .orElseThrow(() -> ResourceNotFoundException.laboratorio(request.getLaboratorioId()));
-        
-        if (!laboratorio.estaDisponible()) {
-            throw ConflictException.laboratorioEnMantenimiento();
-        }
-        
-        // Validar que el tipo de análisis existe y está activo
-        TipoAnalisis tipoAnalisis = tipoAnalisisRepository.findById(request.getTipoAnalisisId())
+        TipoAnalisis tipoAnalisis = cacheCatalogo.tipoAnalisis(request.getTipoAnalisisId())
                 .orElseThrow(() -> ResourceNotFoundException.tipoAnalisis(request.getTipoAnalisisId()));
-        
-        if (!tipoAnalisis.estaActivo()) {
-            throw BusinessException.tipoAnalisisInactivo();
-        }
-        
-        // Validar fecha futura
-        if (request.getFechaHoraInicio().isBefore(LocalDateTime.now())) {
-            throw BusinessException.fechaInvalida();
-        }
+        validarSolicitud(request, laboratorio, tipoAnalisis);
         
         // Calcular fecha de fin estimada
-        LocalDateTime fechaHoraFin = request.getFechaHoraInicio()
-                .plusMinutes(tipoAnalisis.getDuracionEstimada() != null ? tipoAnalisis.getDuracionEstimada() : 60);
-        
-        // Verificar conflictos de horario
-        List<Asignacion> conflictos = asignacionRepository.findConflictosHorario(
-            request.getLaboratorioId(),
-            request.getFechaHoraInicio(),
-            fechaHoraFin
-        );
+        LocalDateTime fechaHoraFin = calcularFechaHoraFin(request.getFechaHoraInicio(), tipoAnalisis);
         
-        if (!conflictos.isEmpty()) {
-            throw ConflictException.horarioConflicto();
-        }
+        // Serializar reservas del mismo laboratorio hasta el commit y verificar conflictos de horario
+        IntervaloOcupado franja = new IntervaloOcupado(null, request.getLaboratorioId(), request.getFechaHoraInicio(), fechaHoraFin);
+        reservarFranja(List.of(franja), franja);
         
         // Verificar capacidad del laboratorio
-        long asignacionesDelDia = asignacionRepository.countAsignacionesByLaboratorioAndFecha(
-            request.getLaboratorioId(),
-            request.getFechaHoraInicio()
-        );
-        
-        if (laboratorio.getCapacidadMaxima() != null && asignacionesDelDia >= laboratorio.getCapacidadMaxima()) {
-            throw BusinessException.capacidadExcedida();
-        }
+        LocalDate dia = request.getFechaHoraInicio().toLocalDate();
+        verificarCapacidad(laboratorio, dia);
 
-        Asignacion asignacion = Asignacion.builder()
-                .usuarioId(request.getUsuarioId())
-                .nombrePaciente(request.getNombrePaciente())
-                .laboratorio(laboratorio)
-                .tipoAnalisis(tipoAnalisis)
-                .fechaHoraInicio(request.getFechaHoraInicio())
-                .fechaHoraFin(fechaHoraFin)
-                .observaciones(request.getObservaciones())
-                .estado(Asignacion.EstadoAsignacion.PROGRAMADA)
-                .build();
+        Asignacion asignacion = nuevaAsignacion(request, laboratorio, tipoAnalisis, fechaHoraFin);
 
         Asignacion asignacionGuardada = asignacionRepository.save(asignacion);
+        contadorCapacidad.ajustar(laboratorio.getId(), dia, 1);
+        indiceAgenda.registrar(IntervaloOcupado.fromEntity(asignacionGuardada));
+        indicePacientes.registrar(asignacionGuardada.getId(), asignacionGuardada.getNombrePaciente());
         log.info("Asignación creada exitosamente con ID: {}", asignacionGuardada.getId());
         
-        return AsignacionResponseDto.fromEntity(asignacionGuardada);
+        return aRespuesta(asignacionGuardada);
+    }
+
+    public AsignacionLoteResponseDto crearAsignacionesEnLote(List<AsignacionRequestDto> solicitudes) {
+        log.info("Creando lote de {} asignaciones", solicitudes.size());
+        
+        // Como mucho una consulta por catálogo para todo el lote, sólo con lo que no esté en caché
+        Map<Long, Laboratorio> laboratorios = cacheCatalogo.laboratorios(
+                solicitudes.stream().map(AsignacionRequestDto::getLaboratorioId).collect(Collectors.toSet()));
+        Map<Long, TipoAnalisis> tiposAnalisis = cacheCatalogo.tiposAnalisis(
+                solicitudes.stream().map(AsignacionRequestDto::getTipoAnalisisId).collect(Collectors.toSet()));
+
+        AsignacionLoteResponseDto.ResultadoItem[] resultados = new AsignacionLoteResponseDto.ResultadoItem[solicitudes.size()];
+        List<Integer> indicesCandidatos = new ArrayList<>();
+        List<Asignacion> candidatas = new ArrayList<>();
+        for (int i = 0; i < solicitudes.size(); i++) {
+            AsignacionRequestDto request = solicitudes.get(i);
+            try {
+                Laboratorio laboratorio = Optional.ofNullable(laboratorios.get(request.getLaboratorioId()))
+                        .orElseThrow(() -> ResourceNotFoundException.laboratorio(request.getLaboratorioId()));
+                TipoAnalisis tipoAnalisis = Optional.ofNullable(tiposAnalisis.get(request.getTipoAnalisisId()))
+                        .orElseThrow(() -> ResourceNotFoundException.tipoAnalisis(request.getTipoAnalisisId()));
+                validarSolicitud(request, laboratorio, tipoAnalisis);
+                LocalDateTime fechaHoraFin = calcularFechaHoraFin(request.getFechaHoraInicio(), tipoAnalisis);
+                candidatas.add(nuevaAsignacion(request, laboratorio, tipoAnalisis, fechaHoraFin));
+                indicesCandidatos.add(i);
+            } catch (ResourceNotFoundException | ConflictException | BusinessException e) {
+                resultados[i] = AsignacionLoteResponseDto.ResultadoItem.rechazo(i, e.getMessage());
+            }
+        }
+
+        // Bloquear de una vez todas las franjas del lote y leer la ocupación una vez por laboratorio
+        bloquear(candidatas.stream().map(IntervaloOcupado::fromEntity).toList());
+        Map<Long, List<IntervaloOcupado>> ocupacion = new HashMap<>();
+        candidatas.stream()
+                .collect(Collectors.groupingBy(a -> a.getLaboratorio().getId()))
+                .forEach((laboratorioId, delLaboratorio) -> ocupacion.put(laboratorioId, new ArrayList<>(franjasOcupadas(
+                        laboratorioId,
+                        delLaboratorio.stream().map(Asignacion::getFechaHoraInicio).min(LocalDateTime::compareTo).orElseThrow(),
+                        delLaboratorio.stream().map(Asignacion::getFechaHoraFin).max(LocalDateTime::compareTo).orElseThrow()))));
+
+        Map<Long, Map<LocalDate, Long>> asignacionesPorDia = new HashMap<>();
+        List<Integer> indicesAceptados = new ArrayList<>();
+        List<Asignacion> aceptadas = new ArrayList<>();
+        for (int k = 0; k < candidatas.size(); k++) {
+            Asignacion candidata = candidatas.get(k);
+            int indice = indicesCandidatos.get(k);
+            Laboratorio laboratorio = candidata.getLaboratorio();
+            List<IntervaloOcupado> ocupadas = ocupacion.get(laboratorio.getId());
+            if (ocupadas.stream().anyMatch(o -> o.solapa(candidata.getFechaHoraInicio(), candidata.getFechaHoraFin()))) {
+                resultados[indice] = AsignacionLoteResponseDto.ResultadoItem.rechazo(indice, ConflictException.horarioConflicto().getMessage());
+                continue;
+            }
+
+            Map<LocalDate, Long> porDia = asignacionesPorDia.computeIfAbsent(laboratorio.getId(), id -> new HashMap<>());
+            long asignacionesDelDia = porDia.computeIfAbsent(candidata.getFechaHoraInicio().toLocalDate(),
+                    dia -> contadorCapacidad.asignacionesDelDia(laboratorio.getId(), dia));
+            if (laboratorio.getCapacidadMaxima() != null && asignacionesDelDia >= laboratorio.getCapacidadMaxima()) {
+                resultados[indice] = AsignacionLoteResponseDto.ResultadoItem.rechazo(indice, BusinessException.capacidadExcedida().getMessage());
+                continue;
+            }
+
+            porDia.put(candidata.getFechaHoraInicio().toLocalDate(), asignacionesDelDia + 1);
+            ocupadas.add(IntervaloOcupado.fromEntity(candidata));
+            aceptadas.add(candidata);
+            indicesAceptados.add(indice);
+        }
+
+        // Inserción con JDBC batching (hibernate.jdbc.batch_size)
+        List<Asignacion> guardadas = asignacionRepository.saveAll(aceptadas);
+        guardadas.stream()
+                .collect(Collectors.groupingBy(a -> a.getLaboratorio().getId(),
+                        Collectors.groupingBy(a -> a.getFechaHoraInicio().toLocalDate(), Collectors.counting())))
+                .forEach((laboratorioId, porDia) -> porDia.forEach((dia, total) -> contadorCapacidad.ajustar(laboratorioId, dia, total)));
+        List<AsignacionResponseDto> respuestas = aRespuestas(guardadas);
+        for (int k = 0; k < guardadas.size(); k++) {
+            int indice = indicesAceptados.get(k);
+            indiceAgenda.registrar(IntervaloOcupado.fromEntity(guardadas.get(k)));
+            indicePacientes.registrar(guardadas.get(k).getId(), guardadas.get(k).getNombrePaciente());
+            resultados[indice] = AsignacionLoteResponseDto.ResultadoItem.exito(indice, respuestas.get(k));
+        }
+        log.info("Lote procesado: {} creadas, {} rechazadas", guardadas.size(), solicitudes.size() - guardadas.size());
+
+        return AsignacionLoteResponseDto.builder()
+                .total(solicitudes.size())
+                .creadas(guardadas.size())
+                .rechazadas(solicitudes.size() - guardadas.size())
+                .resultados(Arrays.asList(resultados))
+                .build();
     }
 
     @Transactional(readOnly = true)
-    public List<AsignacionResponseDto> obtenerTodasLasAsignaciones() {
+    public ListadoLimitado<AsignacionResponseDto> obtenerTodasLasAsignaciones() {
         log.info("Obteniendo todas las asignaciones");
-        return asignacionRepository.findAll()
-                .stream()
-                .map(AsignacionResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        return limitar(asignacionRepository.findRecientes(PageRequest.of(0, limiteFilasListado + 1)));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaDto<AsignacionResponseDto> obtenerPaginaAsignaciones(String cursor, int tamano) {
+        CursorAsignacion desde = CursorAsignacion.decodificar(cursor);
+        int tamanoPagina = tamanoPagina(tamano);
+        return paginar(asignacionRepository.findPagina(
+                desde.fechaHoraInicio(), desde.id(), PageRequest.of(0, tamanoPagina + 1)), tamanoPagina);
     }
 
     @Transactional(readOnly = true)
-    public List<AsignacionResponseDto> obtenerAsignacionesPorUsuario(Long usuarioId) {
+    public ListadoLimitado<AsignacionResponseDto> obtenerAsignacionesPorUsuario(Long usuarioId) {
         log.info("Obteniendo asignaciones para usuario: {}", usuarioId);
-        return asignacionRepository.findByUsuarioIdOrderByFechaHoraInicioDesc(usuarioId)
-                .stream()
-                .map(AsignacionResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        return limitar(asignacionRepository.findByUsuarioIdOrderByFechaHoraInicioDesc(
+                usuarioId, PageRequest.of(0, limiteFilasListado + 1)));
     }
 
     @Transactional(readOnly = true)
-    public List<AsignacionResponseDto> obtenerAsignacionesPorLaboratorio(Long laboratorioId) {
+    public ListadoLimitado<AsignacionResponseDto> obtenerAsignacionesPorLaboratorio(Long laboratorioId) {
         log.info("Obteniendo asignaciones para laboratorio: {}", laboratorioId);
-        return asignacionRepository.findByLaboratorioId(laboratorioId)
-                .stream()
-                .map(AsignacionResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        return limitar(asignacionRepository.findRecientesPorLaboratorio(laboratorioId, PageRequest.of(0, limiteFilasListado + 1)));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaDto<AsignacionResponseDto> obtenerPaginaPorLaboratorio(Long laboratorioId, String cursor, int tamano) {
+        CursorAsignacion desde = CursorAsignacion.decodificar(cursor);
+        int tamanoPagina = tamanoPagina(tamano);
+        return paginar(asignacionRepository.findPaginaPorLaboratorio(laboratorioId,
+                desde.fechaHoraInicio(), desde.id(), PageRequest.of(0, tamanoPagina + 1)), tamanoPagina);
     }
 
     @Transactional(readOnly = true)
@@ -132,7 +265,7 @@ public class AsignacionService {
         Asignacion asignacion = asignacionRepository.findById(id)
                 .orElseThrow(() -> ResourceNotFoundException.asignacion(id));
         
-        return AsignacionResponseDto.fromEntity(asignacion);
+        return aRespuesta(asignacion);
     }
 
     public AsignacionResponseDto actualizarAsignacion(Long id, AsignacionUpdateDto updateDto) {
@@ -145,6 +278,8 @@ public class AsignacionService {
         if (asignacion.estaCompletada() || asignacion.estaCancelada()) {
             throw ConflictException.asignacionNoModificable();
         }
+        IntervaloOcupado franjaAnterior = IntervaloOcupado.fromEntity(asignacion);
+        boolean franjaReservada = false;
 
         // Actualizar campos si están presentes
         if (updateDto.getNombrePaciente() != null) {
@@ -152,13 +287,13 @@ public class AsignacionService {
         }
         
         if (updateDto.getLaboratorioId() != null) {
-            Laboratorio laboratorio = laboratorioRepository.findById(updateDto.getLaboratorioId())
+            Laboratorio laboratorio = cacheCatalogo.laboratorio(updateDto.getLaboratorioId())
                     .orElseThrow(() -> ResourceNotFoundException.laboratorio(updateDto.getLaboratorioId()));
             asignacion.setLaboratorio(laboratorio);
         }
         
         if (updateDto.getTipoAnalisisId() != null) {
-            TipoAnalisis tipoAnalisis = tipoAnalisisRepository.findById(updateDto.getTipoAnalisisId())
+            TipoAnalisis tipoAnalisis = cacheCatalogo.tipoAnalisis(updateDto.getTipoAnalisisId())
                     .orElseThrow(() -> ResourceNotFoundException.tipoAnalisis(updateDto.getTipoAnalisisId()));
             asignacion.setTipoAnalisis(tipoAnalisis);
         }
@@ -170,6 +305,15 @@ public class AsignacionService {
             asignacion.setFechaHoraInicio(updateDto.getFechaHoraInicio());
         }
         
+        // Si cambia el laboratorio, el horario o el tipo, recalcular la franja y verificar conflictos
+        if (updateDto.getLaboratorioId() != null || updateDto.getTipoAnalisisId() != null
+                || updateDto.getFechaHoraInicio() != null) {
+            asignacion.setFechaHoraFin(calcularFechaHoraFin(asignacion.getFechaHoraInicio(), asignacion.getTipoAnalisis()));
+            IntervaloOcupado franjaNueva = IntervaloOcupado.fromEntity(asignacion);
+            reservarFranja(List.of(franjaAnterior, franjaNueva), franjaNueva);
+            franjaReservada = true;
+        }
+        
         if (updateDto.getEstado() != null) {
             asignacion.setEstado(updateDto.getEstado());
         }
@@ -182,10 +326,33 @@ public class AsignacionService {
             asignacion.setResultados(updateDto.getResultados());
         }
 
+        // Mover el contador si cambia el día, el laboratorio o la asignación pasa a cancelada
+        LocalDate diaAnterior = franjaAnterior.inicio().toLocalDate();
+        LocalDate diaNuevo = asignacion.getFechaHoraInicio().toLocalDate();
+        boolean mismoDia = franjaAnterior.laboratorioId().equals(asignacion.getLaboratorio().getId()) && diaAnterior.equals(diaNuevo);
+        if (!mismoDia || asignacion.estaCancelada()) {
+            if (!franjaReservada) {
+                bloquear(List.of(franjaAnterior));
+                franjaReservada = true;
+            }
+            if (!asignacion.estaCancelada()) {
+                verificarCapacidad(asignacion.getLaboratorio(), diaNuevo);
+                contadorCapacidad.ajustar(asignacion.getLaboratorio().getId(), diaNuevo, 1);
+            }
+            contadorCapacidad.ajustar(franjaAnterior.laboratorioId(), diaAnterior, -1);
+        }
+
+        if (!franjaReservada) {
+            bloquearIndice(List.of(franjaAnterior));
+        }
         Asignacion asignacionActualizada = asignacionRepository.save(asignacion);
+        actualizarIndice(asignacionActualizada);
+        if (updateDto.getNombrePaciente() != null) {
+            indicePacientes.registrar(id, asignacionActualizada.getNombrePaciente());
+        }
         log.info("Asignación actualizada exitosamente");
         
-        return AsignacionResponseDto.fromEntity(asignacionActualizada);
+        return aRespuesta(asignacionActualizada);
     }
 
     public void eliminarAsignacion(Long id) {
@@ -199,7 +366,12 @@ public class AsignacionService {
             throw ConflictException.asignacionNoModificable();
         }
         
+        IntervaloOcupado franja = IntervaloOcupado.fromEntity(asignacion);
+        bloquear(List.of(franja));
         asignacionRepository.delete(asignacion);
+        contadorCapacidad.ajustar(franja.laboratorioId(), franja.inicio().toLocalDate(), -1);
+        indiceAgenda.liberar(id);
+        indicePacientes.quitar(id);
         log.info("Asignación eliminada exitosamente");
     }
 
@@ -213,10 +385,24 @@ public class AsignacionService {
             throw ConflictException.asignacionNoModificable();
         }
         
+        IntervaloOcupado franjaAnterior = IntervaloOcupado.fromEntity(asignacion);
         asignacion.iniciarAnalisis();
+        IntervaloOcupado franjaNueva = IntervaloOcupado.fromEntity(asignacion);
+        LocalDate diaAnterior = franjaAnterior.inicio().toLocalDate();
+        LocalDate diaNuevo = franjaNueva.inicio().toLocalDate();
+        if (diaAnterior.equals(diaNuevo)) {
+            bloquearIndice(List.of(franjaAnterior, franjaNueva));
+        } else {
+            // El inicio pasa a ser ahora: el contador se mueve al día real, sin comprobar la capacidad
+            // porque el análisis ya está empezando
+            bloquear(List.of(franjaAnterior, franjaNueva));
+            contadorCapacidad.ajustar(franjaNueva.laboratorioId(), diaNuevo, 1);
+            contadorCapacidad.ajustar(franjaAnterior.laboratorioId(), diaAnterior, -1);
+        }
         Asignacion asignacionActualizada = asignacionRepository.save(asignacion);
+        actualizarIndice(asignacionActualizada);
         
-        return AsignacionResponseDto.fromEntity(asignacionActualizada);
+        return aRespuesta(asignacionActualizada);
     }
 
     public AsignacionResponseDto completarAnalisis(Long id, String resultados) {
@@ -229,14 +415,16 @@ public class AsignacionService {
             throw ConflictException.asignacionNoModificable();
         }
         
+        bloquearIndice(List.of(IntervaloOcupado.fromEntity(asignacion)));
         asignacion.completarAnalisis();
         if (resultados != null) {
             asignacion.setResultados(resultados);
         }
         
         Asignacion asignacionActualizada = asignacionRepository.save(asignacion);
+        indiceAgenda.liberar(id);
         
-        return AsignacionResponseDto.fromEntity(asignacionActualizada);
+        return aRespuesta(asignacionActualizada);
     }
 
     public AsignacionResponseDto cancelarAsignacion(Long id) {
@@ -249,39 +437,374 @@ public class AsignacionService {
             throw ConflictException.asignacionNoModificable();
         }
         
+        IntervaloOcupado franja = IntervaloOcupado.fromEntity(asignacion);
+        bloquear(List.of(franja));
         asignacion.cancelarAsignacion();
         Asignacion asignacionActualizada = asignacionRepository.save(asignacion);
+        contadorCapacidad.ajustar(franja.laboratorioId(), franja.inicio().toLocalDate(), -1);
+        indiceAgenda.liberar(id);
         
-        return AsignacionResponseDto.fromEntity(asignacionActualizada);
+        return aRespuesta(asignacionActualizada);
     }
 
     @Transactional(readOnly = true)
-    public List<AsignacionResponseDto> obtenerAsignacionesPorFecha(LocalDate fecha) {
+    public ListadoLimitado<AsignacionResponseDto> obtenerAsignacionesPorFecha(LocalDate fecha) {
         log.info("Obteniendo asignaciones para fecha: {}", fecha);
-        LocalDateTime inicio = fecha.atTime(LocalTime.MIN);
-        LocalDateTime fin = fecha.atTime(LocalTime.MAX);
-        
-        return asignacionRepository.findByFechaHoraInicioBetween(inicio, fin)
-                .stream()
-                .map(AsignacionResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        return limitar(asignacionRepository.findRecientesEntre(fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay(),
+                PageRequest.of(0, limiteFilasListado + 1)));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaDto<AsignacionResponseDto> obtenerPaginaPorFecha(LocalDate fecha, String cursor, int tamano) {
+        // Sin cursor (o con uno anterior al día) se empieza a las 00:00; id 0 incluye las asignaciones de esa hora
+        CursorAsignacion desde = CursorAsignacion.decodificar(cursor);
+        if (desde.fechaHoraInicio().isBefore(fecha.atStartOfDay())) {
+            desde = new CursorAsignacion(fecha.atStartOfDay(), 0L);
+        }
+        int tamanoPagina = tamanoPagina(tamano);
+        return paginar(asignacionRepository.findPaginaHasta(desde.fechaHoraInicio(), desde.id(),
+                fecha.plusDays(1).atStartOfDay(), PageRequest.of(0, tamanoPagina + 1)), tamanoPagina);
     }
 
     @Transactional(readOnly = true)
-    public List<AsignacionResponseDto> obtenerAsignacionesPorEstado(Asignacion.EstadoAsignacion estado) {
+    public ListadoLimitado<AsignacionResponseDto> obtenerAsignacionesPorEstado(Asignacion.EstadoAsignacion estado) {
         log.info("Obteniendo asignaciones con estado: {}", estado);
-        return asignacionRepository.findByEstadoOrderByFechaHoraInicio(estado)
-                .stream()
-                .map(AsignacionResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        return limitar(asignacionRepository.findRecientesPorEstado(estado, PageRequest.of(0, limiteFilasListado + 1)));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaDto<AsignacionResponseDto> obtenerPaginaPorEstado(Asignacion.EstadoAsignacion estado, String cursor, int tamano) {
+        CursorAsignacion desde = CursorAsignacion.decodificar(cursor);
+        int tamanoPagina = tamanoPagina(tamano);
+        return paginar(asignacionRepository.findPaginaPorEstado(estado,
+                desde.fechaHoraInicio(), desde.id(), PageRequest.of(0, tamanoPagina + 1)), tamanoPagina);
     }
 
+    // En modo LOCAL se resuelve con el índice de trigramas (sin tildes, ordenado por relevancia);
+    // en modo CLUSTER, con LIKE sobre la base de datos
     @Transactional(readOnly = true)
-    public List<AsignacionResponseDto> buscarPorPaciente(String nombrePaciente) {
+    public ListadoLimitado<AsignacionResponseDto> buscarPorPaciente(String nombrePaciente) {
         log.info("Buscando asignaciones por paciente: {}", nombrePaciente);
-        return asignacionRepository.findByNombrePacienteContainingIgnoreCase(nombrePaciente)
+        if (!indicePacientes.activo()) {
+            return limitar(asignacionRepository.findByNombrePacienteContainingIgnoreCase(
+                    nombrePaciente, PageRequest.of(0, limiteFilasListado + 1)));
+        }
+        IndicePacientes.Resultado resultado = indicePacientes.buscar(nombrePaciente,
+                Math.min(limiteFilasListado, maxResultadosBusquedaPaciente));
+        boolean truncado = resultado.total() > resultado.asignacionIds().size();
+        if (truncado) {
+            log.warn("Búsqueda por paciente truncada a {} de {} coincidencias", resultado.asignacionIds().size(), resultado.total());
+        }
+        return new ListadoLimitado<>(aRespuestas(cargarEnOrden(resultado.asignacionIds())), truncado);
+    }
+
+    // El cursor es la posición de la siguiente coincidencia en el orden de relevancia, que llega hasta max-resultados
+    @Transactional(readOnly = true)
+    public PaginaDto<AsignacionResponseDto> obtenerPaginaPorPaciente(String nombrePaciente, String cursor, int tamano) {
+        int desde = posicionCursor(cursor);
+        int tamanoPagina = tamanoPagina(tamano);
+        if (!indicePacientes.activo()) {
+            List<Asignacion> filas = asignacionRepository.findByNombrePacienteContainingIgnoreCase(
+                    nombrePaciente, PageRequest.of(0, desde + tamanoPagina + 1));
+            return paginarPorPosicion(filas.subList(Math.min(desde, filas.size()), filas.size()), desde, tamanoPagina);
+        }
+        IndicePacientes.Resultado resultado = indicePacientes.buscar(nombrePaciente,
+                Math.min(desde + tamanoPagina + 1, maxResultadosBusquedaPaciente));
+        List<Long> ids = resultado.asignacionIds();
+        return paginarPorPosicion(cargarEnOrden(ids.subList(Math.min(desde, ids.size()), ids.size())), desde, tamanoPagina);
+    }
+
+    // Mezcla k-way de los huecos libres de cada laboratorio candidato, ordenados por hora de inicio
+    @Transactional(readOnly = true)
+    public PrimerHuecoDto buscarPrimerHueco(Long tipoAnalisisId, LocalDateTime desde, String ubicacion,
+                                            String equipamiento, int alternativas) {
+        log.info("Buscando primer hueco para tipo de análisis {} desde {}", tipoAnalisisId, desde);
+
+        TipoAnalisis tipoAnalisis = cacheCatalogo.tipoAnalisis(tipoAnalisisId)
+                .orElseThrow(() -> ResourceNotFoundException.tipoAnalisis(tipoAnalisisId));
+        if (!tipoAnalisis.estaActivo()) {
+            throw BusinessException.tipoAnalisisInactivo();
+        }
+        int duracion = tipoAnalisis.getDuracionEstimada() != null
+                ? tipoAnalisis.getDuracionEstimada()
+                : IntervaloOcupado.DURACION_POR_DEFECTO_MINUTOS;
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime inicio = desde != null && desde.isAfter(ahora) ? desde : ahora;
+        LocalDateTime hasta = inicio.plusDays(horizonteDiasPrimerHueco);
+
+        List<Laboratorio> laboratorios = cacheCatalogo.laboratoriosDisponibles()
                 .stream()
-                .map(AsignacionResponseDto::fromEntity)
-                .collect(Collectors.toList());
+                .filter(l -> contieneIgnorandoMayusculas(l.getUbicacion(), ubicacion))
+                .filter(l -> contieneIgnorandoMayusculas(l.getEquipamiento(), equipamiento))
+                .toList();
+
+        // En modo CLUSTER el índice local no ve las reservas de otras instancias: la ocupación de los
+        // laboratorios candidatos en el horizonte se lee de la base de datos
+        BiFunction<Long, LocalDateTime, Optional<DisponibilidadLaboratorioDto.HuecoLibre>> primerHueco;
+        if (modoReserva == ModoReserva.CLUSTER) {
+            Map<Long, CalendarioOcupacion> calendarios = calendariosDesdeBaseDatos(laboratorios, inicio, hasta);
+            CalendarioOcupacion libre = new CalendarioOcupacion();
+            primerHueco = (laboratorioId, desdeHueco) -> calendarios.getOrDefault(laboratorioId, libre)
+                    .primerHueco(desdeHueco, hasta, duracion);
+        } else {
+            primerHueco = (laboratorioId, desdeHueco) -> indiceAgenda.primerHueco(laboratorioId, desdeHueco, hasta, duracion);
+        }
+
+        // El primer hueco de cada laboratorio se calcula en paralelo; el resto se extrae bajo demanda
+        PriorityQueue<CursorHueco> cola = new PriorityQueue<>(Comparator
+                .comparing((CursorHueco c) -> c.hueco().getInicio())
+                .thenComparing(c -> c.laboratorio().getId()));
+        laboratorios.parallelStream()
+                .map(l -> primerHueco.apply(l.getId(), inicio)
+                        .map(h -> new CursorHueco(l, h)))
+                .flatMap(Optional::stream)
+                .toList()
+                .forEach(cola::add);
+
+        List<PrimerHuecoDto.HuecoLaboratorio> propuestas = new ArrayList<>();
+        while (!cola.isEmpty() && propuestas.size() <= alternativas) {
+            CursorHueco cursor = cola.poll();
+            propuestas.add(PrimerHuecoDto.HuecoLaboratorio.builder()
+                    .laboratorioId(cursor.laboratorio().getId())
+                    .laboratorioNombre(cursor.laboratorio().getNombre())
+                    .ubicacion(cursor.laboratorio().getUbicacion())
+                    .inicio(cursor.hueco().getInicio())
+                    .fin(cursor.hueco().getInicio().plusMinutes(duracion))
+                    .libreHasta(cursor.hueco().getFin())
+                    .build());
+            primerHueco.apply(cursor.laboratorio().getId(), cursor.hueco().getFin())
+                    .ifPresent(h -> cola.add(new CursorHueco(cursor.laboratorio(), h)));
+        }
+
+        return PrimerHuecoDto.builder()
+                .tipoAnalisisId(tipoAnalisisId)
+                .duracionMinutos(duracion)
+                .desde(inicio)
+                .hasta(hasta)
+                .laboratoriosEvaluados(laboratorios.size())
+                .primero(propuestas.isEmpty() ? null : propuestas.get(0))
+                .alternativas(propuestas.size() > 1 ? propuestas.subList(1, propuestas.size()) : List.of())
+                .build();
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ConsistenciaCapacidadDto verificarContadoresCapacidad() {
+        log.info("Verificando contadores de capacidad diaria");
+        return contadorCapacidad.verificarConsistencia(false);
+    }
+
+    // Sin transacción envolvente: cada día se repara en la suya, con el bloqueo de las reservas
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ConsistenciaCapacidadDto repararContadoresCapacidad() {
+        log.info("Reparando contadores de capacidad diaria");
+        return contadorCapacidad.verificarConsistencia(true);
+    }
+
+    @Transactional(readOnly = true)
+    public ConsistenciaAgendaDto verificarIndiceAgenda() {
+        log.info("Verificando consistencia del índice de agenda");
+        return indiceAgenda.verificarConsistencia(false);
+    }
+
+    public ConsistenciaAgendaDto repararIndiceAgenda() {
+        log.info("Reparando el índice de agenda");
+        return indiceAgenda.verificarConsistencia(true);
+    }
+
+    // Calendario de ocupación por laboratorio, en bloques para no superar el límite de IN de Oracle
+    private Map<Long, CalendarioOcupacion> calendariosDesdeBaseDatos(List<Laboratorio> laboratorios,
+                                                                    LocalDateTime desde, LocalDateTime hasta) {
+        List<Long> ids = laboratorios.stream().map(Laboratorio::getId).toList();
+        Map<Long, List<IntervaloOcupado>> porLaboratorio = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += 1000) {
+            asignacionRepository.findIntervalosActivosEntre(ids.subList(i, Math.min(i + 1000, ids.size())), desde, hasta)
+                    .forEach(o -> porLaboratorio.computeIfAbsent(o.laboratorioId(), id -> new ArrayList<>()).add(o));
+        }
+        Map<Long, CalendarioOcupacion> calendarios = new HashMap<>();
+        porLaboratorio.forEach((id, intervalos) -> calendarios.put(id, CalendarioOcupacion.de(intervalos)));
+        return calendarios;
+    }
+
+    private static boolean contieneIgnorandoMayusculas(String valor, String filtro) {
+        return filtro == null || filtro.isBlank()
+                || (valor != null && valor.toLowerCase().contains(filtro.trim().toLowerCase()));
+    }
+
+    private record CursorHueco(Laboratorio laboratorio, DisponibilidadLaboratorioDto.HuecoLibre hueco) {
+    }
+
+    // Las consultas piden una fila de más para saber si hay continuación sin un COUNT aparte
+    private PaginaDto<AsignacionResponseDto> paginar(List<Asignacion> filas, int tamano) {
+        boolean hayMas = filas.size() > tamano;
+        List<Asignacion> pagina = hayMas ? filas.subList(0, tamano) : filas;
+        return PaginaDto.<AsignacionResponseDto>builder()
+                .elementos(aRespuestas(pagina))
+                .tamano(pagina.size())
+                .hayMas(hayMas)
+                .siguiente(hayMas ? CursorAsignacion.despuesDe(pagina.get(pagina.size() - 1)).codificar() : null)
+                .build();
+    }
+
+    private PaginaDto<AsignacionResponseDto> paginarPorPosicion(List<Asignacion> filas, int desde, int tamano) {
+        boolean hayMas = filas.size() > tamano;
+        List<Asignacion> pagina = hayMas ? filas.subList(0, tamano) : filas;
+        return PaginaDto.<AsignacionResponseDto>builder()
+                .elementos(aRespuestas(pagina))
+                .tamano(pagina.size())
+                .hayMas(hayMas)
+                .siguiente(hayMas ? String.valueOf(desde + tamano) : null)
+                .build();
+    }
+
+    private static int posicionCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int posicion = Integer.parseInt(cursor.trim());
+            if (posicion < 0) {
+                throw BusinessException.cursorInvalido();
+            }
+            return posicion;
+        } catch (NumberFormatException e) {
+            throw BusinessException.cursorInvalido();
+        }
+    }
+
+    // Asignaciones con su catálogo en el orden de los ids, en bloques para no superar el límite de IN de Oracle
+    private List<Asignacion> cargarEnOrden(List<Long> ids) {
+        Map<Long, Asignacion> porId = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += 1000) {
+            asignacionRepository.findConCatalogoByIdIn(ids.subList(i, Math.min(i + 1000, ids.size())))
+                    .forEach(a -> porId.put(a.getId(), a));
+        }
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+
+    private ListadoLimitado<AsignacionResponseDto> limitar(List<Asignacion> filas) {
+        boolean truncado = filas.size() > limiteFilasListado;
+        if (truncado) {
+            log.warn("Listado truncado a {} filas; usar los endpoints paginados", limiteFilasListado);
+        }
+        return new ListadoLimitado<>(aRespuestas(truncado ? filas.subList(0, limiteFilasListado) : filas), truncado);
+    }
+
+    private AsignacionResponseDto aRespuesta(Asignacion asignacion) {
+        return aRespuestas(List.of(asignacion)).get(0);
+    }
+
+    // Laboratorio y tipo de análisis llegan ya cargados por las consultas; los conteos de asignaciones
+    // activas de los laboratorios se resuelven con una única consulta agrupada
+    private List<AsignacionResponseDto> aRespuestas(List<Asignacion> asignaciones) {
+        Map<Long, Long> activas = laboratorioRepository.asignacionesActivasPorLaboratorio(asignaciones.stream()
+                .map(a -> a.getLaboratorio().getId())
+                .collect(Collectors.toSet()));
+        return asignaciones.stream()
+                .map(a -> AsignacionResponseDto.fromEntity(a, activas.getOrDefault(a.getLaboratorio().getId(), 0L)))
+                .toList();
+    }
+
+    private int tamanoPagina(int solicitado) {
+        return Math.max(1, Math.min(solicitado, tamanoPaginaMaximo));
+    }
+
+    private void verificarCapacidad(Laboratorio laboratorio, LocalDate dia) {
+        if (laboratorio.getCapacidadMaxima() == null) {
+            return;
+        }
+        long delDia = timerCapacidad.record(() -> contadorCapacidad.asignacionesDelDia(laboratorio.getId(), dia));
+        if (delDia >= laboratorio.getCapacidadMaxima()) {
+            throw BusinessException.capacidadExcedida();
+        }
+    }
+
+    private LocalDateTime calcularFechaHoraFin(LocalDateTime inicio, TipoAnalisis tipoAnalisis) {
+        return inicio.plusMinutes(tipoAnalisis.getDuracionEstimada() != null
+                ? tipoAnalisis.getDuracionEstimada()
+                : IntervaloOcupado.DURACION_POR_DEFECTO_MINUTOS);
+    }
+
+    private void validarSolicitud(AsignacionRequestDto request, Laboratorio laboratorio, TipoAnalisis tipoAnalisis) {
+        // Validar que el laboratorio está disponible
+        if (!laboratorio.estaDisponible()) {
+            throw ConflictException.laboratorioEnMantenimiento();
+        }
+        
+        // Validar que el tipo de análisis está activo
+        if (!tipoAnalisis.estaActivo()) {
+            throw BusinessException.tipoAnalisisInactivo();
+        }
+        
+        // Validar fecha futura
+        if (request.getFechaHoraInicio().isBefore(LocalDateTime.now())) {
+            throw BusinessException.fechaInvalida();
+        }
+    }
+
+    private Asignacion nuevaAsignacion(AsignacionRequestDto request, Laboratorio laboratorio,
+                                       TipoAnalisis tipoAnalisis, LocalDateTime fechaHoraFin) {
+        return Asignacion.builder()
+                .usuarioId(request.getUsuarioId())
+                .nombrePaciente(request.getNombrePaciente())
+                .laboratorio(laboratorio)
+                .tipoAnalisis(tipoAnalisis)
+                .fechaHoraInicio(request.getFechaHoraInicio())
+                .fechaHoraFin(fechaHoraFin)
+                .observaciones(request.getObservaciones())
+                .estado(Asignacion.EstadoAsignacion.PROGRAMADA)
+                .build();
+    }
+
+    // Bloquea los laboratorios involucrados hasta el commit y verifica que la franja esté libre
+    private void reservarFranja(List<IntervaloOcupado> franjasBloqueadas, IntervaloOcupado franja) {
+        bloquear(franjasBloqueadas);
+        boolean conflicto = timerConflicto.record(() -> modoReserva == ModoReserva.CLUSTER
+                ? franjasOcupadas(franja.laboratorioId(), franja.inicio(), franja.fin()).stream()
+                        .anyMatch(o -> !Objects.equals(o.asignacionId(), franja.asignacionId()))
+                : indiceAgenda.hayConflicto(franja.laboratorioId(), franja.inicio(), franja.fin(), franja.asignacionId()));
+
+        if (conflicto) {
+            throw ConflictException.horarioConflicto();
+        }
+    }
+
+    private void bloquear(List<IntervaloOcupado> franjas) {
+        if (modoReserva == ModoReserva.CLUSTER) {
+            timerBloqueo.record(() -> franjas.stream()
+                    .map(IntervaloOcupado::laboratorioId)
+                    .distinct()
+                    .sorted()
+                    .forEach(id -> laboratorioRepository.findByIdForUpdate(id)
+                            .orElseThrow(() -> ResourceNotFoundException.laboratorio(id))));
+        } else if (!franjas.isEmpty()) {
+            timerBloqueo.record(() -> bloqueoLaboratorios.bloquear(franjas));
+        }
+    }
+
+    // En modo LOCAL el índice de agenda sólo cambia con las franjas afectadas bloqueadas hasta el commit;
+    // en modo CLUSTER las reservas no lo consultan
+    private void bloquearIndice(List<IntervaloOcupado> franjas) {
+        if (modoReserva == ModoReserva.LOCAL) {
+            bloqueoLaboratorios.bloquear(franjas);
+        }
+    }
+
+    // Franjas activas que solapan [desde, hasta): de la base de datos en modo CLUSTER, del índice en modo LOCAL
+    private List<IntervaloOcupado> franjasOcupadas(Long laboratorioId, LocalDateTime desde, LocalDateTime hasta) {
+        if (modoReserva == ModoReserva.CLUSTER) {
+            return asignacionRepository.findConflictosHorario(laboratorioId, desde, hasta)
+                    .stream()
+                    .map(IntervaloOcupado::fromEntity)
+                    .toList();
+        }
+        return indiceAgenda.intervalosEntre(laboratorioId, desde, hasta);
+    }
+
+    private void actualizarIndice(Asignacion asignacion) {
+        if (IntervaloOcupado.estaActiva(asignacion)) {
+            indiceAgenda.registrar(IntervaloOcupado.fromEntity(asignacion));
+        } else {
+            indiceAgenda.liberar(asignacion.getId());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado;
+import com.gestion_laboratorios.asignacion_lab.exception.ConflictException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bloqueos por franjas (lock striping) sobre la clave (laboratorio, día).
+ * Serializa la secuencia verificar-insertar-commit de reservas que compiten por el mismo
+ * laboratorio y día; reservas en laboratorios distintos avanzan en paralelo.
+ */
+@Component
+@Slf4j
+public class BloqueoLaboratorios {
+
+    private final ReentrantLock[] franjas;
+    private final int mascara;
+    private final long esperaMaximaMs;
+
+    public BloqueoLaboratorios(
+            @Value("${app.asignaciones.bloqueo.franjas:1024}") int numeroFranjas,
+            @Value("${app.asignaciones.bloqueo.espera-maxima-ms:5000}") long esperaMaximaMs) {
+        int tamano = Integer.highestOneBit(Math.max(1, numeroFranjas - 1)) << 1;
+        this.franjas = new ReentrantLock[tamano];
+        for (int i = 0; i < tamano; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+        this.mascara = tamano - 1;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    public void bloquear(Long laboratorioId, LocalDateTime inicio, LocalDateTime fin) {
+        bloquear(List.of(new IntervaloOcupado(null, laboratorioId, inicio, fin)));
+    }
+
+    // Adquiere, en orden ascendente para evitar interbloqueos, todas las franjas que tocan los intervalos
+    // y las mantiene hasta que la transacción actual termine (commit o rollback).
+    public void bloquear(Collection<IntervaloOcupado> intervalos) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("El bloqueo de laboratorios requiere una transacción activa");
+        }
+
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (IntervaloOcupado intervalo : intervalos) {
+            LocalDate dia = intervalo.inicio().toLocalDate();
+            LocalDate ultimoDia = intervalo.fin().toLocalDate();
+            for (; !dia.isAfter(ultimoDia); dia = dia.plusDays(1)) {
+                indices.add(indiceFranja(intervalo.laboratorioId(), dia));
+            }
+        }
+
+        List<ReentrantLock> adquiridos = new ArrayList<>(indices.size());
+        try {
+            for (int indice : indices) {
+                ReentrantLock franja = franjas[indice];
+                if (!franja.tryLock(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                    log.warn("Tiempo de espera agotado al bloquear la franja {}", indice);
+                    throw ConflictException.reservaConcurrente();
+                }
+                adquiridos.add(franja);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            liberar(adquiridos);
+            throw ConflictException.reservaConcurrente();
+        } catch (RuntimeException e) {
+            liberar(adquiridos);
+            throw e;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                liberar(adquiridos);
+            }
+        });
+    }
+
+    // Ejecuta la acción con todas las franjas tomadas (en orden ascendente, como bloquear): ninguna reserva
+    // queda entre su verificación y su commit mientras dura. Las que esperen más de espera-maxima-ms fallan con 409.
+    public <T> T conTodasLasFranjas(Supplier<T> accion) {
+        List<ReentrantLock> adquiridos = new ArrayList<>(franjas.length);
+        try {
+            for (ReentrantLock franja : franjas) {
+                franja.lock();
+                adquiridos.add(franja);
+            }
+            return accion.get();
+        } finally {
+            liberar(adquiridos);
+        }
+    }
+
+    public int numeroFranjas() {
+        return franjas.length;
+    }
+
+    int indiceFranja(Long laboratorioId, LocalDate dia) {
+        long clave = laboratorioId * 0x9E3779B97F4A7C15L + dia.toEpochDay();
+        clave ^= (clave >>> 33);
+        clave *= 0xFF51AFD7ED558CCDL;
+        clave ^= (clave >>> 33);
+        return (int) clave & mascara;
+    }
+
+    private static void liberar(List<ReentrantLock> adquiridos) {
+        for (int i = adquiridos.size() - 1; i >= 0; i--) {
+            adquiridos.get(i).unlock();
+        }
+    }
+}
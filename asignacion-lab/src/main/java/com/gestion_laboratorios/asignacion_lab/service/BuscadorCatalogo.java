@@ -0,0 +1,164 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
+import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import com.gestion_laboratorios.asignacion_lab.repository.LaboratorioRepository;
+import com.gestion_laboratorios.asignacion_lab.repository.TipoAnalisisRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Búsqueda de texto sobre laboratorios (nombre, ubicación, equipamiento) y tipos de análisis (nombre,
+ * descripción) con índices {@link IndiceTexto} en memoria. Las modificaciones locales se aplican al
+ * índice al confirmarse la transacción; las de otras instancias, avisadas por {@link SincronizacionCaches},
+ * descartan el índice y éste se reconstruye desde la base de datos en la siguiente búsqueda.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BuscadorCatalogo {
+
+    private static final double PESO_NOMBRE = 3.0;
+    private static final double PESO_UBICACION = 1.5;
+    private static final double PESO_SECUNDARIO = 1.0;
+
+    private final LaboratorioRepository laboratorioRepository;
+    private final TipoAnalisisRepository tipoAnalisisRepository;
+
+    private final Indice laboratorios = new Indice("laboratorios");
+    private final Indice tiposAnalisis = new Indice("tipos de análisis");
+
+    // Ids por relevancia
+    public List<Long> buscarLaboratorios(String termino) {
+        return laboratorios.buscar(termino, this::cargarLaboratorios);
+    }
+
+    // Incluye tipos inactivos: quien llama filtra con la entidad
+    public List<Long> buscarTiposAnalisis(String termino) {
+        return tiposAnalisis.buscar(termino, this::cargarTiposAnalisis);
+    }
+
+    public void laboratorioGuardado(Laboratorio laboratorio) {
+        List<IndiceTexto.Campo> campos = campos(laboratorio);
+        long id = laboratorio.getId();
+        alConfirmar(() -> laboratorios.aplicar(indice -> indice.agregar(id, campos)));
+    }
+
+    public void laboratorioEliminado(Long id) {
+        alConfirmar(() -> laboratorios.aplicar(indice -> indice.quitar(id)));
+    }
+
+    public void tipoAnalisisGuardado(TipoAnalisis tipoAnalisis) {
+        List<IndiceTexto.Campo> campos = campos(tipoAnalisis);
+        long id = tipoAnalisis.getId();
+        alConfirmar(() -> tiposAnalisis.aplicar(indice -> indice.agregar(id, campos)));
+    }
+
+    public void tipoAnalisisEliminado(Long id) {
+        alConfirmar(() -> tiposAnalisis.aplicar(indice -> indice.quitar(id)));
+    }
+
+    public void invalidarLaboratorios() {
+        laboratorios.invalidar();
+    }
+
+    public void invalidarTiposAnalisis() {
+        tiposAnalisis.invalidar();
+    }
+
+    private IndiceTexto cargarLaboratorios() {
+        IndiceTexto indice = new IndiceTexto();
+        laboratorioRepository.findAll().forEach(l -> indice.agregar(l.getId(), campos(l)));
+        return indice;
+    }
+
+    private IndiceTexto cargarTiposAnalisis() {
+        IndiceTexto indice = new IndiceTexto();
+        tipoAnalisisRepository.findAll().forEach(t -> indice.agregar(t.getId(), campos(t)));
+        return indice;
+    }
+
+    private static List<IndiceTexto.Campo> campos(Laboratorio laboratorio) {
+        return List.of(
+                new IndiceTexto.Campo(laboratorio.getNombre(), PESO_NOMBRE),
+                new IndiceTexto.Campo(laboratorio.getUbicacion(), PESO_UBICACION),
+                new IndiceTexto.Campo(laboratorio.getEquipamiento(), PESO_SECUNDARIO));
+    }
+
+    private static List<IndiceTexto.Campo> campos(TipoAnalisis tipoAnalisis) {
+        return List.of(
+                new IndiceTexto.Campo(tipoAnalisis.getNombre(), PESO_NOMBRE),
+                new IndiceTexto.Campo(tipoAnalisis.getDescripcion(), PESO_SECUNDARIO));
+    }
+
+    private static void alConfirmar(Runnable cambio) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cambio.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cambio.run();
+            }
+        });
+    }
+
+    /**
+     * Índice cargado bajo demanda. Cada cambio o invalidación incrementa la generación, de modo que una
+     * carga que leyó la base de datos antes de un commit se descarta en lugar de instalarse.
+     */
+    private static final class Indice {
+
+        private final String nombre;
+        private IndiceTexto indice;
+        private long generacion;
+
+        Indice(String nombre) {
+            this.nombre = nombre;
+        }
+
+        List<Long> buscar(String termino, Supplier<IndiceTexto> cargar) {
+            long generacionLeida;
+            synchronized (this) {
+                if (indice != null) {
+                    return ids(indice.buscar(termino));
+                }
+                generacionLeida = generacion;
+            }
+            long inicio = System.nanoTime();
+            IndiceTexto cargado = cargar.get();
+            synchronized (this) {
+                if (generacion == generacionLeida) {
+                    indice = cargado;
+                    log.info("Índice de búsqueda de {} cargado con {} documentos en {} ms",
+                            nombre, cargado.tamano(), (System.nanoTime() - inicio) / 1_000_000);
+                }
+            }
+            return ids(cargado.buscar(termino));
+        }
+
+        synchronized void aplicar(Consumer<IndiceTexto> cambio) {
+            generacion++;
+            if (indice != null) {
+                cambio.accept(indice);
+            }
+        }
+
+        synchronized void invalidar() {
+            generacion++;
+            indice = null;
+        }
+
+        private static List<Long> ids(List<IndiceTexto.Puntuado> puntuados) {
+            return puntuados.stream().map(IndiceTexto.Puntuado::id).toList();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.dto.EstadisticasCacheDto;
+import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
+import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import com.gestion_laboratorios.asignacion_lab.repository.LaboratorioRepository;
+import com.gestion_laboratorios.asignacion_lab.repository.TipoAnalisisRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Caché de lectura de laboratorios y tipos de análisis, acotada en tamaño y con expiración. Las entidades
+ * que devuelve están desacopladas de la sesión y se comparten entre hilos: son de sólo lectura. Las
+ * modificaciones deben leer del repositorio e invalidar aquí; la invalidación se repite al terminar la
+ * transacción para descartar lo que otro hilo haya cargado antes del commit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheCatalogo {
+
+    private static final String TODOS = "todos";
+    private static final String DISPONIBLES = "disponibles";
+    private static final String ACTIVOS = "activos";
+
+    private final LaboratorioRepository laboratorioRepository;
+    private final TipoAnalisisRepository tipoAnalisisRepository;
+
+    @Value("${app.catalogo.cache.tamano-maximo:1000}")
+    private int tamanoMaximo;
+
+    @Value("${app.catalogo.cache.ttl-minutos:10}")
+    private int ttlMinutos;
+
+    private Cache<Long, Laboratorio> laboratorios;
+    private Cache<Long, TipoAnalisis> tiposAnalisis;
+    private Cache<String, List<Laboratorio>> listadosLaboratorios;
+    private Cache<String, List<TipoAnalisis>> listadosTiposAnalisis;
+
+    private final LongAdder invalidacionesLaboratorios = new LongAdder();
+    private final LongAdder invalidacionesTiposAnalisis = new LongAdder();
+
+    @PostConstruct
+    void inicializar() {
+        laboratorios = nuevaCache(tamanoMaximo);
+        tiposAnalisis = nuevaCache(tamanoMaximo);
+        listadosLaboratorios = nuevaCache(8);
+        listadosTiposAnalisis = nuevaCache(8);
+        log.info("Caché de catálogo: máximo {} entradas por tipo, expiración {} min", tamanoMaximo, ttlMinutos);
+    }
+
+    public Optional<Laboratorio> laboratorio(Long id) {
+        return Optional.ofNullable(laboratorios.get(id, clave -> laboratorioRepository.findById(clave).orElse(null)));
+    }
+
+    public Map<Long, Laboratorio> laboratorios(Collection<Long> ids) {
+        return laboratorios.getAll(ids, faltantes -> laboratorioRepository.findAllById(List.copyOf(faltantes)).stream()
+                .collect(Collectors.toMap(Laboratorio::getId, Function.identity())));
+    }
+
+    public List<Laboratorio> todosLosLaboratorios() {
+        return listadosLaboratorios.get(TODOS, clave -> registrarLaboratorios(laboratorioRepository.findAll()));
+    }
+
+    public List<Laboratorio> laboratoriosDisponibles() {
+        return listadosLaboratorios.get(DISPONIBLES, clave -> registrarLaboratorios(
+                laboratorioRepository.findByEstadoOrderByNombre(Laboratorio.EstadoLaboratorio.DISPONIBLE)));
+    }
+
+    public Optional<TipoAnalisis> tipoAnalisis(Long id) {
+        return Optional.ofNullable(tiposAnalisis.get(id, clave -> tipoAnalisisRepository.findById(clave).orElse(null)));
+    }
+
+    public Map<Long, TipoAnalisis> tiposAnalisis(Collection<Long> ids) {
+        return tiposAnalisis.getAll(ids, faltantes -> tipoAnalisisRepository.findAllById(List.copyOf(faltantes)).stream()
+                .collect(Collectors.toMap(TipoAnalisis::getId, Function.identity())));
+    }
+
+    public List<TipoAnalisis> todosLosTiposAnalisis() {
+        return listadosTiposAnalisis.get(TODOS, clave -> registrarTiposAnalisis(tipoAnalisisRepository.findAll()));
+    }
+
+    public List<TipoAnalisis> tiposAnalisisActivos() {
+        return listadosTiposAnalisis.get(ACTIVOS, clave -> registrarTiposAnalisis(tipoAnalisisRepository.findByActivoTrueOrderByNombre()));
+    }
+
+    // id null para altas: sólo cambian los listados
+    public void invalidarLaboratorio(Long id) {
+        invalidacionesLaboratorios.increment();
+        Runnable invalidar = () -> {
+            if (id != null) {
+                laboratorios.invalidate(id);
+            }
+            listadosLaboratorios.invalidateAll();
+        };
+        invalidarAhoraYAlTerminar(invalidar);
+    }
+
+    public void invalidarTipoAnalisis(Long id) {
+        invalidacionesTiposAnalisis.increment();
+        Runnable invalidar = () -> {
+            if (id != null) {
+                tiposAnalisis.invalidate(id);
+            }
+            listadosTiposAnalisis.invalidateAll();
+        };
+        invalidarAhoraYAlTerminar(invalidar);
+    }
+
+    public void invalidarLaboratorios() {
+        invalidacionesLaboratorios.increment();
+        laboratorios.invalidateAll();
+        listadosLaboratorios.invalidateAll();
+    }
+
+    public void invalidarTiposAnalisis() {
+        invalidacionesTiposAnalisis.increment();
+        tiposAnalisis.invalidateAll();
+        listadosTiposAnalisis.invalidateAll();
+    }
+
+    public List<EstadisticasCacheDto> estadisticas() {
+        return List.of(
+                estadisticas("laboratorios", laboratorios, invalidacionesLaboratorios),
+                estadisticas("tipos-analisis", tiposAnalisis, invalidacionesTiposAnalisis),
+                estadisticas("listados-laboratorios", listadosLaboratorios, invalidacionesLaboratorios),
+                estadisticas("listados-tipos-analisis", listadosTiposAnalisis, invalidacionesTiposAnalisis));
+    }
+
+    private List<Laboratorio> registrarLaboratorios(List<Laboratorio> cargados) {
+        cargados.forEach(l -> laboratorios.put(l.getId(), l));
+        return List.copyOf(cargados);
+    }
+
+    private List<TipoAnalisis> registrarTiposAnalisis(List<TipoAnalisis> cargados) {
+        cargados.forEach(t -> tiposAnalisis.put(t.getId(), t));
+        return List.copyOf(cargados);
+    }
+
+    private void invalidarAhoraYAlTerminar(Runnable invalidar) {
+        invalidar.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidar.run();
+                }
+            });
+        }
+    }
+
+    private <K, V> Cache<K, V> nuevaCache(int maximo) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .recordStats()
+                .build();
+    }
+
+    private static EstadisticasCacheDto estadisticas(String nombre, Cache<?, ?> cache, LongAdder invalidaciones) {
+        CacheStats stats = cache.stats();
+        return EstadisticasCacheDto.builder()
+                .nombre(nombre)
+                .entradas(cache.estimatedSize())
+                .aciertos(stats.hitCount())
+                .fallos(stats.missCount())
+                .tasaAciertos(stats.hitRate())
+                .expulsiones(stats.evictionCount())
+                .invalidaciones(invalidaciones.sum())
+                .cargas(stats.loadSuccessCount())
+                .cargasFallidas(stats.loadFailureCount())
+                .tiempoMedioCargaMs(stats.averageLoadPenalty() / 1_000_000.0)
+                .build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.dto.DisponibilidadLaboratorioDto.HuecoLibre;
+import com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Calendario de ocupación de un laboratorio: un bitset por día con un bit por franja de
+ * {@value #MINUTOS_POR_FRANJA} minutos (288 bits por día). Un bit activo indica que alguna
+ * asignación ocupa, aunque sea parcialmente, esa franja. No es thread-safe; lo protege su agenda.
+ */
+class CalendarioOcupacion {
+
+    static final int MINUTOS_POR_FRANJA = 5;
+    static final int FRANJAS_POR_DIA = 24 * 60 / MINUTOS_POR_FRANJA;
+
+    private final Map<Long, BitSet> dias = new HashMap<>();
+
+    // Calendario de un solo uso con las franjas leídas de la base de datos (modo CLUSTER)
+    static CalendarioOcupacion de(Collection<IntervaloOcupado> intervalos) {
+        CalendarioOcupacion calendario = new CalendarioOcupacion();
+        intervalos.forEach(i -> calendario.marcar(i.inicio(), i.fin()));
+        return calendario;
+    }
+
+    void marcar(LocalDateTime inicio, LocalDateTime fin) {
+        recorrer(franjaInicio(inicio), franjaFin(fin), true);
+    }
+
+    void desmarcar(LocalDateTime inicio, LocalDateTime fin) {
+        recorrer(franjaInicio(inicio), franjaFin(fin), false);
+    }
+
+    // Huecos libres maximales dentro de [desde, hasta) de al menos duracionMinutos, alineados a franjas
+    List<HuecoLibre> huecos(LocalDateTime desde, LocalDateTime hasta, int duracionMinutos) {
+        long inicio = franjaFin(desde);
+        long limite = franjaInicio(hasta);
+        long minimo = franjasNecesarias(duracionMinutos);
+
+        List<HuecoLibre> resultado = new ArrayList<>();
+        long posicion = siguiente(inicio, limite, false);
+        while (posicion < limite) {
+            long finHueco = siguiente(posicion, limite, true);
+            if (finHueco - posicion >= minimo) {
+                resultado.add(HuecoLibre.de(instante(posicion), instante(finHueco)));
+            }
+            posicion = siguiente(finHueco, limite, false);
+        }
+        return resultado;
+    }
+
+    // Primer hueco libre dentro de [desde, hasta) de al menos duracionMinutos
+    Optional<HuecoLibre> primerHueco(LocalDateTime desde, LocalDateTime hasta, int duracionMinutos) {
+        long limite = franjaInicio(hasta);
+        long minimo = franjasNecesarias(duracionMinutos);
+
+        long posicion = siguiente(franjaFin(desde), limite, false);
+        while (posicion < limite) {
+            long finHueco = siguiente(posicion, limite, true);
+            if (finHueco - posicion >= minimo) {
+                return Optional.of(HuecoLibre.de(instante(posicion), instante(finHueco)));
+            }
+            posicion = siguiente(finHueco, limite, false);
+        }
+        return Optional.empty();
+    }
+
+    // Primera franja >= desde (y < limite) con el estado indicado; limite si no hay ninguna
+    private long siguiente(long desde, long limite, boolean ocupada) {
+        long posicion = desde;
+        while (posicion < limite) {
+            long dia = Math.floorDiv(posicion, FRANJAS_POR_DIA);
+            int offset = (int) (posicion - dia * FRANJAS_POR_DIA);
+            BitSet bits = dias.get(dia);
+            int encontrada;
+            if (bits == null) {
+                encontrada = ocupada ? -1 : offset;
+            } else {
+                encontrada = ocupada ? bits.nextSetBit(offset) : bits.nextClearBit(offset);
+            }
+            if (encontrada >= 0 && encontrada < FRANJAS_POR_DIA) {
+                return Math.min(limite, dia * FRANJAS_POR_DIA + encontrada);
+            }
+            posicion = (dia + 1) * FRANJAS_POR_DIA;
+        }
+        return limite;
+    }
+
+    private void recorrer(long desde, long hasta, boolean ocupar) {
+        long posicion = desde;
+        while (posicion < hasta) {
+            long dia = Math.floorDiv(posicion, FRANJAS_POR_DIA);
+            int offsetInicio = (int) (posicion - dia * FRANJAS_POR_DIA);
+            int offsetFin = (int) Math.min(FRANJAS_POR_DIA, hasta - dia * FRANJAS_POR_DIA);
+            if (ocupar) {
+                dias.computeIfAbsent(dia, d -> new BitSet(FRANJAS_POR_DIA)).set(offsetInicio, offsetFin);
+            } else {
+                BitSet bits = dias.get(dia);
+                if (bits != null) {
+                    bits.clear(offsetInicio, offsetFin);
+                    if (bits.isEmpty()) {
+                        dias.remove(dia);
+                    }
+                }
+            }
+            posicion = (dia + 1) * FRANJAS_POR_DIA;
+        }
+    }
+
+    private static long franjasNecesarias(int duracionMinutos) {
+        return Math.max(1, (duracionMinutos + MINUTOS_POR_FRANJA - 1) / MINUTOS_POR_FRANJA);
+    }
+
+    private static long franjaInicio(LocalDateTime instante) {
+        return minutoAbsoluto(instante) / MINUTOS_POR_FRANJA;
+    }
+
+    private static long franjaFin(LocalDateTime instante) {
+        long minuto = minutoAbsoluto(instante);
+        boolean exacto = minuto % MINUTOS_POR_FRANJA == 0 && instante.getSecond() == 0 && instante.getNano() == 0;
+        return minuto / MINUTOS_POR_FRANJA + (exacto ? 0 : 1);
+    }
+
+    private static long minutoAbsoluto(LocalDateTime instante) {
+        return instante.toLocalDate().toEpochDay() * 24 * 60 + instante.getHour() * 60L + instante.getMinute();
+    }
+
+    private static LocalDateTime instante(long franja) {
+        long dia = Math.floorDiv(franja, FRANJAS_POR_DIA);
+        int minuto = (int) (franja - dia * FRANJAS_POR_DIA) * MINUTOS_POR_FRANJA;
+        return LocalDate.ofEpochDay(dia).atTime(LocalTime.of(minuto / 60, minuto % 60));
+    }
+}
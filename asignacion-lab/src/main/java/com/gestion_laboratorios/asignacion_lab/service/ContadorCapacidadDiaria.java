@@ -0,0 +1,204 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.dto.ConsistenciaCapacidadDto;
+import com.gestion_laboratorios.asignacion_lab.dto.ConteoDiario;
+import com.gestion_laboratorios.asignacion_lab.entity.OcupacionDiaria;
+import com.gestion_laboratorios.asignacion_lab.repository.AsignacionRepository;
+import com.gestion_laboratorios.asignacion_lab.repository.LaboratorioRepository;
+import com.gestion_laboratorios.asignacion_lab.repository.OcupacionDiariaRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Contadores de asignaciones no canceladas por (laboratorio, día) para verificar la capacidad en O(1).
+ * La tabla ocupacion_diaria_laboratorio se actualiza en la transacción de cada reserva; en modo LOCAL
+ * se consulta un espejo en memoria que se carga bajo demanda y sólo cambia tras el commit.
+ * Quien llama debe tener bloqueada la clave (laboratorio, día) hasta el final de la transacción.
+ * La reparación recalcula cada día con ese mismo bloqueo, en una transacción por día.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ContadorCapacidadDiaria implements ApplicationRunner {
+
+    private final OcupacionDiariaRepository ocupacionDiariaRepository;
+    private final AsignacionRepository asignacionRepository;
+    private final LaboratorioRepository laboratorioRepository;
+    private final BloqueoLaboratorios bloqueoLaboratorios;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ConcurrentMap<Clave, Long> espejo = new ConcurrentHashMap<>();
+    private TransactionTemplate transaccionPorDia;
+
+    @Value("${app.asignaciones.modo-reserva:LOCAL}")
+    private AsignacionService.ModoReserva modoReserva;
+
+    @PostConstruct
+    void crearTransaccionPorDia() {
+        transaccionPorDia = new TransactionTemplate(transactionManager);
+        transaccionPorDia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void run(ApplicationArguments args) {
+        verificarConsistencia(true);
+    }
+
+    @Scheduled(cron = "${app.asignaciones.capacidad.verificacion-cron:0 30 3 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void verificacionProgramada() {
+        verificarConsistencia(true);
+    }
+
+    public long asignacionesDelDia(Long laboratorioId, LocalDate dia) {
+        if (modoReserva == AsignacionService.ModoReserva.CLUSTER) {
+            // Otras instancias también escriben: la fila de la tabla es la única fuente fiable
+            return ocupacionDiariaRepository.findTotal(laboratorioId, dia).orElse(0L);
+        }
+        Clave clave = new Clave(laboratorioId, dia);
+        Long total = espejo.get(clave);
+        if (total == null) {
+            total = ocupacionDiariaRepository.findTotal(laboratorioId, dia).orElse(0L);
+            espejo.putIfAbsent(clave, total);
+        }
+        return total;
+    }
+
+    public void ajustar(Long laboratorioId, LocalDate dia, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (ocupacionDiariaRepository.ajustarTotal(laboratorioId, dia, delta) == 0) {
+            if (delta > 0) {
+                ocupacionDiariaRepository.save(new OcupacionDiaria(laboratorioId, dia, delta));
+            } else {
+                log.warn("Contador de capacidad inexistente para laboratorio {} el {}", laboratorioId, dia);
+            }
+        }
+
+        // El espejo refleja sólo datos confirmados; afterCommit corre antes de liberar los bloqueos
+        Clave clave = new Clave(laboratorioId, dia);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            espejo.computeIfPresent(clave, (c, total) -> total + delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                espejo.computeIfPresent(clave, (c, total) -> total + delta);
+            }
+        });
+    }
+
+    // La comparación lee sin bloqueos, así que puede señalar días con reservas en curso; al reparar, cada
+    // día señalado se vuelve a contar con el bloqueo de las reservas y sólo se corrige si sigue difiriendo
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ConsistenciaCapacidadDto verificarConsistencia(boolean reparar) {
+        Map<Clave, Long> reales = new HashMap<>();
+        for (ConteoDiario conteo : asignacionRepository.contarAsignacionesPorLaboratorioYDia()) {
+            reales.merge(new Clave(conteo.laboratorioId(), conteo.fecha()), conteo.total(), Long::sum);
+        }
+        Map<Clave, Long> contadores = new HashMap<>();
+        ocupacionDiariaRepository.findAll().forEach(o ->
+                contadores.put(new Clave(o.getLaboratorioId(), o.getFecha()), o.getTotalAsignaciones()));
+
+        Set<Clave> claves = new HashSet<>(reales.keySet());
+        claves.addAll(contadores.keySet());
+        List<ConsistenciaCapacidadDto.Diferencia> diferencias = new ArrayList<>();
+        for (Clave clave : claves) {
+            long real = reales.getOrDefault(clave, 0L);
+            long contador = contadores.getOrDefault(clave, 0L);
+            if (real != contador) {
+                diferencias.add(new ConsistenciaCapacidadDto.Diferencia(clave.laboratorioId(), clave.dia(), contador, real));
+            }
+        }
+        diferencias.sort(Comparator.comparing(ConsistenciaCapacidadDto.Diferencia::getFecha)
+                .thenComparing(ConsistenciaCapacidadDto.Diferencia::getLaboratorioId));
+
+        boolean consistente = diferencias.isEmpty();
+        if (!consistente) {
+            log.warn("Contadores de capacidad inconsistentes en {} días", diferencias.size());
+        }
+        boolean reparado = false;
+        if (!consistente && reparar) {
+            int corregidos = 0;
+            for (ConsistenciaCapacidadDto.Diferencia diferencia : diferencias) {
+                if (Boolean.TRUE.equals(transaccionPorDia.execute(estado ->
+                        recalcular(diferencia.getLaboratorioId(), diferencia.getFecha())))) {
+                    corregidos++;
+                }
+            }
+            reparado = true;
+            log.info("Contadores de capacidad reparados: {} de {} días corregidos", corregidos, diferencias.size());
+        }
+        // Los días pasados ya no admiten reservas: no hace falta mantenerlos en memoria
+        LocalDate hoy = LocalDate.now();
+        espejo.keySet().removeIf(clave -> clave.dia().isBefore(hoy));
+
+        return ConsistenciaCapacidadDto.builder()
+                .diasConAsignaciones(reales.size())
+                .contadores(contadores.size())
+                .diferencias(diferencias)
+                .consistente(consistente)
+                .reparado(reparado)
+                .fechaVerificacion(LocalDateTime.now())
+                .build();
+    }
+
+    // Con el bloqueo que toma una reserva de ese laboratorio y día: ninguna queda entre el conteo y la escritura
+    private boolean recalcular(Long laboratorioId, LocalDate dia) {
+        if (modoReserva == AsignacionService.ModoReserva.CLUSTER) {
+            laboratorioRepository.findByIdForUpdate(laboratorioId);
+        } else {
+            bloqueoLaboratorios.bloquear(laboratorioId, dia.atStartOfDay(), dia.atTime(LocalTime.MAX));
+        }
+        long real = asignacionRepository.countAsignacionesByLaboratorioAndFecha(
+                laboratorioId, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+        if (ocupacionDiariaRepository.findTotal(laboratorioId, dia).orElse(0L) == real) {
+            return false;
+        }
+        if (ocupacionDiariaRepository.fijarTotal(laboratorioId, dia, real) == 0) {
+            ocupacionDiariaRepository.save(new OcupacionDiaria(laboratorioId, dia, real));
+        }
+        // Antes de liberar el bloqueo, para que la siguiente reserva lea el total corregido
+        Clave clave = new Clave(laboratorioId, dia);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                espejo.remove(clave);
+            }
+        });
+        return true;
+    }
+
+    private record Clave(Long laboratorioId, LocalDate dia) {
+    }
+}
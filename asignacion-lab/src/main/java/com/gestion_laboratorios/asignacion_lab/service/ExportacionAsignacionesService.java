@@ -0,0 +1,76 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gestion_laboratorios.asignacion_lab.dto.AsignacionExportDto;
+import com.gestion_laboratorios.asignacion_lab.entity.Asignacion;
+import com.gestion_laboratorios.asignacion_lab.exception.BusinessException;
+import com.gestion_laboratorios.asignacion_lab.repository.AsignacionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportación NDJSON (un objeto JSON por línea) de asignaciones por rango de fechas. Recorre un cursor
+ * de sólo avance y escribe cada fila directamente en la salida, desacoplando la entidad del contexto de
+ * persistencia tras serializarla para que la memoria no crezca con el número de filas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportacionAsignacionesService {
+
+    private static final int FILAS_POR_FLUSH = 500;
+
+    private final AsignacionRepository asignacionRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public void validarRango(LocalDateTime desde, LocalDateTime hasta) {
+        if (!hasta.isAfter(desde)) {
+            throw BusinessException.rangoFechasInvalido();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportar(LocalDateTime desde, LocalDateTime hasta, OutputStream salida) throws IOException {
+        log.info("Exportando asignaciones entre {} y {}", desde, hasta);
+        long inicio = System.nanoTime();
+        long filas = 0;
+
+        ObjectWriter escritor = objectMapper.writerFor(AsignacionExportDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<Asignacion> asignaciones = asignacionRepository.streamByFechaHoraInicioEntre(desde, hasta);
+             JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+            generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generador.setRootValueSeparator(null);
+            Iterator<Asignacion> iterador = asignaciones.iterator();
+            while (iterador.hasNext()) {
+                Asignacion asignacion = iterador.next();
+                escritor.writeValue(generador, AsignacionExportDto.fromEntity(asignacion));
+                generador.writeRaw('\n');
+                entityManager.detach(asignacion);
+                if (++filas % FILAS_POR_FLUSH == 0) {
+                    generador.flush();
+                }
+            }
+            generador.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("Exportación finalizada: {} asignaciones en {} ms", filas, (System.nanoTime() - inicio) / 1_000_000);
+        return filas;
+    }
+}
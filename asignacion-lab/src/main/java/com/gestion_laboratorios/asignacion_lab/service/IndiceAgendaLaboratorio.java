@@ -0,0 +1,283 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.dto.ConsistenciaAgendaDto;
+import com.gestion_laboratorios.asignacion_lab.dto.DisponibilidadLaboratorioDto.HuecoLibre;
+import com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado;
+import com.gestion_laboratorios.asignacion_lab.repository.AsignacionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Índice en memoria de las franjas activas de cada laboratorio, ordenadas por inicio.
+ * Responde consultas de solapamiento en O(log n + k) sin consultar la base de datos.
+ * Los cambios hechos dentro de una transacción se revierten si ésta hace rollback.
+ * Quien llama a registrar o liberar debe tener bloqueadas en {@link BloqueoLaboratorios} las franjas
+ * (laboratorio, día) afectadas hasta el final de su transacción; la reconstrucción y la verificación
+ * toman todas las franjas, así que nunca ven una reserva a medias.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndiceAgendaLaboratorio implements ApplicationRunner {
+
+    private static final Comparator<IntervaloOcupado> ORDEN_INICIO = Comparator
+            .comparing(IntervaloOcupado::inicio)
+            .thenComparing(IntervaloOcupado::asignacionId);
+
+    private final AsignacionRepository asignacionRepository;
+    private final BloqueoLaboratorios bloqueoLaboratorios;
+
+    // Se sustituye entero al reconstruir, para que las consultas nunca vean un índice a medio cargar
+    private volatile Contenido contenido = new Contenido();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reconstruir();
+    }
+
+    public void reconstruir() {
+        bloqueoLaboratorios.conTodasLasFranjas(() -> {
+            cargar();
+            return null;
+        });
+    }
+
+    public boolean hayConflicto(Long laboratorioId, LocalDateTime inicio, LocalDateTime fin, Long asignacionExcluida) {
+        AgendaLaboratorio agenda = contenido.agendas.get(laboratorioId);
+        return agenda != null && agenda.haySolapamiento(inicio, fin, asignacionExcluida);
+    }
+
+    public List<IntervaloOcupado> intervalosEntre(Long laboratorioId, LocalDateTime desde, LocalDateTime hasta) {
+        AgendaLaboratorio agenda = contenido.agendas.get(laboratorioId);
+        return agenda != null ? agenda.solapados(desde, hasta) : List.of();
+    }
+
+    // Huecos libres de al menos duracionMinutos, resueltos sobre el calendario de bits sin consultar la base de datos
+    public List<HuecoLibre> huecosLibres(Long laboratorioId, LocalDateTime desde, LocalDateTime hasta, int duracionMinutos) {
+        AgendaLaboratorio agenda = contenido.agendas.get(laboratorioId);
+        return agenda != null
+                ? agenda.huecos(desde, hasta, duracionMinutos)
+                : new CalendarioOcupacion().huecos(desde, hasta, duracionMinutos);
+    }
+
+    public Optional<HuecoLibre> primerHueco(Long laboratorioId, LocalDateTime desde, LocalDateTime hasta, int duracionMinutos) {
+        AgendaLaboratorio agenda = contenido.agendas.get(laboratorioId);
+        return agenda != null
+                ? agenda.primerHueco(desde, hasta, duracionMinutos)
+                : new CalendarioOcupacion().primerHueco(desde, hasta, duracionMinutos);
+    }
+
+    public int totalIntervalos() {
+        return contenido.porAsignacion.size();
+    }
+
+    // Registra o mueve la franja de una asignación activa
+    public void registrar(IntervaloOcupado intervalo) {
+        Contenido actual = contenido;
+        IntervaloOcupado anterior = actual.aplicar(intervalo);
+        alRevertir(() -> {
+            actual.quitar(intervalo.asignacionId());
+            if (anterior != null) {
+                actual.aplicar(anterior);
+            }
+        });
+    }
+
+    // Libera la franja de una asignación que deja de estar activa
+    public void liberar(Long asignacionId) {
+        Contenido actual = contenido;
+        IntervaloOcupado anterior = actual.quitar(asignacionId);
+        if (anterior != null) {
+            alRevertir(() -> actual.aplicar(anterior));
+        }
+    }
+
+    // Compara con la base de datos y, si se pide, reconstruye; todo con las franjas tomadas para que las
+    // reservas en curso no aparezcan como sobrantes ni se pierdan al sustituir el contenido
+    public ConsistenciaAgendaDto verificarConsistencia(boolean reparar) {
+        return bloqueoLaboratorios.conTodasLasFranjas(() -> comparar(reparar));
+    }
+
+    private void cargar() {
+        Contenido nuevo = new Contenido();
+        asignacionRepository.findIntervalosActivos().forEach(nuevo::aplicar);
+        contenido = nuevo;
+        log.info("Índice de agenda cargado con {} franjas activas en {} laboratorios",
+                nuevo.porAsignacion.size(), nuevo.agendas.size());
+    }
+
+    private ConsistenciaAgendaDto comparar(boolean reparar) {
+        Map<Long, IntervaloOcupado> enBaseDatos = new HashMap<>();
+        asignacionRepository.findIntervalosActivos().forEach(i -> enBaseDatos.put(i.asignacionId(), i));
+        Map<Long, IntervaloOcupado> enIndice = new HashMap<>(contenido.porAsignacion);
+
+        List<Long> faltantes = new ArrayList<>();
+        List<Long> desfasados = new ArrayList<>();
+        enBaseDatos.forEach((id, intervalo) -> {
+            IntervaloOcupado indexado = enIndice.get(id);
+            if (indexado == null) {
+                faltantes.add(id);
+            } else if (!indexado.equals(intervalo)) {
+                desfasados.add(id);
+            }
+        });
+        List<Long> sobrantes = enIndice.keySet().stream()
+                .filter(id -> !enBaseDatos.containsKey(id))
+                .sorted()
+                .toList();
+        faltantes.sort(null);
+        desfasados.sort(null);
+
+        boolean consistente = faltantes.isEmpty() && sobrantes.isEmpty() && desfasados.isEmpty();
+        if (!consistente) {
+            log.warn("Índice de agenda inconsistente: faltantes={}, sobrantes={}, desfasados={}",
+                    faltantes.size(), sobrantes.size(), desfasados.size());
+        }
+        boolean reparado = false;
+        if (!consistente && reparar) {
+            cargar();
+            reparado = true;
+        }
+
+        return ConsistenciaAgendaDto.builder()
+                .registrosBaseDatos(enBaseDatos.size())
+                .registrosIndice(enIndice.size())
+                .faltantesEnIndice(faltantes)
+                .sobrantesEnIndice(sobrantes)
+                .desfasados(desfasados)
+                .consistente(consistente)
+                .reparado(reparado)
+                .fechaVerificacion(LocalDateTime.now())
+                .build();
+    }
+
+    private void alRevertir(Runnable compensacion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Antes que la liberación de BloqueoLaboratorios, para que nadie vea el índice sin compensar
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    compensacion.run();
+                }
+            }
+        });
+    }
+
+    private static final class Contenido {
+
+        private final ConcurrentMap<Long, AgendaLaboratorio> agendas = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, IntervaloOcupado> porAsignacion = new ConcurrentHashMap<>();
+
+        IntervaloOcupado aplicar(IntervaloOcupado intervalo) {
+            IntervaloOcupado anterior = porAsignacion.put(intervalo.asignacionId(), intervalo);
+            if (anterior != null) {
+                agenda(anterior.laboratorioId()).quitar(anterior);
+            }
+            agenda(intervalo.laboratorioId()).agregar(intervalo);
+            return anterior;
+        }
+
+        IntervaloOcupado quitar(Long asignacionId) {
+            IntervaloOcupado anterior = porAsignacion.remove(asignacionId);
+            if (anterior != null) {
+                agenda(anterior.laboratorioId()).quitar(anterior);
+            }
+            return anterior;
+        }
+
+        private AgendaLaboratorio agenda(Long laboratorioId) {
+            return agendas.computeIfAbsent(laboratorioId, id -> new AgendaLaboratorio());
+        }
+    }
+
+    private static final class AgendaLaboratorio {
+
+        private final NavigableSet<IntervaloOcupado> intervalos = new TreeSet<>(ORDEN_INICIO);
+        private final CalendarioOcupacion calendario = new CalendarioOcupacion();
+        // Cota de la franja más larga: acota hacia atrás la búsqueda de solapamientos
+        private Duration duracionMaxima = Duration.ZERO;
+
+        synchronized void agregar(IntervaloOcupado intervalo) {
+            intervalos.add(intervalo);
+            calendario.marcar(intervalo.inicio(), intervalo.fin());
+            Duration duracion = Duration.between(intervalo.inicio(), intervalo.fin());
+            if (duracion.compareTo(duracionMaxima) > 0) {
+                duracionMaxima = duracion;
+            }
+        }
+
+        synchronized void quitar(IntervaloOcupado intervalo) {
+            if (!intervalos.remove(intervalo)) {
+                return;
+            }
+            // Las franjas de los extremos pueden estar compartidas con asignaciones vecinas: se vuelven a marcar
+            calendario.desmarcar(intervalo.inicio(), intervalo.fin());
+            LocalDateTime desde = intervalo.inicio().minusMinutes(CalendarioOcupacion.MINUTOS_POR_FRANJA);
+            LocalDateTime hasta = intervalo.fin().plusMinutes(CalendarioOcupacion.MINUTOS_POR_FRANJA);
+            for (IntervaloOcupado vecino : solapados(desde, hasta)) {
+                calendario.marcar(vecino.inicio(), vecino.fin());
+            }
+        }
+
+        synchronized Optional<HuecoLibre> primerHueco(LocalDateTime desde, LocalDateTime hasta, int duracionMinutos) {
+            return calendario.primerHueco(desde, hasta, duracionMinutos);
+        }
+
+        synchronized List<HuecoLibre> huecos(LocalDateTime desde, LocalDateTime hasta, int duracionMinutos) {
+            return calendario.huecos(desde, hasta, duracionMinutos);
+        }
+
+        synchronized boolean haySolapamiento(LocalDateTime inicio, LocalDateTime fin, Long excluida) {
+            for (IntervaloOcupado candidato : candidatos(inicio, fin)) {
+                if (candidato.solapa(inicio, fin) && !Objects.equals(candidato.asignacionId(), excluida)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized List<IntervaloOcupado> solapados(LocalDateTime inicio, LocalDateTime fin) {
+            List<IntervaloOcupado> resultado = new ArrayList<>();
+            for (IntervaloOcupado candidato : candidatos(inicio, fin)) {
+                if (candidato.solapa(inicio, fin)) {
+                    resultado.add(candidato);
+                }
+            }
+            return resultado;
+        }
+
+        private NavigableSet<IntervaloOcupado> candidatos(LocalDateTime inicio, LocalDateTime fin) {
+            IntervaloOcupado desde = new IntervaloOcupado(Long.MIN_VALUE, null, inicio.minus(duracionMaxima), null);
+            IntervaloOcupado hasta = new IntervaloOcupado(Long.MIN_VALUE, null, fin, null);
+            return intervalos.subSet(desde, true, hasta, false);
+        }
+    }
+}
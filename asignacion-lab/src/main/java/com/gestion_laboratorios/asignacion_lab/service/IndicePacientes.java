@@ -0,0 +1,134 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.dto.NombrePaciente;
+import com.gestion_laboratorios.asignacion_lab.repository.AsignacionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Índice en memoria de los nombres de paciente de todas las asignaciones para búsquedas por subcadena
+ * insensibles a mayúsculas y tildes ("munoz" encuentra "Muñoz"). Sólo se mantiene en modo LOCAL: con
+ * varias instancias cada una vería sólo sus propias altas, así que en modo CLUSTER se busca en la base
+ * de datos. Los cambios hechos dentro de una transacción se revierten si ésta hace rollback.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndicePacientes implements ApplicationRunner {
+
+    private final AsignacionRepository asignacionRepository;
+
+    private final ReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private IndiceTrigramas indice = new IndiceTrigramas();
+
+    @Value("${app.asignaciones.modo-reserva:LOCAL}")
+    private AsignacionService.ModoReserva modoReserva;
+
+    public record Resultado(List<Long> asignacionIds, int total) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (activo()) {
+            reconstruir();
+        }
+    }
+
+    public boolean activo() {
+        return modoReserva == AsignacionService.ModoReserva.LOCAL;
+    }
+
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        IndiceTrigramas nuevo = new IndiceTrigramas();
+        for (NombrePaciente nombre : asignacionRepository.findNombresPacientes()) {
+            nuevo.agregar(nombre.asignacionId(), nombre.nombre());
+        }
+        cerrojo.writeLock().lock();
+        try {
+            indice = nuevo;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+        log.info("Índice de pacientes cargado con {} asignaciones en {} ms", nuevo.tamano(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // Ids de las asignaciones cuyo paciente contiene el término, las 'maximo' más relevantes primero
+    public Resultado buscar(String termino, int maximo) {
+        IndiceTrigramas.Resultado resultado;
+        cerrojo.readLock().lock();
+        try {
+            resultado = indice.buscar(termino, maximo);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        return new Resultado(resultado.coincidencias().stream().map(IndiceTrigramas.Coincidencia::id).toList(), resultado.total());
+    }
+
+    public void registrar(Long asignacionId, String nombrePaciente) {
+        if (!activo()) {
+            return;
+        }
+        String anterior = escribir(() -> indice.agregar(asignacionId, nombrePaciente));
+        alRevertir(() -> escribir(() -> anterior != null ? indice.agregar(asignacionId, anterior) : indice.quitar(asignacionId)));
+    }
+
+    public void quitar(Long asignacionId) {
+        if (!activo()) {
+            return;
+        }
+        String anterior = escribir(() -> indice.quitar(asignacionId));
+        if (anterior != null) {
+            alRevertir(() -> escribir(() -> indice.agregar(asignacionId, anterior)));
+        }
+    }
+
+    public int tamano() {
+        cerrojo.readLock().lock();
+        try {
+            return indice.tamano();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    private String escribir(Supplier<String> cambio) {
+        cerrojo.writeLock().lock();
+        try {
+            return cambio.get();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    private void alRevertir(Runnable compensacion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    compensacion.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,205 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import com.gestion_laboratorios.asignacion_lab.repository.TipoAnalisisRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Índice ordenado de costo y duración de los tipos de análisis activos para consultas por rango sin ir
+ * a la base de datos. Los costos se guardan en céntimos (la columna tiene escala 2) y las duraciones en
+ * minutos, en arrays ordenados con los ids en paralelo; las consultas hacen una búsqueda binaria y
+ * recorren el tramo sin crear objetos. El índice es inmutable: cada modificación de tipos de análisis,
+ * local o de otra instancia, lo descarta y se reconstruye en la siguiente consulta.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndiceRangosTipoAnalisis {
+
+    // Sin límite de duración: también pasan los tipos sin duración estimada
+    public static final int SIN_LIMITE_DURACION = Integer.MAX_VALUE;
+
+    private final TipoAnalisisRepository tipoAnalisisRepository;
+
+    private volatile Rangos rangos;
+    private long generacion;
+
+    // Límites fuera del rango de long se saturan: ningún costo de la columna (precisión 10) los alcanza
+    public static long centimos(BigDecimal costo, RoundingMode redondeo) {
+        try {
+            return costo.setScale(2, redondeo).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return costo.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+    }
+
+    // Activos con costo en [costoMin, costoMax] y duración <= duracionMaxima, por costo ascendente
+    public void recorrer(long costoMin, long costoMax, int duracionMaxima, LongConsumer accion) {
+        rangos().recorrerPorCosto(costoMin, costoMax, duracionMaxima, accion);
+    }
+
+    // Activos con duración <= duracionMaxima, por duración ascendente
+    public void recorrerPorDuracion(int duracionMaxima, LongConsumer accion) {
+        rangos().recorrerPorDuracion(duracionMaxima, accion);
+    }
+
+    public int contar(long costoMin, long costoMax, int duracionMaxima) {
+        return rangos().contarPorCosto(costoMin, costoMax, duracionMaxima);
+    }
+
+    // Se descarta al confirmarse la transacción (y ya, para que la propia transacción no lea el anterior)
+    public void invalidar() {
+        descartar();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    descartar();
+                }
+            });
+        }
+    }
+
+    private synchronized void descartar() {
+        generacion++;
+        rangos = null;
+    }
+
+    private Rangos rangos() {
+        Rangos actuales = rangos;
+        if (actuales != null) {
+            return actuales;
+        }
+        long generacionLeida;
+        synchronized (this) {
+            generacionLeida = generacion;
+        }
+        Rangos cargados = Rangos.de(tipoAnalisisRepository.findByActivoTrueOrderByNombre());
+        synchronized (this) {
+            if (generacion == generacionLeida) {
+                rangos = cargados;
+                log.debug("Índice de costo y duración cargado con {} tipos de análisis", cargados.idsPorDuracion.length);
+            }
+        }
+        return cargados;
+    }
+
+    private static final class Rangos {
+
+        // Ordenados por (costo, id); sin los tipos sin costo
+        private final long[] costos;
+        private final int[] duracionesPorCosto;
+        private final long[] idsPorCosto;
+        // Ordenados por (duración, id); sin los tipos sin duración
+        private final int[] duraciones;
+        private final long[] idsPorDuracion;
+
+        private Rangos(long[] costos, int[] duracionesPorCosto, long[] idsPorCosto, int[] duraciones, long[] idsPorDuracion) {
+            this.costos = costos;
+            this.duracionesPorCosto = duracionesPorCosto;
+            this.idsPorCosto = idsPorCosto;
+            this.duraciones = duraciones;
+            this.idsPorDuracion = idsPorDuracion;
+        }
+
+        static Rangos de(List<TipoAnalisis> tipos) {
+            List<TipoAnalisis> conCosto = tipos.stream()
+                    .filter(t -> t.getCosto() != null)
+                    .sorted(Comparator.comparing(TipoAnalisis::getCosto).thenComparing(TipoAnalisis::getId))
+                    .toList();
+            long[] costos = new long[conCosto.size()];
+            int[] duracionesPorCosto = new int[conCosto.size()];
+            long[] idsPorCosto = new long[conCosto.size()];
+            for (int i = 0; i < conCosto.size(); i++) {
+                TipoAnalisis tipo = conCosto.get(i);
+                costos[i] = centimos(tipo.getCosto(), RoundingMode.HALF_UP);
+                duracionesPorCosto[i] = tipo.getDuracionEstimada() != null ? tipo.getDuracionEstimada() : SIN_LIMITE_DURACION;
+                idsPorCosto[i] = tipo.getId();
+            }
+
+            List<TipoAnalisis> conDuracion = tipos.stream()
+                    .filter(t -> t.getDuracionEstimada() != null)
+                    .sorted(Comparator.comparing(TipoAnalisis::getDuracionEstimada).thenComparing(TipoAnalisis::getId))
+                    .toList();
+            int[] duraciones = conDuracion.stream().mapToInt(TipoAnalisis::getDuracionEstimada).toArray();
+            long[] idsPorDuracion = conDuracion.stream().mapToLong(TipoAnalisis::getId).toArray();
+            return new Rangos(costos, duracionesPorCosto, idsPorCosto, duraciones, idsPorDuracion);
+        }
+
+        void recorrerPorCosto(long costoMin, long costoMax, int duracionMaxima, LongConsumer accion) {
+            int fin = primeroMayor(costos, costoMax);
+            for (int i = primeroNoMenor(costos, costoMin); i < fin; i++) {
+                if (pasaDuracion(duracionesPorCosto[i], duracionMaxima)) {
+                    accion.accept(idsPorCosto[i]);
+                }
+            }
+        }
+
+        int contarPorCosto(long costoMin, long costoMax, int duracionMaxima) {
+            int fin = primeroMayor(costos, costoMax);
+            int total = 0;
+            for (int i = primeroNoMenor(costos, costoMin); i < fin; i++) {
+                if (pasaDuracion(duracionesPorCosto[i], duracionMaxima)) {
+                    total++;
+                }
+            }
+            return total;
+        }
+
+        void recorrerPorDuracion(int duracionMaxima, LongConsumer accion) {
+            int fin = duracionMaxima == SIN_LIMITE_DURACION ? duraciones.length : primeroMayor(duraciones, duracionMaxima);
+            for (int i = 0; i < fin; i++) {
+                accion.accept(idsPorDuracion[i]);
+            }
+        }
+
+        // Sin duración estimada sólo pasa cuando no se filtra por duración, como en SQL con NULL
+        private static boolean pasaDuracion(int duracion, int duracionMaxima) {
+            return duracionMaxima == SIN_LIMITE_DURACION || (duracion <= duracionMaxima && duracion != SIN_LIMITE_DURACION);
+        }
+
+        private static int primeroNoMenor(long[] valores, long valor) {
+            int posicion = Arrays.binarySearch(valores, valor);
+            if (posicion < 0) {
+                return -posicion - 1;
+            }
+            while (posicion > 0 && valores[posicion - 1] == valor) {
+                posicion--;
+            }
+            return posicion;
+        }
+
+        private static int primeroMayor(long[] valores, long valor) {
+            int posicion = Arrays.binarySearch(valores, valor);
+            if (posicion < 0) {
+                return -posicion - 1;
+            }
+            while (posicion < valores.length && valores[posicion] == valor) {
+                posicion++;
+            }
+            return posicion;
+        }
+
+        private static int primeroMayor(int[] valores, int valor) {
+            int posicion = Arrays.binarySearch(valores, valor);
+            if (posicion < 0) {
+                return -posicion - 1;
+            }
+            while (posicion < valores.length && valores[posicion] == valor) {
+                posicion++;
+            }
+            return posicion;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice invertido de palabras para catálogos pequeños. Cada documento tiene varios campos con un peso;
+ * el texto se normaliza como en {@link IndiceTrigramas} y se parte en palabras. Una búsqueda exige que
+ * cada palabra del término coincida con alguna del documento, de forma exacta, como prefijo o con
+ * errores de tecleo (distancia de edición 1 desde 4 letras, 2 desde 8), y ordena por la suma de pesos.
+ * No es thread-safe; lo protege {@link BuscadorCatalogo}.
+ */
+class IndiceTexto {
+
+    private static final double FACTOR_PREFIJO = 0.7;
+    private static final double FACTOR_APROXIMADO = 0.4;
+
+    private final NavigableMap<String, Map<Long, Double>> palabras = new TreeMap<>();
+    private final Map<Long, Set<String>> palabrasPorDocumento = new HashMap<>();
+
+    record Campo(String texto, double peso) {
+    }
+
+    record Puntuado(long id, double puntuacion) {
+    }
+
+    void agregar(long id, List<Campo> campos) {
+        quitar(id);
+        Set<String> delDocumento = new HashSet<>();
+        for (Campo campo : campos) {
+            for (String palabra : partir(campo.texto())) {
+                palabras.computeIfAbsent(palabra, p -> new HashMap<>()).merge(id, campo.peso(), Math::max);
+                delDocumento.add(palabra);
+            }
+        }
+        palabrasPorDocumento.put(id, delDocumento);
+    }
+
+    void quitar(long id) {
+        Set<String> delDocumento = palabrasPorDocumento.remove(id);
+        if (delDocumento == null) {
+            return;
+        }
+        for (String palabra : delDocumento) {
+            Map<Long, Double> documentos = palabras.get(palabra);
+            documentos.remove(id);
+            if (documentos.isEmpty()) {
+                palabras.remove(palabra);
+            }
+        }
+    }
+
+    int tamano() {
+        return palabrasPorDocumento.size();
+    }
+
+    List<Puntuado> buscar(String termino) {
+        List<String> consulta = partir(termino);
+        if (consulta.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Double> acumulado = null;
+        for (String palabra : consulta) {
+            Map<Long, Double> coincidencias = coincidencias(palabra);
+            if (acumulado == null) {
+                acumulado = coincidencias;
+            } else {
+                acumulado.keySet().retainAll(coincidencias.keySet());
+                acumulado.replaceAll((id, puntuacion) -> puntuacion + coincidencias.get(id));
+            }
+            if (acumulado.isEmpty()) {
+                return List.of();
+            }
+        }
+        List<Puntuado> resultado = new ArrayList<>(acumulado.size());
+        acumulado.forEach((id, puntuacion) -> resultado.add(new Puntuado(id, puntuacion)));
+        resultado.sort(Comparator.comparingDouble(Puntuado::puntuacion).reversed().thenComparingLong(Puntuado::id));
+        return resultado;
+    }
+
+    // Mejor puntuación de cada documento para una palabra de la consulta
+    private Map<Long, Double> coincidencias(String palabra) {
+        Map<Long, Double> mejores = new HashMap<>();
+        Map<Long, Double> exactas = palabras.get(palabra);
+        if (exactas != null) {
+            exactas.forEach((id, peso) -> mejores.merge(id, peso, Math::max));
+        }
+        for (Map.Entry<String, Map<Long, Double>> entrada : palabras.subMap(palabra, false, palabra + Character.MAX_VALUE, false).entrySet()) {
+            entrada.getValue().forEach((id, peso) -> mejores.merge(id, peso * FACTOR_PREFIJO, Math::max));
+        }
+        int errores = erroresPermitidos(palabra);
+        if (errores > 0) {
+            for (Map.Entry<String, Map<Long, Double>> entrada : palabras.entrySet()) {
+                String candidata = entrada.getKey();
+                // Tolerancia sólo sobre la palabra completa o sobre su prefijo de la misma longitud
+                String comparada = candidata.length() > palabra.length() + errores
+                        ? candidata.substring(0, palabra.length())
+                        : candidata;
+                if (!comparada.equals(palabra) && distancia(palabra, comparada, errores) <= errores) {
+                    entrada.getValue().forEach((id, peso) -> mejores.merge(id, peso * FACTOR_APROXIMADO, Math::max));
+                }
+            }
+        }
+        return mejores;
+    }
+
+    private static int erroresPermitidos(String palabra) {
+        return palabra.length() >= 8 ? 2 : palabra.length() >= 4 ? 1 : 0;
+    }
+
+    // Distancia de Damerau-Levenshtein restringida; devuelve maximo + 1 en cuanto se supera
+    static int distancia(String a, String b, int maximo) {
+        if (Math.abs(a.length() - b.length()) > maximo) {
+            return maximo + 1;
+        }
+        int[] anterior2 = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = actual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int coste = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int valor = Math.min(Math.min(anterior[j] + 1, actual[j - 1] + 1), anterior[j - 1] + coste);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    valor = Math.min(valor, anterior2[j - 2] + 1);
+                }
+                actual[j] = valor;
+                minimoFila = Math.min(minimoFila, valor);
+            }
+            if (minimoFila > maximo) {
+                return maximo + 1;
+            }
+            int[] libre = anterior2;
+            anterior2 = anterior;
+            anterior = actual;
+            actual = libre;
+        }
+        return anterior[b.length()];
+    }
+
+    private static List<String> partir(String texto) {
+        String normalizado = IndiceTrigramas.normalizar(texto);
+        return normalizado.isEmpty() ? List.of() : List.of(normalizado.split(" "));
+    }
+}
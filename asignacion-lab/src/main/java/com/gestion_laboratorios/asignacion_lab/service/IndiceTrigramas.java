@@ -0,0 +1,231 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas sobre textos normalizados (minúsculas, sin tildes ni signos de puntuación).
+ * Una búsqueda interseca las listas de los trigramas del término y verifica cada candidato, así que equivale
+ * a un LIKE '%término%' insensible a mayúsculas y tildes. Cada alta recibe un número de documento creciente,
+ * por lo que las listas quedan ordenadas; las bajas se marcan y se compactan cuando son mayoría.
+ * No es thread-safe; lo protege {@link IndicePacientes}.
+ */
+class IndiceTrigramas {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    static final Comparator<Coincidencia> ORDEN_RELEVANCIA = Comparator
+            .comparingInt(Coincidencia::rango)
+            .thenComparingInt(Coincidencia::longitud)
+            .thenComparing(Coincidencia::id, Comparator.reverseOrder());
+
+    private final Map<Long, ListaDocumentos> listas = new HashMap<>();
+    private final Map<Long, Integer> documentoPorId = new HashMap<>();
+    private long[] ids = new long[1024];
+    private String[] textos = new String[1024];
+    private int documentos;
+    private int eliminados;
+
+    /**
+     * Coincidencia de una búsqueda. rango: 0 texto idéntico, 1 empieza por el término, 2 alguna palabra
+     * empieza por el término, 3 el término aparece dentro de una palabra.
+     */
+    record Coincidencia(long id, int rango, int longitud) {
+    }
+
+    record Resultado(List<Coincidencia> coincidencias, int total) {
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(sinTildes.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Devuelve el texto normalizado anterior del id, o null si no estaba indexado
+    String agregar(long id, String texto) {
+        String anterior = quitar(id);
+        String normalizado = normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return anterior;
+        }
+        if (documentos == ids.length) {
+            ids = Arrays.copyOf(ids, documentos * 2);
+            textos = Arrays.copyOf(textos, documentos * 2);
+        }
+        int documento = documentos++;
+        ids[documento] = id;
+        textos[documento] = normalizado;
+        documentoPorId.put(id, documento);
+        for (int i = 0; i + 3 <= normalizado.length(); i++) {
+            ListaDocumentos lista = listas.computeIfAbsent(trigrama(normalizado, i), t -> new ListaDocumentos());
+            // Un trigrama repetido en el mismo texto se guarda una sola vez
+            if (lista.ultimo() != documento) {
+                lista.agregar(documento);
+            }
+        }
+        return anterior;
+    }
+
+    String quitar(long id) {
+        Integer documento = documentoPorId.remove(id);
+        if (documento == null) {
+            return null;
+        }
+        String anterior = textos[documento];
+        textos[documento] = null;
+        if (++eliminados > 1024 && eliminados * 2 > documentos) {
+            compactar();
+        }
+        return anterior;
+    }
+
+    int tamano() {
+        return documentoPorId.size();
+    }
+
+    // Las mejores 'maximo' coincidencias por relevancia y el total de coincidencias encontradas
+    Resultado buscar(String termino, int maximo) {
+        String normalizado = normalizar(termino);
+        if (normalizado.isEmpty() || maximo <= 0) {
+            return new Resultado(List.of(), 0);
+        }
+
+        PriorityQueue<Coincidencia> mejores = new PriorityQueue<>(ORDEN_RELEVANCIA.reversed());
+        int total = 0;
+        if (normalizado.length() < 3) {
+            // Sin trigramas en el término: recorrido completo, sólo para términos de una o dos letras
+            for (int documento = 0; documento < documentos; documento++) {
+                total += evaluar(documento, normalizado, mejores, maximo);
+            }
+        } else {
+            int[] candidatos = candidatos(normalizado);
+            for (int documento : candidatos) {
+                total += evaluar(documento, normalizado, mejores, maximo);
+            }
+        }
+
+        List<Coincidencia> coincidencias = new ArrayList<>(mejores);
+        coincidencias.sort(ORDEN_RELEVANCIA);
+        return new Resultado(coincidencias, total);
+    }
+
+    private int evaluar(int documento, String termino, PriorityQueue<Coincidencia> mejores, int maximo) {
+        String texto = textos[documento];
+        if (texto == null) {
+            return 0;
+        }
+        int posicion = texto.indexOf(termino);
+        if (posicion < 0) {
+            return 0;
+        }
+        int rango;
+        if (posicion == 0) {
+            rango = texto.length() == termino.length() ? 0 : 1;
+        } else {
+            rango = texto.contains(" " + termino) ? 2 : 3;
+        }
+        Coincidencia coincidencia = new Coincidencia(ids[documento], rango, texto.length());
+        if (mejores.size() < maximo) {
+            mejores.add(coincidencia);
+        } else if (ORDEN_RELEVANCIA.compare(coincidencia, mejores.peek()) < 0) {
+            mejores.poll();
+            mejores.add(coincidencia);
+        }
+        return 1;
+    }
+
+    // Intersección de las listas de todos los trigramas del término, empezando por la más corta
+    private int[] candidatos(String termino) {
+        List<ListaDocumentos> implicadas = new ArrayList<>();
+        for (int i = 0; i + 3 <= termino.length(); i++) {
+            ListaDocumentos lista = listas.get(trigrama(termino, i));
+            if (lista == null) {
+                return new int[0];
+            }
+            implicadas.add(lista);
+        }
+        implicadas.sort(Comparator.comparingInt(ListaDocumentos::tamano));
+
+        ListaDocumentos primera = implicadas.get(0);
+        int[] resultado = Arrays.copyOf(primera.documentos, primera.tamano);
+        int tamano = resultado.length;
+        for (int k = 1; k < implicadas.size() && tamano > 0; k++) {
+            tamano = intersecar(resultado, tamano, implicadas.get(k));
+        }
+        return Arrays.copyOf(resultado, tamano);
+    }
+
+    // Deja en resultado[0..n) los elementos que también están en la lista; búsqueda binaria acotada por avance
+    private static int intersecar(int[] resultado, int tamano, ListaDocumentos lista) {
+        int n = 0;
+        int desde = 0;
+        for (int i = 0; i < tamano && desde < lista.tamano; i++) {
+            int posicion = Arrays.binarySearch(lista.documentos, desde, lista.tamano, resultado[i]);
+            if (posicion >= 0) {
+                resultado[n++] = resultado[i];
+                desde = posicion + 1;
+            } else {
+                desde = -posicion - 1;
+            }
+        }
+        return n;
+    }
+
+    private void compactar() {
+        long[] idsVivos = new long[documentoPorId.size()];
+        String[] textosVivos = new String[documentoPorId.size()];
+        int n = 0;
+        for (int documento = 0; documento < documentos; documento++) {
+            if (textos[documento] != null) {
+                idsVivos[n] = ids[documento];
+                textosVivos[n++] = textos[documento];
+            }
+        }
+        listas.clear();
+        documentoPorId.clear();
+        ids = new long[Math.max(1024, n * 2)];
+        textos = new String[ids.length];
+        documentos = 0;
+        eliminados = 0;
+        for (int i = 0; i < n; i++) {
+            agregar(idsVivos[i], textosVivos[i]);
+        }
+    }
+
+    private static long trigrama(String texto, int inicio) {
+        return ((long) texto.charAt(inicio) << 32) | ((long) texto.charAt(inicio + 1) << 16) | texto.charAt(inicio + 2);
+    }
+
+    private static final class ListaDocumentos {
+
+        private int[] documentos = new int[4];
+        private int tamano;
+
+        void agregar(int documento) {
+            if (tamano == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamano + (tamano >> 1) + 1);
+            }
+            documentos[tamano++] = documento;
+        }
+
+        int ultimo() {
+            return tamano == 0 ? -1 : documentos[tamano - 1];
+        }
+
+        int tamano() {
+            return tamano;
+        }
+    }
+}
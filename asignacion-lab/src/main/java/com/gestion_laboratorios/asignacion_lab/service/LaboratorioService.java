@@ -1,26 +1,48 @@
 package com.gestion_laboratorios.asignacion_lab.service;
 
+import com.gestion_laboratorios.asignacion_lab.dto.DisponibilidadLaboratorioDto;
+import com.gestion_laboratorios.asignacion_lab.dto.EstadisticasCacheDto;
+import com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado;
 import com.gestion_laboratorios.asignacion_lab.dto.LaboratorioRequestDto;
 import com.gestion_laboratorios.asignacion_lab.dto.LaboratorioResponseDto;
 import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
+import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import com.gestion_laboratorios.asignacion_lab.exception.BusinessException;
 import com.gestion_laboratorios.asignacion_lab.exception.ConflictException;
 import com.gestion_laboratorios.asignacion_lab.exception.ResourceNotFoundException;
+import com.gestion_laboratorios.asignacion_lab.repository.AsignacionRepository;
 import com.gestion_laboratorios.asignacion_lab.repository.LaboratorioRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "servicio.metodo", histogram = true)
 @Slf4j
 @Transactional
 public class LaboratorioService {
 
+    private static final int MAXIMO_DIAS_DISPONIBILIDAD = 31;
+
     private final LaboratorioRepository laboratorioRepository;
+    private final CacheCatalogo cacheCatalogo;
+    private final SincronizacionCaches sincronizacionCaches;
+    private final BuscadorCatalogo buscadorCatalogo;
+    private final IndiceAgendaLaboratorio indiceAgenda;
+    private final AsignacionRepository asignacionRepository;
+
+    @Value("${app.asignaciones.modo-reserva:LOCAL}")
+    private AsignacionService.ModoReserva modoReserva;
 
     public LaboratorioResponseDto crearLaboratorio(LaboratorioRequestDto request) {
         log.info("Creando laboratorio: {}", request.getNombre());
@@ -39,36 +61,32 @@ public class LaboratorioService {
                 .build();
 
         Laboratorio laboratorioGuardado = laboratorioRepository.save(laboratorio);
+        sincronizacionCaches.registrarCambio(SincronizacionCaches.Region.LABORATORIOS, laboratorioGuardado.getId());
+        buscadorCatalogo.laboratorioGuardado(laboratorioGuardado);
         log.info("Laboratorio creado exitosamente con ID: {}", laboratorioGuardado.getId());
         
-        return LaboratorioResponseDto.fromEntity(laboratorioGuardado);
+        return aRespuesta(laboratorioGuardado);
     }
 
     @Transactional(readOnly = true)
     public List<LaboratorioResponseDto> obtenerTodosLosLaboratorios() {
         log.info("Obteniendo todos los laboratorios");
-        return laboratorioRepository.findAll()
-                .stream()
-                .map(LaboratorioResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        return aRespuestas(cacheCatalogo.todosLosLaboratorios());
     }
 
     @Transactional(readOnly = true)
     public List<LaboratorioResponseDto> obtenerLaboratoriosDisponibles() {
         log.info("Obteniendo laboratorios disponibles");
-        return laboratorioRepository.findByEstadoOrderByNombre(Laboratorio.EstadoLaboratorio.DISPONIBLE)
-                .stream()
-                .map(LaboratorioResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        return aRespuestas(cacheCatalogo.laboratoriosDisponibles());
     }
 
     @Transactional(readOnly = true)
     public LaboratorioResponseDto obtenerLaboratorioPorId(Long id) {
         log.info("Buscando laboratorio por ID: {}", id);
-        Laboratorio laboratorio = laboratorioRepository.findById(id)
+        Laboratorio laboratorio = cacheCatalogo.laboratorio(id)
                 .orElseThrow(() -> ResourceNotFoundException.laboratorio(id));
         
-        return LaboratorioResponseDto.fromEntity(laboratorio);
+        return aRespuesta(laboratorio);
     }
 
     public LaboratorioResponseDto actualizarLaboratorio(Long id, LaboratorioRequestDto request) {
@@ -91,9 +109,11 @@ public class LaboratorioService {
         laboratorio.setEquipamiento(request.getEquipamiento());
 
         Laboratorio laboratorioActualizado = laboratorioRepository.save(laboratorio);
+        sincronizacionCaches.registrarCambio(SincronizacionCaches.Region.LABORATORIOS, id);
+        buscadorCatalogo.laboratorioGuardado(laboratorioActualizado);
         log.info("Laboratorio actualizado exitosamente");
         
-        return LaboratorioResponseDto.fromEntity(laboratorioActualizado);
+        return aRespuesta(laboratorioActualizado);
     }
 
     public void eliminarLaboratorio(Long id) {
@@ -109,16 +129,18 @@ public class LaboratorioService {
         }
         
         laboratorioRepository.delete(laboratorio);
+        sincronizacionCaches.registrarCambio(SincronizacionCaches.Region.LABORATORIOS, id);
+        buscadorCatalogo.laboratorioEliminado(id);
         log.info("Laboratorio eliminado exitosamente");
     }
 
     @Transactional(readOnly = true)
     public List<LaboratorioResponseDto> buscarLaboratorios(String searchTerm) {
         log.info("Buscando laboratorios con término: {}", searchTerm);
-        return laboratorioRepository.findBySearchTerm(searchTerm)
-                .stream()
-                .map(LaboratorioResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        // Índice de texto: sin tildes, por prefijo, tolerante a errores de tecleo y ordenado por relevancia
+        List<Long> ids = buscadorCatalogo.buscarLaboratorios(searchTerm);
+        Map<Long, Laboratorio> laboratorios = cacheCatalogo.laboratorios(ids);
+        return aRespuestas(ids.stream().map(laboratorios::get).filter(Objects::nonNull).toList());
     }
 
     public LaboratorioResponseDto cambiarEstado(Long id, Laboratorio.EstadoLaboratorio nuevoEstado) {
@@ -129,7 +151,70 @@ public class LaboratorioService {
         
         laboratorio.setEstado(nuevoEstado);
         Laboratorio laboratorioActualizado = laboratorioRepository.save(laboratorio);
+        sincronizacionCaches.registrarCambio(SincronizacionCaches.Region.LABORATORIOS, id);
         
-        return LaboratorioResponseDto.fromEntity(laboratorioActualizado);
+        return aRespuesta(laboratorioActualizado);
+    }
+
+    @Transactional(readOnly = true)
+    public DisponibilidadLaboratorioDto obtenerDisponibilidad(Long id, LocalDateTime desde, LocalDateTime hasta,
+                                                              Long tipoAnalisisId) {
+        log.debug("Calculando disponibilidad del laboratorio {} entre {} y {}", id, desde, hasta);
+
+        if (!hasta.isAfter(desde) || desde.plusDays(MAXIMO_DIAS_DISPONIBILIDAD).isBefore(hasta)) {
+            throw BusinessException.rangoFechasInvalido(MAXIMO_DIAS_DISPONIBILIDAD);
+        }
+
+        Laboratorio laboratorio = cacheCatalogo.laboratorio(id)
+                .orElseThrow(() -> ResourceNotFoundException.laboratorio(id));
+        TipoAnalisis tipoAnalisis = cacheCatalogo.tipoAnalisis(tipoAnalisisId)
+                .orElseThrow(() -> ResourceNotFoundException.tipoAnalisis(tipoAnalisisId));
+        int duracion = tipoAnalisis.getDuracionEstimada() != null
+                ? tipoAnalisis.getDuracionEstimada()
+                : IntervaloOcupado.DURACION_POR_DEFECTO_MINUTOS;
+
+        // Sin huecos si el laboratorio no admite reservas. En modo CLUSTER el índice local no ve las
+        // reservas de otras instancias: la ocupación del rango se lee de la base de datos
+        List<DisponibilidadLaboratorioDto.HuecoLibre> huecos;
+        if (!laboratorio.estaDisponible()) {
+            huecos = List.of();
+        } else if (modoReserva == AsignacionService.ModoReserva.CLUSTER) {
+            huecos = CalendarioOcupacion.de(asignacionRepository.findIntervalosActivosEntre(List.of(id), desde, hasta))
+                    .huecos(desde, hasta, duracion);
+        } else {
+            huecos = indiceAgenda.huecosLibres(id, desde, hasta, duracion);
+        }
+
+        return DisponibilidadLaboratorioDto.builder()
+                .laboratorioId(id)
+                .tipoAnalisisId(tipoAnalisisId)
+                .duracionMinutos(duracion)
+                .granularidadMinutos(CalendarioOcupacion.MINUTOS_POR_FRANJA)
+                .desde(desde)
+                .hasta(hasta)
+                .huecos(huecos)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<EstadisticasCacheDto> obtenerEstadisticasCache() {
+        return cacheCatalogo.estadisticas();
+    }
+
+    public void invalidarCacheCatalogo() {
+        sincronizacionCaches.invalidarTodoLocal();
+    }
+
+    private LaboratorioResponseDto aRespuesta(Laboratorio laboratorio) {
+        return LaboratorioResponseDto.fromEntity(laboratorio,
+                laboratorioRepository.asignacionesActivasPorLaboratorio(List.of(laboratorio.getId())).getOrDefault(laboratorio.getId(), 0L));
+    }
+
+    private List<LaboratorioResponseDto> aRespuestas(List<Laboratorio> laboratorios) {
+        Map<Long, Long> activas = laboratorioRepository.asignacionesActivasPorLaboratorio(
+                laboratorios.stream().map(Laboratorio::getId).toList());
+        return laboratorios.stream()
+                .map(l -> LaboratorioResponseDto.fromEntity(l, activas.getOrDefault(l.getId(), 0L)))
+                .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
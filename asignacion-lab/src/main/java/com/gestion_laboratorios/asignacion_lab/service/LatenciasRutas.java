@@ -0,0 +1,144 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.dto.LatenciaRutaDto;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Latencia por ruta (método HTTP y patrón de @RequestMapping) en histogramas HdrHistogram. Cada ruta
+ * tiene un {@link Recorder}, en el que los hilos de las peticiones escriben sin bloqueos ni reservas de
+ * memoria; cada app.latencias.intervalo-ms se cierra el intervalo y se guarda en un anillo de
+ * app.latencias.intervalos histogramas, que se suman al leer. Los percentiles cubren así la última
+ * ventana (un minuto por defecto) y no toda la vida del proceso.
+ */
+@Component
+@Slf4j
+public class LatenciasRutas {
+
+    // Peticiones que no llegan a un controlador (404, rechazos de seguridad): una sola ruta para no crecer sin límite
+    public static final String SIN_RUTA = "(sin ruta)";
+
+    // El método lo elige el cliente y el filtro corre antes que el firewall de Spring Security: los que no
+    // son estándar comparten una sola entrada por ruta
+    public static final String OTRO_METODO = "(otro)";
+    private static final Set<String> METODOS_ESTANDAR = Arrays.stream(HttpMethod.values())
+            .map(HttpMethod::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    // Microsegundos, de 1 µs a 1 h con dos cifras significativas (error <= 1 %)
+    private static final long MAXIMO_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int CIFRAS_SIGNIFICATIVAS = 2;
+
+    @Value("${app.latencias.intervalo-ms:10000}")
+    private long intervaloMs;
+
+    @Value("${app.latencias.intervalos:6}")
+    private int intervalos;
+
+    // Patrón -> método -> ruta; se leen sin crear la clave en cada petición
+    private final ConcurrentMap<String, ConcurrentMap<String, Ruta>> rutas = new ConcurrentHashMap<>();
+
+    public void registrar(String metodo, String patron, long nanos) {
+        String clave = METODOS_ESTANDAR.contains(metodo) ? metodo : OTRO_METODO;
+        ConcurrentMap<String, Ruta> porMetodo = rutas.get(patron);
+        if (porMetodo == null) {
+            porMetodo = rutas.computeIfAbsent(patron, p -> new ConcurrentHashMap<>());
+        }
+        Ruta ruta = porMetodo.get(clave);
+        if (ruta == null) {
+            ruta = porMetodo.computeIfAbsent(clave, m -> new Ruta(m, patron, intervalos));
+        }
+        ruta.recorder.recordValue(Math.max(1, Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAXIMO_MICROS)));
+    }
+
+    // Rutas con peticiones en la ventana, de mayor a menor p99
+    public List<LatenciaRutaDto> percentiles() {
+        List<LatenciaRutaDto> resultado = new ArrayList<>();
+        long ventanaSegundos = TimeUnit.MILLISECONDS.toSeconds(intervaloMs * intervalos);
+        rutas.values().forEach(porMetodo -> porMetodo.values().forEach(ruta -> {
+            Histogram ventana = ruta.ventana();
+            if (ventana.getTotalCount() > 0) {
+                resultado.add(LatenciaRutaDto.builder()
+                        .metodo(ruta.metodo)
+                        .ruta(ruta.patron)
+                        .peticiones(ventana.getTotalCount())
+                        .ventanaSegundos(ventanaSegundos)
+                        .p50Ms(milisegundos(ventana.getValueAtPercentile(50)))
+                        .p90Ms(milisegundos(ventana.getValueAtPercentile(90)))
+                        .p99Ms(milisegundos(ventana.getValueAtPercentile(99)))
+                        .p999Ms(milisegundos(ventana.getValueAtPercentile(99.9)))
+                        .maximoMs(milisegundos(ventana.getMaxValue()))
+                        .build());
+            }
+        }));
+        resultado.sort(Comparator.comparingDouble(LatenciaRutaDto::getP99Ms).reversed());
+        return resultado;
+    }
+
+    @Scheduled(fixedRateString = "${app.latencias.intervalo-ms:10000}", initialDelayString = "${app.latencias.intervalo-ms:10000}")
+    void rotar() {
+        rutas.values().forEach(porMetodo -> porMetodo.values().forEach(Ruta::rotar));
+    }
+
+    @Scheduled(fixedDelayString = "${app.latencias.volcado-ms:60000}", initialDelayString = "${app.latencias.volcado-ms:60000}")
+    void volcar() {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        for (LatenciaRutaDto latencia : percentiles()) {
+            log.info("Latencia {} {} (últimos {} s, {} peticiones): p50={} p90={} p99={} p99.9={} máx={} ms",
+                    latencia.getMetodo(), latencia.getRuta(), latencia.getVentanaSegundos(), latencia.getPeticiones(),
+                    latencia.getP50Ms(), latencia.getP90Ms(), latencia.getP99Ms(), latencia.getP999Ms(), latencia.getMaximoMs());
+        }
+    }
+
+    private static double milisegundos(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Ruta {
+
+        private final String metodo;
+        private final String patron;
+        private final Recorder recorder = new Recorder(1, MAXIMO_MICROS, CIFRAS_SIGNIFICATIVAS);
+        // Intervalos cerrados; el más antiguo se recicla como destino del siguiente
+        private final Histogram[] anillo;
+        private int posicion;
+
+        Ruta(String metodo, String patron, int intervalos) {
+            this.metodo = metodo;
+            this.patron = patron;
+            this.anillo = new Histogram[Math.max(1, intervalos)];
+        }
+
+        synchronized void rotar() {
+            anillo[posicion] = recorder.getIntervalHistogram(anillo[posicion]);
+            posicion = (posicion + 1) % anillo.length;
+        }
+
+        synchronized Histogram ventana() {
+            Histogram suma = new Histogram(1, MAXIMO_MICROS, CIFRAS_SIGNIFICATIVAS);
+            for (Histogram intervalo : anillo) {
+                if (intervalo != null) {
+                    suma.add(intervalo);
+                }
+            }
+            return suma;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Conjunto en memoria de jti revocados con un filtro de Bloom delante. La consulta de cada petición mira
+ * sólo el filtro (k lecturas de bits, sin bloqueos ni objetos nuevos) y únicamente ante un positivo
+ * consulta el conjunto exacto. Cada jti se guarda con su expiración; {@link #barrer()} quita los vencidos
+ * y, como un filtro de Bloom no admite borrados, lo reconstruye. Si se supera la capacidad, el filtro se
+ * reconstruye con el doble para mantener la tasa de falsos positivos.
+ */
+class ListaRevocacion {
+
+    private final Map<String, Instant> revocados = new ConcurrentHashMap<>();
+    private final double probabilidadFalsoPositivo;
+    private int capacidad;
+    private volatile FiltroBloom filtro;
+
+    ListaRevocacion(int capacidad, double probabilidadFalsoPositivo) {
+        this.capacidad = capacidad;
+        this.probabilidadFalsoPositivo = probabilidadFalsoPositivo;
+        this.filtro = new FiltroBloom(capacidad, probabilidadFalsoPositivo);
+    }
+
+    boolean contiene(String jti) {
+        return filtro.puedeContener(jti) && revocados.containsKey(jti);
+    }
+
+    synchronized void agregar(String jti, Instant expiracion) {
+        if (!expiracion.isAfter(Instant.now()) || revocados.containsKey(jti)) {
+            return;
+        }
+        filtro.agregar(jti);
+        revocados.put(jti, expiracion);
+        if (revocados.size() > capacidad) {
+            capacidad *= 2;
+            reconstruir();
+        }
+    }
+
+    synchronized int barrer() {
+        Instant ahora = Instant.now();
+        int antes = revocados.size();
+        revocados.values().removeIf(expiracion -> !expiracion.isAfter(ahora));
+        int barridos = antes - revocados.size();
+        if (barridos > 0) {
+            reconstruir();
+        }
+        return barridos;
+    }
+
+    int tamano() {
+        return revocados.size();
+    }
+
+    private void reconstruir() {
+        FiltroBloom nuevo = new FiltroBloom(capacidad, probabilidadFalsoPositivo);
+        revocados.keySet().forEach(nuevo::agregar);
+        filtro = nuevo;
+    }
+
+    /**
+     * Filtro de Bloom de m bits y k funciones obtenidas por doble hashing de un hash de 64 bits (FNV-1a
+     * con el mezclado final de MurmurHash3). Los bits están en un AtomicLongArray para poder leerlos sin
+     * bloqueo mientras se agregan.
+     */
+    static final class FiltroBloom {
+
+        private final AtomicLongArray bits;
+        private final long numeroBits;
+        private final int funciones;
+
+        FiltroBloom(int capacidad, double probabilidadFalsoPositivo) {
+            double ln2 = Math.log(2);
+            long m = (long) Math.ceil(-Math.max(capacidad, 1) * Math.log(probabilidadFalsoPositivo) / (ln2 * ln2));
+            int palabras = (int) Math.max(1, (m + 63) / 64);
+            this.bits = new AtomicLongArray(palabras);
+            this.numeroBits = palabras * 64L;
+            this.funciones = Math.max(1, (int) Math.round((double) numeroBits / Math.max(capacidad, 1) * ln2));
+        }
+
+        void agregar(String valor) {
+            long h1 = hash(valor);
+            long h2 = mezclar(h1) | 1;
+            for (int i = 0; i < funciones; i++) {
+                long posicion = Math.floorMod(h1 + i * h2, numeroBits);
+                int palabra = (int) (posicion >>> 6);
+                long mascara = 1L << posicion;
+                long actual;
+                do {
+                    actual = bits.get(palabra);
+                } while ((actual & mascara) == 0 && !bits.compareAndSet(palabra, actual, actual | mascara));
+            }
+        }
+
+        boolean puedeContener(String valor) {
+            long h1 = hash(valor);
+            long h2 = mezclar(h1) | 1;
+            for (int i = 0; i < funciones; i++) {
+                long posicion = Math.floorMod(h1 + i * h2, numeroBits);
+                if ((bits.get((int) (posicion >>> 6)) & (1L << posicion)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String valor) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < valor.length(); i++) {
+                h ^= valor.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return mezclar(h);
+        }
+
+        private static long mezclar(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -7,21 +7,25 @@ import com.gestion_laboratorios.asignacion_lab.exception.ConflictException;
 import com.gestion_laboratorios.asignacion_lab.exception.ResourceNotFoundException;
 import com.gestion_laboratorios.asignacion_lab.repository.LaboratorioRepository;
 import com.gestion_laboratorios.asignacion_lab.repository.MedicoLaboratorioRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "servicio.metodo", histogram = true)
 @Slf4j
 @Transactional
 public class MedicoLaboratorioService {
 
     private final MedicoLaboratorioRepository medicoLaboratorioRepository;
     private final LaboratorioRepository laboratorioRepository;
+    private final SincronizacionCaches sincronizacionCaches;
 
     public void asignarLaboratorioAMedico(Long medicoId, Long laboratorioId) {
         log.info("Asignando laboratorio {} al médico {}", laboratorioId, medicoId);
@@ -39,19 +43,25 @@ public class MedicoLaboratorioService {
                 .build();
 
         medicoLaboratorioRepository.save(asignacion);
+        sincronizacionCaches.registrarCambio(SincronizacionCaches.Region.MEDICOS_LABORATORIO, null);
     }
 
     public void desasignarLaboratorioDeMedico(Long medicoId, Long laboratorioId) {
         log.info("Desasignando laboratorio {} del médico {}", laboratorioId, medicoId);
         medicoLaboratorioRepository.deleteByMedicoIdAndLaboratorio_Id(medicoId, laboratorioId);
+        sincronizacionCaches.registrarCambio(SincronizacionCaches.Region.MEDICOS_LABORATORIO, null);
     }
 
     @Transactional(readOnly = true)
     public List<LaboratorioResponseDto> obtenerLaboratoriosDeMedico(Long medicoId) {
-        return medicoLaboratorioRepository.findByMedicoIdWithLaboratorio(medicoId)
+        List<Laboratorio> laboratorios = medicoLaboratorioRepository.findByMedicoIdWithLaboratorio(medicoId)
                 .stream()
                 .map(MedicoLaboratorio::getLaboratorio)
-                .map(LaboratorioResponseDto::fromEntity)
+                .toList();
+        Map<Long, Long> activas = laboratorioRepository.asignacionesActivasPorLaboratorio(
+                laboratorios.stream().map(Laboratorio::getId).toList());
+        return laboratorios.stream()
+                .map(l -> LaboratorioResponseDto.fromEntity(l, activas.getOrDefault(l.getId(), 0L)))
                 .toList();
     }
 
@@ -0,0 +1,89 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Lista de JWT revocados por el servicio de usuarios. La tabla tokens_emitidos es de ese servicio (aquí no
+ * se mapea como entidad para no crearla ni borrarla con el esquema de este), así que se consulta con SQL:
+ * al arrancar se cargan los revocados vigentes y después, periódicamente, los revocados desde la última
+ * lectura. Las peticiones sólo consultan la {@link ListaRevocacion} en memoria; los tokens expirados se
+ * barren en cada consulta. Un token sin jti no se puede revocar.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RevocacionTokens implements ApplicationRunner {
+
+    private static final String SQL_REVOCADOS =
+            "SELECT jti, expiracion, fecha_revocacion FROM tokens_emitidos WHERE fecha_revocacion >= ? AND expiracion > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.seguridad.revocacion.capacidad:100000}")
+    private int capacidad;
+
+    @Value("${app.seguridad.revocacion.probabilidad-falsos-positivos:0.001}")
+    private double probabilidadFalsosPositivos;
+
+    @Value("${jwt.expiration:86400}")
+    private long duracionTokenSegundos;
+
+    // Cubre transacciones confirmadas tarde y diferencias de reloj con el servicio de usuarios
+    @Value("${app.seguridad.revocacion.margen-segundos:60}")
+    private long margenSegundos;
+
+    private ListaRevocacion lista;
+    private volatile LocalDateTime ultimaRevocacionLeida;
+
+    @PostConstruct
+    void inicializar() {
+        lista = new ListaRevocacion(capacidad, probabilidadFalsosPositivos);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        sondear();
+        log.info("Lista de revocación cargada con {} tokens", lista.tamano());
+    }
+
+    public boolean revocado(String jti) {
+        return jti != null && lista.contiene(jti);
+    }
+
+    @Scheduled(fixedDelayString = "${app.seguridad.revocacion.intervalo-ms:5000}",
+               initialDelayString = "${app.seguridad.revocacion.intervalo-ms:5000}")
+    public void sondear() {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime desde = ultimaRevocacionLeida == null
+                ? ahora.minusSeconds(duracionTokenSegundos)
+                : ultimaRevocacionLeida.minusSeconds(margenSegundos);
+        try {
+            jdbcTemplate.query(SQL_REVOCADOS, fila -> {
+                lista.agregar(fila.getString("jti"), fila.getTimestamp("expiracion").toInstant());
+                LocalDateTime revocacion = fila.getTimestamp("fecha_revocacion").toLocalDateTime();
+                if (ultimaRevocacionLeida == null || revocacion.isAfter(ultimaRevocacionLeida)) {
+                    ultimaRevocacionLeida = revocacion;
+                }
+            }, Timestamp.valueOf(desde), Timestamp.valueOf(ahora));
+        } catch (DataAccessException e) {
+            // La tabla no existe hasta que arranca el servicio de usuarios
+            log.warn("No se pudo leer la lista de tokens revocados: {}", e.getMostSpecificCause().getMessage());
+        }
+        int barridos = lista.barrer();
+        if (barridos > 0) {
+            log.debug("Barridos {} tokens revocados ya expirados", barridos);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
+import com.gestion_laboratorios.asignacion_lab.entity.MedicoLaboratorio;
+import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import com.gestion_laboratorios.asignacion_lab.entity.VersionCache;
+import com.gestion_laboratorios.asignacion_lab.repository.VersionCacheRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invalidación entre instancias de la caché de segundo nivel de Hibernate y de {@link CacheCatalogo}.
+ * Cada modificación incrementa la versión de su región en la tabla version_cache dentro de la misma
+ * transacción; cada instancia consulta la tabla periódicamente y, si una versión cambió, vacía esa región.
+ * Como una lectura concurrente en otra instancia puede volver a cachear el dato anterior justo después
+ * de vaciarla, la región se vacía otra vez en la consulta siguiente.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class SincronizacionCaches implements ApplicationRunner {
+
+    private final VersionCacheRepository versionCacheRepository;
+    private final CacheCatalogo cacheCatalogo;
+    private final BuscadorCatalogo buscadorCatalogo;
+    private final IndiceRangosTipoAnalisis indiceRangosTipoAnalisis;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Map<Region, Long> versionesConocidas = new ConcurrentHashMap<>();
+    private final Set<Region> pendientes = ConcurrentHashMap.newKeySet();
+
+    public enum Region {
+        LABORATORIOS(Laboratorio.class),
+        TIPOS_ANALISIS(TipoAnalisis.class),
+        MEDICOS_LABORATORIO(MedicoLaboratorio.class);
+
+        private final Class<?> entidad;
+
+        Region(Class<?> entidad) {
+            this.entidad = entidad;
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (Region region : Region.values()) {
+            if (!versionCacheRepository.existsById(region.name())) {
+                versionCacheRepository.save(new VersionCache(region.name(), 0L));
+            }
+        }
+        versionCacheRepository.findAll().forEach(v -> region(v).ifPresent(r -> versionesConocidas.put(r, v.getVersion())));
+    }
+
+    // Invalida la caché de aplicación de esta instancia y avisa a las demás al confirmarse la transacción
+    public void registrarCambio(Region region, Long id) {
+        switch (region) {
+            case LABORATORIOS -> cacheCatalogo.invalidarLaboratorio(id);
+            case TIPOS_ANALISIS -> {
+                cacheCatalogo.invalidarTipoAnalisis(id);
+                indiceRangosTipoAnalisis.invalidar();
+            }
+            case MEDICOS_LABORATORIO -> { }
+        }
+        if (versionCacheRepository.incrementar(region.name()) == 0) {
+            versionCacheRepository.save(new VersionCache(region.name(), 1L));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.invalidacion.intervalo-ms:5000}",
+               initialDelayString = "${app.cache.invalidacion.intervalo-ms:5000}")
+    @Transactional(readOnly = true)
+    public void sondear() {
+        Set<Region> cambiadas = EnumSet.noneOf(Region.class);
+        for (VersionCache version : versionCacheRepository.findAll()) {
+            region(version).ifPresent(region -> {
+                Long anterior = versionesConocidas.put(region, version.getVersion());
+                if (anterior != null && !anterior.equals(version.getVersion())) {
+                    cambiadas.add(region);
+                }
+            });
+        }
+
+        Set<Region> invalidar = EnumSet.noneOf(Region.class);
+        invalidar.addAll(cambiadas);
+        invalidar.addAll(pendientes);
+        pendientes.clear();
+        pendientes.addAll(cambiadas);
+        if (!cambiadas.isEmpty()) {
+            log.info("Regiones de caché modificadas: {}", cambiadas);
+        }
+        if (!invalidar.isEmpty()) {
+            invalidarLocal(invalidar);
+        }
+    }
+
+    public void invalidarTodoLocal() {
+        invalidarLocal(EnumSet.allOf(Region.class));
+    }
+
+    private void invalidarLocal(Collection<Region> regiones) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (Region region : regiones) {
+            cache.evictEntityData(region.entidad);
+            switch (region) {
+                case LABORATORIOS -> {
+                    cacheCatalogo.invalidarLaboratorios();
+                    buscadorCatalogo.invalidarLaboratorios();
+                }
+                case TIPOS_ANALISIS -> {
+                    cacheCatalogo.invalidarTiposAnalisis();
+                    buscadorCatalogo.invalidarTiposAnalisis();
+                    indiceRangosTipoAnalisis.invalidar();
+                }
+                case MEDICOS_LABORATORIO -> { }
+            }
+        }
+        // Las marcas de tiempo de las tablas sólo se actualizan en la instancia que escribe
+        cache.evictQueryRegions();
+    }
+
+    private static Optional<Region> region(VersionCache version) {
+        return Arrays.stream(Region.values())
+                .filter(r -> r.name().equals(version.getRegion()))
+                .findFirst();
+    }
+}
@@ -6,22 +6,32 @@ import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
 import com.gestion_laboratorios.asignacion_lab.exception.ConflictException;
 import com.gestion_laboratorios.asignacion_lab.exception.ResourceNotFoundException;
 import com.gestion_laboratorios.asignacion_lab.repository.TipoAnalisisRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "servicio.metodo", histogram = true)
 @Slf4j
 @Transactional
 public class TipoAnalisisService {
 
     private final TipoAnalisisRepository tipoAnalisisRepository;
+    private final CacheCatalogo cacheCatalogo;
+    private final SincronizacionCaches sincronizacionCaches;
+    private final BuscadorCatalogo buscadorCatalogo;
+    private final IndiceRangosTipoAnalisis indiceRangos;
 
     public TipoAnalisisResponseDto crearTipoAnalisis(TipoAnalisisRequestDto request) {
         log.info("Creando tipo de análisis: {}", request.getNombre());
@@ -40,6 +50,8 @@ public class TipoAnalisisService {
                 .build();
 
         TipoAnalisis tipoGuardado = tipoAnalisisRepository.save(tipoAnalisis);
+        sincronizacionCaches.registrarCambio(SincronizacionCaches.Region.TIPOS_ANALISIS, tipoGuardado.getId());
+        buscadorCatalogo.tipoAnalisisGuardado(tipoGuardado);
         log.info("Tipo de análisis creado exitosamente con ID: {}", tipoGuardado.getId());
         
         return TipoAnalisisResponseDto.fromEntity(tipoGuardado);
@@ -48,7 +60,7 @@ public class TipoAnalisisService {
     @Transactional(readOnly = true)
     public List<TipoAnalisisResponseDto> obtenerTodosLosTiposAnalisis() {
         log.info("Obteniendo todos los tipos de análisis");
-        return tipoAnalisisRepository.findAll()
+        return cacheCatalogo.todosLosTiposAnalisis()
                 .stream()
                 .map(TipoAnalisisResponseDto::fromEntity)
                 .collect(Collectors.toList());
@@ -57,7 +69,7 @@ public class TipoAnalisisService {
     @Transactional(readOnly = true)
     public List<TipoAnalisisResponseDto> obtenerTiposAnalisisActivos() {
         log.info("Obteniendo tipos de análisis activos");
-        return tipoAnalisisRepository.findByActivoTrueOrderByNombre()
+        return cacheCatalogo.tiposAnalisisActivos()
                 .stream()
                 .map(TipoAnalisisResponseDto::fromEntity)
                 .collect(Collectors.toList());
@@ -66,7 +78,7 @@ public class TipoAnalisisService {
     @Transactional(readOnly = true)
     public TipoAnalisisResponseDto obtenerTipoAnalisisPorId(Long id) {
         log.info("Buscando tipo de análisis por ID: {}", id);
-        TipoAnalisis tipoAnalisis = tipoAnalisisRepository.findById(id)
+        TipoAnalisis tipoAnalisis = cacheCatalogo.tipoAnalisis(id)
                 .orElseThrow(() -> ResourceNotFoundException.tipoAnalisis(id));
         
         return TipoAnalisisResponseDto.fromEntity(tipoAnalisis);
@@ -91,6 +103,8 @@ public class TipoAnalisisService {
         tipoAnalisis.setRequisitos(request.getRequisitos());
 
         TipoAnalisis tipoActualizado = tipoAnalisisRepository.save(tipoAnalisis);
+        sincronizacionCaches.registrarCambio(SincronizacionCaches.Region.TIPOS_ANALISIS, id);
+        buscadorCatalogo.tipoAnalisisGuardado(tipoActualizado);
         log.info("Tipo de análisis actualizado exitosamente");
         
         return TipoAnalisisResponseDto.fromEntity(tipoActualizado);
@@ -109,6 +123,8 @@ public class TipoAnalisisService {
         }
         
         tipoAnalisisRepository.delete(tipoAnalisis);
+        sincronizacionCaches.registrarCambio(SincronizacionCaches.Region.TIPOS_ANALISIS, id);
+        buscadorCatalogo.tipoAnalisisEliminado(id);
         log.info("Tipo de análisis eliminado exitosamente");
     }
 
@@ -120,6 +136,7 @@ public class TipoAnalisisService {
         
         tipoAnalisis.setActivo(activo);
         TipoAnalisis tipoActualizado = tipoAnalisisRepository.save(tipoAnalisis);
+        sincronizacionCaches.registrarCambio(SincronizacionCaches.Region.TIPOS_ANALISIS, id);
         
         return TipoAnalisisResponseDto.fromEntity(tipoActualizado);
     }
@@ -127,8 +144,11 @@ public class TipoAnalisisService {
     @Transactional(readOnly = true)
     public List<TipoAnalisisResponseDto> buscarTiposAnalisis(String searchTerm) {
         log.info("Buscando tipos de análisis con término: {}", searchTerm);
-        return tipoAnalisisRepository.findByActivoTrueAndSearchTerm(searchTerm)
-                .stream()
+        List<Long> ids = buscadorCatalogo.buscarTiposAnalisis(searchTerm);
+        Map<Long, TipoAnalisis> tipos = cacheCatalogo.tiposAnalisis(ids);
+        return ids.stream()
+                .map(tipos::get)
+                .filter(t -> t != null && t.estaActivo())
                 .map(TipoAnalisisResponseDto::fromEntity)
                 .collect(Collectors.toList());
     }
@@ -136,8 +156,35 @@ public class TipoAnalisisService {
     @Transactional(readOnly = true)
     public List<TipoAnalisisResponseDto> obtenerPorRangoCosto(BigDecimal costoMin, BigDecimal costoMax) {
         log.info("Obteniendo tipos de análisis por rango de costo: {} - {}", costoMin, costoMax);
-        return tipoAnalisisRepository.findByActivoTrueAndCostoBetween(costoMin, costoMax)
-                .stream()
+        return filtrar(costoMin, costoMax, null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TipoAnalisisResponseDto> obtenerPorDuracionMaxima(Integer duracionMaxima) {
+        log.info("Obteniendo tipos de análisis con duración máxima: {}", duracionMaxima);
+        List<Long> ids = new ArrayList<>();
+        indiceRangos.recorrerPorDuracion(duracionMaxima, ids::add);
+        return aRespuestas(ids);
+    }
+
+    // Filtros opcionales combinados sobre los tipos activos, ordenados por costo
+    @Transactional(readOnly = true)
+    public List<TipoAnalisisResponseDto> filtrar(BigDecimal costoMin, BigDecimal costoMax, Integer duracionMaxima) {
+        log.info("Filtrando tipos de análisis: costo {} - {}, duración máxima {}", costoMin, costoMax, duracionMaxima);
+        List<Long> ids = new ArrayList<>();
+        indiceRangos.recorrer(
+                costoMin != null ? IndiceRangosTipoAnalisis.centimos(costoMin, RoundingMode.CEILING) : Long.MIN_VALUE,
+                costoMax != null ? IndiceRangosTipoAnalisis.centimos(costoMax, RoundingMode.FLOOR) : Long.MAX_VALUE,
+                duracionMaxima != null ? duracionMaxima : IndiceRangosTipoAnalisis.SIN_LIMITE_DURACION,
+                ids::add);
+        return aRespuestas(ids);
+    }
+
+    private List<TipoAnalisisResponseDto> aRespuestas(List<Long> ids) {
+        Map<Long, TipoAnalisis> tipos = cacheCatalogo.tiposAnalisis(ids);
+        return ids.stream()
+                .map(tipos::get)
+                .filter(Objects::nonNull)
                 .map(TipoAnalisisResponseDto::fromEntity)
                 .collect(Collectors.toList());
     }
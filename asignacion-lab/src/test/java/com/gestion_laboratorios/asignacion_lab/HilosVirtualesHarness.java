@@ -0,0 +1,222 @@
+package com.gestion_laboratorios.asignacion_lab;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Arnés de carga del modo de hilos virtuales: levanta asignacion-lab embebido sobre H2 con hilos de
+ * plataforma (Tomcat, 200 hilos) y con hilos virtuales (requiere Java 21) y lanza N clientes concurrentes
+ * en bucle cerrado contra un endpoint que consulta la base de datos. Para parecerse a Oracle en red, cada
+ * sentencia JDBC se retrasa latenciaMs mientras retiene la conexión. Informa throughput y percentiles.
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.asignacion_lab.HilosVirtualesHarness
+ *   [-Dexec.args="clientes segundos latenciaMs"]
+ */
+public class HilosVirtualesHarness {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890123456789012345678901234567890";
+
+    static volatile long latenciaMs;
+
+    public static void main(String[] args) throws Exception {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        latenciaMs = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // El cliente abre una conexión HTTP por petición concurrente
+        System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(clientes));
+
+        List<String> resultados = new ArrayList<>();
+        resultados.add(ejecutar("plataforma", false, clientes, segundos));
+        if (Runtime.version().feature() >= 21) {
+            resultados.add(ejecutar("virtuales", true, clientes, segundos));
+        } else {
+            resultados.add(String.format("%-11s requiere Java 21 (JVM actual: %s)", "virtuales", Runtime.version()));
+        }
+        System.out.println();
+        System.out.printf("%d clientes, %d ms por sentencia JDBC%n%-11s %-12s %-8s %-8s %-8s %-8s %s%n",
+                clientes, latenciaMs, "hilos", "peticiones/s", "p50 ms", "p99 ms", "máx ms", "503", "errores");
+        resultados.forEach(System.out::println);
+    }
+
+    private static String ejecutar(String nombre, boolean virtuales, int clientes, int segundos) throws Exception {
+        String[] argumentos = {
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:hilos_" + nombre + ";MODE=Oracle;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--spring.threads.virtual.enabled=" + virtuales,
+                "--server.tomcat.max-connections=" + (clientes + 100),
+                "--server.tomcat.accept-count=" + clientes,
+                "--logging.level.root=WARN",
+                "--logging.level.com.gestion_laboratorios=WARN",
+                "--logging.level.org.springframework.web=WARN"
+        };
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(AsignacionLabApplication.class, LatenciaJdbc.class)
+                .run(argumentos)) {
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/asignaciones/usuario/1"))
+                    .header("Authorization", "Bearer " + token())
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+
+            // Calentamiento breve con pocos clientes
+            carga(http, peticion, Math.min(clientes, 50), 3);
+            Medicion medicion = carga(http, peticion, clientes, segundos);
+
+            List<Long> latencias = new ArrayList<>(medicion.latencias());
+            latencias.sort(null);
+            return String.format("%-11s %-12.0f %-8.1f %-8.1f %-8.1f %-8d %d", nombre,
+                    latencias.size() / medicion.segundos(),
+                    percentil(latencias, 0.50), percentil(latencias, 0.99), percentil(latencias, 1.0),
+                    contar(medicion.estados(), 503), medicion.errores());
+        }
+    }
+
+    private record Medicion(ConcurrentLinkedQueue<Long> latencias, Map<Integer, LongAdder> estados, long errores, double segundos) {
+    }
+
+    // Clientes en bucle cerrado sin un hilo por cliente: cada respuesta encadena la siguiente petición
+    private static Medicion carga(HttpClient http, HttpRequest peticion, int clientes, int segundos) throws Exception {
+        ConcurrentLinkedQueue<Long> latencias = new ConcurrentLinkedQueue<>();
+        Map<Integer, LongAdder> estados = new ConcurrentHashMap<>();
+        LongAdder errores = new LongAdder();
+        long t0 = System.nanoTime();
+        long fin = t0 + Duration.ofSeconds(segundos).toNanos();
+        List<CompletableFuture<Void>> bucles = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            bucles.add(bucle(http, peticion, fin, latencias, estados, errores));
+        }
+        CompletableFuture.allOf(bucles.toArray(CompletableFuture[]::new)).join();
+        return new Medicion(latencias, estados, errores.sum(), (System.nanoTime() - t0) / 1e9);
+    }
+
+    private static CompletableFuture<Void> bucle(HttpClient http, HttpRequest peticion, long fin,
+                                                 ConcurrentLinkedQueue<Long> latencias, Map<Integer, LongAdder> estados,
+                                                 LongAdder errores) {
+        if (System.nanoTime() >= fin) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long inicio = System.nanoTime();
+        return http.sendAsync(peticion, HttpResponse.BodyHandlers.discarding())
+                .handle((respuesta, error) -> {
+                    if (error != null) {
+                        errores.increment();
+                    } else {
+                        estados.computeIfAbsent(respuesta.statusCode(), k -> new LongAdder()).increment();
+                        if (respuesta.statusCode() == 200) {
+                            latencias.add((System.nanoTime() - inicio) / 1000);
+                        }
+                    }
+                    return null;
+                })
+                .thenCompose(ignorado -> bucle(http, peticion, fin, latencias, estados, errores));
+    }
+
+    private static double percentil(List<Long> ordenadas, double percentil) {
+        if (ordenadas.isEmpty()) {
+            return 0;
+        }
+        int posicion = (int) Math.min(ordenadas.size() - 1, Math.max(0, Math.ceil(ordenadas.size() * percentil) - 1));
+        return ordenadas.get(posicion) / 1000.0;
+    }
+
+    private static long contar(Map<Integer, LongAdder> estados, int estado) {
+        LongAdder contador = estados.get(estado);
+        return contador != null ? contador.sum() : 0;
+    }
+
+    private static String token() {
+        return Jwts.builder()
+                .setSubject("harness")
+                .claim("role", "ADMIN")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    /**
+     * Retrasa cada ejecución de sentencia preparada mientras la conexión sigue ocupada, como el viaje de
+     * ida y vuelta a una base de datos remota.
+     */
+    @Configuration
+    static class LatenciaJdbc {
+
+        @Bean
+        static BeanPostProcessor latenciaDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String nombre) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof DelegatingDataSource)) {
+                        return new DelegatingDataSource(dataSource) {
+                            @Override
+                            public Connection getConnection() throws java.sql.SQLException {
+                                return conLatencia(obtainTargetDataSource().getConnection());
+                            }
+                        };
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static Connection conLatencia(Connection conexion) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, metodo, argumentos) -> {
+                        Object resultado = invocar(conexion, metodo, argumentos);
+                        if (resultado instanceof PreparedStatement sentencia) {
+                            return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                                    (p, m, a) -> {
+                                        if (m.getName().startsWith("execute")) {
+                                            Thread.sleep(latenciaMs);
+                                        }
+                                        return invocar(sentencia, m, a);
+                                    });
+                        }
+                        return resultado;
+                    });
+        }
+
+        private static Object invocar(Object destino, java.lang.reflect.Method metodo, Object[] argumentos) throws Throwable {
+            try {
+                return metodo.invoke(destino, argumentos);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
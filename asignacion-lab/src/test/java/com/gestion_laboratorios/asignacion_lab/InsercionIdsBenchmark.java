@@ -0,0 +1,96 @@
+package com.gestion_laboratorios.asignacion_lab;
+
+import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
+import com.gestion_laboratorios.asignacion_lab.repository.LaboratorioRepository;
+import org.h2.tools.Server;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark de inserciones por segundo según el tamaño de bloque de ids (app.ids.tamano-bloque).
+ * Con bloque 1 cada inserción hace un viaje extra a la secuencia; con pooled-lo sólo uno por bloque.
+ * Usa un servidor H2 TCP local para que cada viaje a la base de datos pase por la red.
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.asignacion_lab.InsercionIdsBenchmark
+ *   [-Dexec.args="inserciones loteTransaccion"]
+ */
+public class InsercionIdsBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int inserciones = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int lote = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        Server servidor = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        try {
+            List<String> resultados = new ArrayList<>();
+            for (int tamanoBloque : new int[]{1, 50}) {
+                resultados.add(ejecutar(servidor.getPort(), tamanoBloque, inserciones, lote));
+            }
+            System.out.println();
+            System.out.printf("%-14s %-12s %-14s%n", "tamano-bloque", "inserciones", "inserciones/s");
+            resultados.forEach(System.out::println);
+        } finally {
+            servidor.stop();
+        }
+    }
+
+    private static String ejecutar(int puerto, int tamanoBloque, int inserciones, int lote) {
+        String url = "jdbc:h2:tcp://localhost:" + puerto + "/mem:ids_" + tamanoBloque + ";MODE=Oracle;DB_CLOSE_DELAY=-1";
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(AsignacionLabApplication.class)
+                .run(argumentos(url, tamanoBloque))) {
+            LaboratorioRepository repositorio = contexto.getBean(LaboratorioRepository.class);
+            TransactionTemplate transaccion = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+
+            // Calentamiento
+            insertar(transaccion, repositorio, 0, Math.min(inserciones, 2_000), lote);
+
+            long t0 = System.nanoTime();
+            insertar(transaccion, repositorio, 0, inserciones, lote);
+            double segundos = (System.nanoTime() - t0) / 1e9;
+            return String.format("%-14d %-12d %-14.0f", tamanoBloque, inserciones, inserciones / segundos);
+        }
+    }
+
+    private static void insertar(TransactionTemplate transaccion, LaboratorioRepository repositorio,
+                                 int desde, int hasta, int lote) {
+        for (int i = desde; i < hasta; i += lote) {
+            int inicio = i;
+            int fin = Math.min(hasta, i + lote);
+            transaccion.executeWithoutResult(estado -> {
+                List<Laboratorio> laboratorios = new ArrayList<>(fin - inicio);
+                for (int n = inicio; n < fin; n++) {
+                    laboratorios.add(Laboratorio.builder()
+                            .nombre("Lab " + n)
+                            .ubicacion("Piso " + (n % 10))
+                            .capacidadMaxima(10)
+                            .estado(Laboratorio.EstadoLaboratorio.DISPONIBLE)
+                            .build());
+                }
+                repositorio.saveAll(laboratorios);
+            });
+        }
+    }
+
+    private static String[] argumentos(String url, int tamanoBloque) {
+        return new String[]{
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.gestion_laboratorios=WARN",
+                "--spring.jpa.properties.app.ids.tamano-bloque=" + tamanoBloque
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package com.gestion_laboratorios.asignacion_lab;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.h2.tools.Server;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Arnés de invalidación de cachés entre instancias: levanta dos instancias embebidas contra una misma
+ * base H2, calienta las cachés de la segunda, modifica laboratorio y tipo de análisis desde la primera
+ * y mide cuánto tarda la segunda en ver cada cambio (por id y en los listados cacheados).
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.asignacion_lab.InvalidacionCacheMultiInstanciaHarness
+ *   [-Dexec.args="intervaloSondeoMs"]
+ */
+public class InvalidacionCacheMultiInstanciaHarness {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890123456789012345678901234567890";
+    private static final long ESPERA_MAXIMA_MS = 60_000;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        int intervaloMs = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        Server servidor = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        List<ConfigurableApplicationContext> contextos = new ArrayList<>();
+        try {
+            String url = "jdbc:h2:tcp://localhost:" + servidor.getPort() + "/mem:caches;MODE=Oracle;DB_CLOSE_DELAY=-1";
+            List<String> bases = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                ConfigurableApplicationContext contexto = new SpringApplicationBuilder(AsignacionLabApplication.class)
+                        .run(argumentos(url, i, intervaloMs));
+                contextos.add(contexto);
+                bases.add("http://localhost:" + ((WebServerApplicationContext) contexto).getWebServer().getPort() + "/api");
+            }
+            String escritura = bases.get(0);
+            String lectura = bases.get(1);
+
+            HttpClient http = HttpClient.newHttpClient();
+            String token = token();
+            long laboratorioId = enviar(http, token, "POST", escritura + "/laboratorios",
+                    "{\"nombre\":\"Lab Cache\",\"ubicacion\":\"Piso 1\",\"capacidadMaxima\":10,\"estado\":\"DISPONIBLE\"}").get("id").asLong();
+            long tipoId = enviar(http, token, "POST", escritura + "/tipos-analisis",
+                    "{\"nombre\":\"Hemograma\",\"duracionEstimada\":30,\"costo\":10}").get("id").asLong();
+
+            // Cachés calientes en la instancia de lectura
+            esperar(http, token, lectura + "/laboratorios/" + laboratorioId, n -> "DISPONIBLE".equals(n.path("estado").asText()));
+            esperar(http, token, lectura + "/laboratorios/disponibles", n -> n.size() == 1);
+            esperar(http, token, lectura + "/tipos-analisis/activos", n -> n.size() == 1);
+
+            List<String> resultados = new ArrayList<>();
+            enviar(http, token, "PATCH", escritura + "/laboratorios/" + laboratorioId + "/estado?estado=MANTENIMIENTO", null);
+            long t0 = System.nanoTime();
+            resultados.add(medir("laboratorio por id", t0,
+                    esperar(http, token, lectura + "/laboratorios/" + laboratorioId, n -> "MANTENIMIENTO".equals(n.path("estado").asText()))));
+            resultados.add(medir("laboratorios disponibles", t0,
+                    esperar(http, token, lectura + "/laboratorios/disponibles", n -> n.isEmpty())));
+
+            enviar(http, token, "PATCH", escritura + "/tipos-analisis/" + tipoId + "/estado?activo=false", null);
+            t0 = System.nanoTime();
+            resultados.add(medir("tipo de análisis por id", t0,
+                    esperar(http, token, lectura + "/tipos-analisis/" + tipoId, n -> !n.path("activo").asBoolean())));
+            resultados.add(medir("tipos de análisis activos", t0,
+                    esperar(http, token, lectura + "/tipos-analisis/activos", n -> n.isEmpty())));
+
+            System.out.println();
+            System.out.printf("intervalo de sondeo: %d ms%n", intervaloMs);
+            System.out.printf("%-28s %s%n", "lectura en la otra instancia", "visible tras");
+            resultados.forEach(System.out::println);
+        } finally {
+            contextos.forEach(ConfigurableApplicationContext::close);
+            servidor.stop();
+        }
+    }
+
+    private static String medir(String nombre, long t0, boolean visto) {
+        return String.format("%-28s %s", nombre, visto ? (System.nanoTime() - t0) / 1_000_000 + " ms" : "NO (obsoleto)");
+    }
+
+    // Cada instancia con su propio prefijo de regiones: en una misma JVM comparten el CacheManager de JCache
+    private static String[] argumentos(String url, int instancia, int intervaloMs) {
+        return new String[]{
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=" + (instancia == 0 ? "create" : "none"),
+                "--spring.jpa.properties.hibernate.cache.region_prefix=instancia" + instancia,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.gestion_laboratorios=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--app.cache.invalidacion.intervalo-ms=" + intervaloMs
+        };
+    }
+
+    private static boolean esperar(HttpClient http, String token, String url, Predicate<JsonNode> condicion) throws Exception {
+        long limite = System.currentTimeMillis() + ESPERA_MAXIMA_MS;
+        while (System.currentTimeMillis() < limite) {
+            if (condicion.test(enviar(http, token, "GET", url, null))) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private static JsonNode enviar(HttpClient http, String token, String metodo, String url, String cuerpo) throws Exception {
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .method(metodo, cuerpo != null ? HttpRequest.BodyPublishers.ofString(cuerpo) : HttpRequest.BodyPublishers.noBody())
+                .build();
+        return JSON.readTree(http.send(peticion, HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    private static String token() {
+        return Jwts.builder()
+                .setSubject("harness")
+                .claim("role", "ADMIN")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS512)
+                .compact();
+    }
+}
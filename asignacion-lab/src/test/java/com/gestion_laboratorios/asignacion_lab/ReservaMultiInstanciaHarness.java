@@ -0,0 +1,195 @@
+package com.gestion_laboratorios.asignacion_lab;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.h2.tools.Server;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Arnés de concurrencia multi-instancia: levanta varias instancias embebidas de asignacion-lab
+ * contra una misma base H2 (servidor TCP local), lanza reservas concurrentes repartidas entre
+ * ellas y mide throughput y tasa de doble reserva para cada modo de reserva.
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.asignacion_lab.ReservaMultiInstanciaHarness
+ *   [-Dexec.args="instancias clientes reservasPorCliente"]
+ */
+public class ReservaMultiInstanciaHarness {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890123456789012345678901234567890";
+    private static final int FRANJAS = 16;
+
+    public static void main(String[] args) throws Exception {
+        int instancias = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int clientes = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+        int reservasPorCliente = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        // devtools reinicia el contexto y descarta las propiedades de cada instancia
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        Server servidor = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        try {
+            List<String> resultados = new ArrayList<>();
+            for (String modo : List.of("LOCAL", "CLUSTER")) {
+                resultados.add(ejecutar(servidor.getPort(), modo, instancias, clientes, reservasPorCliente));
+            }
+            System.out.println();
+            System.out.printf("%-8s %-10s %-10s %-10s %-12s %-14s%n",
+                    "modo", "creadas", "rechazos", "errores", "peticiones/s", "dobles reservas");
+            resultados.forEach(System.out::println);
+        } finally {
+            servidor.stop();
+        }
+    }
+
+    private static String ejecutar(int puerto, String modo, int instancias, int clientes, int reservasPorCliente)
+            throws Exception {
+        String url = "jdbc:h2:tcp://localhost:" + puerto + "/mem:reservas_" + modo.toLowerCase()
+                + ";MODE=Oracle;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+        prepararBaseDatos(url);
+
+        List<ConfigurableApplicationContext> contextos = new ArrayList<>();
+        try {
+            List<String> bases = new ArrayList<>();
+            for (int i = 0; i < instancias; i++) {
+                ConfigurableApplicationContext contexto = new SpringApplicationBuilder(AsignacionLabApplication.class)
+                        .run(argumentos(url, modo, i == 0));
+                contextos.add(contexto);
+                int puertoHttp = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+                bases.add("http://localhost:" + puertoHttp + "/api");
+            }
+
+            HttpClient http = HttpClient.newHttpClient();
+            String token = token();
+            enviar(http, token, bases.get(0) + "/laboratorios",
+                    "{\"nombre\":\"Lab Carga\",\"ubicacion\":\"Piso 1\",\"capacidadMaxima\":100000,\"estado\":\"DISPONIBLE\"}");
+            enviar(http, token, bases.get(0) + "/tipos-analisis",
+                    "{\"nombre\":\"Hemograma\",\"duracionEstimada\":30,\"costo\":10}");
+
+            Map<Integer, LongAdder> estados = new ConcurrentHashMap<>();
+            LocalDateTime dia = LocalDateTime.now().plusDays(7).withHour(8).withMinute(0).withSecond(0).withNano(0);
+            CountDownLatch inicio = new CountDownLatch(1);
+            CountDownLatch fin = new CountDownLatch(clientes);
+            for (int c = 0; c < clientes; c++) {
+                int cliente = c;
+                new Thread(() -> {
+                    try {
+                        inicio.await();
+                        for (int r = 0; r < reservasPorCliente; r++) {
+                            ThreadLocalRandom random = ThreadLocalRandom.current();
+                            // Franjas de 30 min con desplazamientos de 10 min para provocar solapamientos parciales
+                            LocalDateTime hora = dia.plusMinutes(30L * random.nextInt(FRANJAS) + 10L * random.nextInt(3));
+                            String cuerpo = "{\"usuarioId\":" + (cliente + 1) + ",\"laboratorioId\":1,\"tipoAnalisisId\":1,"
+                                    + "\"fechaHoraInicio\":\"" + hora + "\"}";
+                            int estado = enviar(http, token, bases.get(random.nextInt(bases.size())) + "/asignaciones", cuerpo);
+                            estados.computeIfAbsent(estado, k -> new LongAdder()).increment();
+                        }
+                    } catch (Exception e) {
+                        estados.computeIfAbsent(-1, k -> new LongAdder()).increment();
+                    } finally {
+                        fin.countDown();
+                    }
+                }).start();
+            }
+
+            long t0 = System.nanoTime();
+            inicio.countDown();
+            fin.await();
+            double segundos = (System.nanoTime() - t0) / 1e9;
+
+            long creadas = contar(estados, 201);
+            long rechazos = contar(estados, 409) + contar(estados, 400);
+            long total = (long) clientes * reservasPorCliente;
+            long dobles = contarDoblesReservas(url);
+            return String.format("%-8s %-10d %-10d %-10d %-12.0f %d (%.1f%%)",
+                    modo, creadas, rechazos, total - creadas - rechazos, total / segundos,
+                    dobles, creadas == 0 ? 0.0 : 100.0 * dobles / creadas);
+        } finally {
+            contextos.forEach(ConfigurableApplicationContext::close);
+        }
+    }
+
+    // Como argumentos de línea de comandos para que prevalezcan sobre application.properties
+    private static String[] argumentos(String url, String modo, boolean crearEsquema) {
+        return new String[]{
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=" + (crearEsquema ? "create" : "none"),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.gestion_laboratorios=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--app.asignaciones.modo-reserva=" + modo
+        };
+    }
+
+    // H2 no tiene la función DATE() que usa el conteo de capacidad
+    private static void prepararBaseDatos(String url) throws Exception {
+        try (Connection conexion = DriverManager.getConnection(url, "sa", "");
+             Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("CREATE ALIAS IF NOT EXISTS \"DATE\" AS "
+                    + "'java.time.LocalDate f(java.time.LocalDateTime t) { return t.toLocalDate(); }'");
+        }
+    }
+
+    private static long contarDoblesReservas(String url) throws Exception {
+        String sql = "SELECT COUNT(*) FROM asignaciones a JOIN asignaciones b "
+                + "ON a.laboratorio_id = b.laboratorio_id AND a.id < b.id "
+                + "AND a.fecha_hora_inicio < b.fecha_hora_fin AND b.fecha_hora_inicio < a.fecha_hora_fin "
+                + "WHERE a.estado IN ('PROGRAMADA', 'EN_PROGRESO') AND b.estado IN ('PROGRAMADA', 'EN_PROGRESO')";
+        try (Connection conexion = DriverManager.getConnection(url, "sa", "");
+             Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery(sql)) {
+            resultado.next();
+            return resultado.getLong(1);
+        }
+    }
+
+    private static int enviar(HttpClient http, String token, String url, String cuerpo) throws Exception {
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+        return http.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static long contar(Map<Integer, LongAdder> estados, int estado) {
+        LongAdder contador = estados.get(estado);
+        return contador != null ? contador.sum() : 0;
+    }
+
+    private static String token() {
+        return Jwts.builder()
+                .setSubject("harness")
+                .claim("role", "ADMIN")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS512)
+                .compact();
+    }
+}
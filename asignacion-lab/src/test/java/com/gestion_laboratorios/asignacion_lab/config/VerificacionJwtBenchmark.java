@@ -0,0 +1,101 @@
+package com.gestion_laboratorios.asignacion_lab.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de autenticar una petición en JwtRequestFilter:
+ * - tresParseos: el camino anterior (validateToken, extractUsername y extractRole), cada uno
+ *   reconstruyendo clave y parser y verificando la firma HS512.
+ * - unParseo: un parseo con el parser precompilado (primer uso de cada token).
+ * - cacheado: JwtTokenUtil.verificar con el token ya en la caché de claims verificados.
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.asignacion_lab.config.VerificacionJwtBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerificacionJwtBenchmark {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890123456789012345678901234567890";
+
+    private String token;
+    private JwtParser parser;
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Setup
+    public void preparar() {
+        token = Jwts.builder()
+                .setSubject("benchmark")
+                .claim("role", "ADMIN")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS512)
+                .compact();
+        parser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build();
+
+        jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenUtil, "tamanoMaximoCache", 10_000);
+        ReflectionTestUtils.setField(jwtTokenUtil, "ttlMaximoSegundos", 300L);
+        jwtTokenUtil.inicializar();
+    }
+
+    @Benchmark
+    public String tresParseos() {
+        Claims validado = parsearConClaveNueva(token);
+        if (validado.getExpiration() != null && !validado.getExpiration().after(new Date())) {
+            return null;
+        }
+        String usuario = parsearConClaveNueva(token).getSubject();
+        String rol = parsearConClaveNueva(token).get("role", String.class);
+        return usuario + rol;
+    }
+
+    @Benchmark
+    public String unParseo() {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        return claims.getSubject() + claims.get("role", String.class);
+    }
+
+    @Benchmark
+    public Optional<TokenVerificado> cacheado() {
+        return jwtTokenUtil.verificar(token);
+    }
+
+    private static Claims parsearConClaveNueva(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(VerificacionJwtBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,142 @@
+package com.gestion_laboratorios.asignacion_lab.controller;
+
+import com.gestion_laboratorios.asignacion_lab.entity.Asignacion;
+import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
+import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import com.gestion_laboratorios.asignacion_lab.repository.AsignacionRepository;
+import com.gestion_laboratorios.asignacion_lab.repository.LaboratorioRepository;
+import com.gestion_laboratorios.asignacion_lab.repository.OcupacionDiariaRepository;
+import com.gestion_laboratorios.asignacion_lab.repository.TipoAnalisisRepository;
+import com.gestion_laboratorios.asignacion_lab.service.ContadorCapacidadDiaria;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PATCH /{id}/iniciar fija la fecha de inicio a la hora actual: la entidad no debe exigir que sea futura
+ * (con @Future en Asignacion la validación al actualizar devolvía 500 en cada inicio), y el contador de
+ * capacidad diaria debe pasar del día programado al día en que empieza.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:iniciar-analisis;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "app.bootstrap.admin.enabled=false"
+})
+@AutoConfigureMockMvc
+class IniciarAnalisisTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AsignacionRepository asignacionRepository;
+
+    @Autowired
+    private LaboratorioRepository laboratorioRepository;
+
+    @Autowired
+    private TipoAnalisisRepository tipoAnalisisRepository;
+
+    @Autowired
+    private OcupacionDiariaRepository ocupacionDiariaRepository;
+
+    @Autowired
+    private ContadorCapacidadDiaria contadorCapacidad;
+
+    @Value("${jwt.secret:mySecretKey123456789012345678901234567890123456789012345678901234567890}")
+    private String secret;
+
+    @Test
+    void iniciarUnaAsignacionProgramadaLaPoneEnProgreso() throws Exception {
+        Long id = programar("en progreso").getId();
+
+        mockMvc.perform(patch("/api/asignaciones/{id}/iniciar", id)
+                        .header("Authorization", "Bearer " + token()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estado").value("EN_PROGRESO"));
+
+        Asignacion iniciada = asignacionRepository.findById(id).orElseThrow();
+        assertThat(iniciada.getEstado()).isEqualTo(Asignacion.EstadoAsignacion.EN_PROGRESO);
+        assertThat(iniciada.getFechaHoraInicio()).isBeforeOrEqualTo(LocalDateTime.now());
+    }
+
+    @Test
+    void iniciarOtroDiaMueveElContadorDeCapacidad() throws Exception {
+        Asignacion asignacion = programar("contador");
+        Long laboratorioId = asignacion.getLaboratorio().getId();
+        LocalDate diaProgramado = asignacion.getFechaHoraInicio().toLocalDate();
+        // Las asignaciones se siembran sin pasar por el servicio: la reparación crea sus contadores
+        contadorCapacidad.verificarConsistencia(true);
+        assertThat(ocupacionDiariaRepository.findTotal(laboratorioId, diaProgramado)).hasValue(1L);
+
+        mockMvc.perform(patch("/api/asignaciones/{id}/iniciar", asignacion.getId())
+                        .header("Authorization", "Bearer " + token()))
+                .andExpect(status().isOk());
+
+        LocalDate diaInicio = asignacionRepository.findById(asignacion.getId()).orElseThrow()
+                .getFechaHoraInicio().toLocalDate();
+        assertThat(ocupacionDiariaRepository.findTotal(laboratorioId, diaProgramado).orElse(0L)).isZero();
+        assertThat(ocupacionDiariaRepository.findTotal(laboratorioId, diaInicio)).hasValue(1L);
+        assertThat(contadorCapacidad.asignacionesDelDia(laboratorioId, diaProgramado)).isZero();
+        assertThat(contadorCapacidad.asignacionesDelDia(laboratorioId, diaInicio)).isEqualTo(1);
+        assertThat(contadorCapacidad.verificarConsistencia(false).isConsistente()).isTrue();
+    }
+
+    private Asignacion programar(String nombre) {
+        Laboratorio laboratorio = laboratorioRepository.save(Laboratorio.builder()
+                .nombre("Laboratorio " + nombre)
+                .ubicacion("Piso 1")
+                .capacidadMaxima(10)
+                .estado(Laboratorio.EstadoLaboratorio.DISPONIBLE)
+                .build());
+        TipoAnalisis tipo = tipoAnalisisRepository.save(TipoAnalisis.builder()
+                .nombre("Análisis " + nombre)
+                .duracionEstimada(30)
+                .costo(BigDecimal.TEN)
+                .build());
+        LocalDateTime inicio = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        return asignacionRepository.save(Asignacion.builder()
+                .usuarioId(1L)
+                .nombrePaciente("Paciente " + nombre)
+                .laboratorio(laboratorio)
+                .tipoAnalisis(tipo)
+                .fechaHoraInicio(inicio)
+                .fechaHoraFin(inicio.plusMinutes(30))
+                .estado(Asignacion.EstadoAsignacion.PROGRAMADA)
+                .build());
+    }
+
+    private String token() {
+        Instant ahora = Instant.now();
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject("medico")
+                .claim("role", "MEDICO")
+                .setIssuedAt(Date.from(ahora))
+                .setExpiration(Date.from(ahora.plus(10, ChronoUnit.MINUTES)))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()))
+                .compact();
+    }
+}
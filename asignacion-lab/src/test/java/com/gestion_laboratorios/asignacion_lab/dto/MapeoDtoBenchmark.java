@@ -0,0 +1,122 @@
+package com.gestion_laboratorios.asignacion_lab.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestion_laboratorios.asignacion_lab.entity.Asignacion;
+import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
+import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de construir la respuesta de los listados:
+ * - asignacion / laboratorio: fromEntity de una entidad (la asignación incluye laboratorio y tipo).
+ * - mapearListado: fromEntity de un listado de 'filas' asignaciones.
+ * - serializarListado: Jackson de ese listado ya mapeado, con el ObjectMapper que configura Spring Boot
+ *   (fechas ISO-8601 con JavaTimeModule).
+ *
+ * Ejecutar: mvn -P benchmarks -DskipTests test -Dbenchmark.incluir=MapeoDtoBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapeoDtoBenchmark {
+
+    @Param({"100", "1000"})
+    private int filas;
+
+    private Laboratorio laboratorio;
+    private List<Asignacion> asignaciones;
+    private List<AsignacionResponseDto> respuestas;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void preparar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        laboratorio = Laboratorio.builder()
+                .id(1L)
+                .nombre("Laboratorio de Hematología")
+                .descripcion("Análisis de sangre y hemogramas")
+                .ubicacion("Edificio Norte, planta 2")
+                .capacidadMaxima(40)
+                .estado(Laboratorio.EstadoLaboratorio.DISPONIBLE)
+                .equipamiento("centrífuga, analizador hematológico")
+                .fechaCreacion(ahora)
+                .fechaActualizacion(ahora)
+                .build();
+        TipoAnalisis tipoAnalisis = TipoAnalisis.builder()
+                .id(1L)
+                .nombre("Hemograma completo")
+                .descripcion("Recuento de células sanguíneas")
+                .duracionEstimada(30)
+                .costo(new BigDecimal("25.50"))
+                .activo(true)
+                .fechaCreacion(ahora)
+                .build();
+        asignaciones = new ArrayList<>(filas);
+        for (long id = 1; id <= filas; id++) {
+            LocalDateTime inicio = ahora.plusMinutes(30 * id);
+            asignaciones.add(Asignacion.builder()
+                    .id(id)
+                    .usuarioId(id % 50)
+                    .nombrePaciente("Paciente " + id)
+                    .laboratorio(laboratorio)
+                    .tipoAnalisis(tipoAnalisis)
+                    .fechaHoraInicio(inicio)
+                    .fechaHoraFin(inicio.plusMinutes(30))
+                    .estado(Asignacion.EstadoAsignacion.PROGRAMADA)
+                    .observaciones("En ayunas")
+                    .fechaCreacion(ahora)
+                    .fechaActualizacion(ahora)
+                    .build());
+        }
+        respuestas = mapearListado();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public AsignacionResponseDto asignacion() {
+        return AsignacionResponseDto.fromEntity(asignaciones.get(0), 12);
+    }
+
+    @Benchmark
+    public LaboratorioResponseDto laboratorio() {
+        return LaboratorioResponseDto.fromEntity(laboratorio, 12);
+    }
+
+    @Benchmark
+    public List<AsignacionResponseDto> mapearListado() {
+        return asignaciones.stream()
+                .map(a -> AsignacionResponseDto.fromEntity(a, 12))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializarListado() throws Exception {
+        return objectMapper.writeValueAsBytes(respuestas);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MapeoDtoBenchmark.class.getSimpleName()).build()).run();
+    }
+}
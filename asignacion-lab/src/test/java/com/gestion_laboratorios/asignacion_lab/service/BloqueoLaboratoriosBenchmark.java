@@ -0,0 +1,87 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmark de contención de BloqueoLaboratorios: N hilos reservan sobre K laboratorios
+ * simulando la sección crítica verificar-insertar-commit con una espera de E/S fija.
+ * El throughput debe escalar con K hasta saturar los hilos.
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.asignacion_lab.service.BloqueoLaboratoriosBenchmark
+ */
+public class BloqueoLaboratoriosBenchmark {
+
+    private static final int HILOS = 32;
+    private static final long DURACION_MS = 2_000;
+    private static final long SECCION_CRITICA_MICROS = 500;
+
+    public static void main(String[] args) throws Exception {
+        BloqueoLaboratorios bloqueo = new BloqueoLaboratorios(1024, 5_000);
+        LocalDateTime dia = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0);
+
+        System.out.printf("%-14s %-14s %-12s%n", "laboratorios", "reservas/s", "speedup");
+        double base = 0;
+        for (int laboratorios : new int[]{1, 2, 4, 8, 16, 32, 64}) {
+            double throughput = medir(bloqueo, laboratorios, dia);
+            if (base == 0) {
+                base = throughput;
+            }
+            System.out.printf("%-14d %-14.0f %-12.2f%n", laboratorios, throughput, throughput / base);
+        }
+    }
+
+    private static double medir(BloqueoLaboratorios bloqueo, int laboratorios, LocalDateTime dia) throws InterruptedException {
+        LongAdder reservas = new LongAdder();
+        CountDownLatch inicio = new CountDownLatch(1);
+        CountDownLatch fin = new CountDownLatch(HILOS);
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURACION_MS);
+
+        for (int h = 0; h < HILOS; h++) {
+            Thread hilo = new Thread(() -> {
+                try {
+                    inicio.await();
+                    while (System.nanoTime() < limite) {
+                        long laboratorioId = ThreadLocalRandom.current().nextInt(laboratorios) + 1;
+                        reservar(bloqueo, laboratorioId, dia);
+                        reservas.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    fin.countDown();
+                }
+            });
+            hilo.start();
+        }
+
+        long t0 = System.nanoTime();
+        inicio.countDown();
+        fin.await();
+        double segundos = (System.nanoTime() - t0) / 1e9;
+        return reservas.sum() / segundos;
+    }
+
+    // Simula una transacción: bloquear, trabajo en la sección crítica, commit
+    private static void reservar(BloqueoLaboratorios bloqueo, long laboratorioId, LocalDateTime inicio) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bloqueo.bloquear(laboratorioId, inicio, inicio.plusMinutes(30));
+            // La sección crítica real espera a Oracle, no consume CPU
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(SECCION_CRITICA_MICROS));
+            for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+                sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
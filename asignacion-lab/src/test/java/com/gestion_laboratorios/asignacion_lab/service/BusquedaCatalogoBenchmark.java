@@ -0,0 +1,50 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark de latencia del índice de texto del catálogo: indexa laboratorios generados con nombre,
+ * ubicación y equipamiento y mide la búsqueda de términos exactos, por prefijo y con errores de tecleo.
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.asignacion_lab.service.BusquedaCatalogoBenchmark
+ *   [-Dexec.args="documentos"]
+ */
+public class BusquedaCatalogoBenchmark {
+
+    private static final String[] AREAS = {"Hematología", "Bioquímica", "Microbiología", "Inmunología", "Genética",
+            "Citología", "Toxicología", "Endocrinología", "Parasitología", "Virología"};
+    private static final String[] SEDES = {"Edificio Norte", "Edificio Sur", "Pabellón Central", "Anexo Médico", "Torre Clínica"};
+    private static final String[] EQUIPOS = {"centrífuga", "espectrofotómetro", "microscopio", "citómetro", "termociclador",
+            "autoclave", "incubadora", "cromatógrafo", "analizador hematológico", "secuenciador"};
+    private static final String[] TERMINOS = {"hematologia", "micro", "microbiolgia", "pabellon central", "citometro sur",
+            "termocicaldor", "xyz"};
+    private static final int REPETICIONES = 20_000;
+
+    public static void main(String[] args) {
+        int documentos = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        Random aleatorio = new Random(7);
+        IndiceTexto indice = new IndiceTexto();
+        for (int id = 1; id <= documentos; id++) {
+            indice.agregar(id, List.of(
+                    new IndiceTexto.Campo("Laboratorio de " + AREAS[aleatorio.nextInt(AREAS.length)] + " " + id, 3.0),
+                    new IndiceTexto.Campo(SEDES[aleatorio.nextInt(SEDES.length)] + ", planta " + aleatorio.nextInt(6), 1.5),
+                    new IndiceTexto.Campo(EQUIPOS[aleatorio.nextInt(EQUIPOS.length)] + ", " + EQUIPOS[aleatorio.nextInt(EQUIPOS.length)], 1.0)));
+        }
+
+        System.out.printf("%d documentos%n%-20s %-12s %-12s%n", documentos, "término", "µs/consulta", "resultados");
+        for (String termino : TERMINOS) {
+            int resultados = 0;
+            for (int i = 0; i < REPETICIONES; i++) {
+                resultados = indice.buscar(termino).size();
+            }
+            long t0 = System.nanoTime();
+            for (int i = 0; i < REPETICIONES; i++) {
+                resultados = indice.buscar(termino).size();
+            }
+            double micros = (System.nanoTime() - t0) / 1e3 / REPETICIONES;
+            System.out.printf("%-20s %-12.1f %-12d%n", termino, micros, resultados);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * Benchmark de búsqueda por paciente: LOWER(nombre_paciente) LIKE '%término%' sobre H2 en memoria frente
+ * al índice de trigramas, con nombres en español generados (con y sin tildes). Para cada término muestra
+ * la latencia media de ambos y cuántas coincidencias encuentra cada uno: LIKE no encuentra "Muñoz" al
+ * buscar "munoz".
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.asignacion_lab.service.BusquedaPacienteBenchmark
+ *   [-Dexec.args="filas"]
+ */
+public class BusquedaPacienteBenchmark {
+
+    private static final String[] NOMBRES = {"José", "María", "Jesús", "Ángela", "Inés", "Raúl", "Álvaro", "Sofía",
+            "Lucía", "Martín", "Andrés", "Begoña", "Iñaki", "Nuria", "Carlos", "Elena", "Pablo", "Marta", "Javier", "Rocío"};
+    private static final String[] APELLIDOS = {"García", "Muñoz", "Pérez", "Martínez", "Sánchez", "Gómez", "Fernández",
+            "López", "Díaz", "Hernández", "Jiménez", "Ruiz", "Álvarez", "Romero", "Navarro", "Torres", "Domínguez",
+            "Vázquez", "Ramos", "Gil", "Serrano", "Blanco", "Castaño", "Ibáñez", "Peña", "Cortés", "Núñez", "Rubio"};
+    private static final String[] TERMINOS = {"munoz", "Muñoz", "jose garcia", "ibanez", "peña", "inaki", "ez", "xyz"};
+    private static final int MAXIMO = 1000;
+    private static final int REPETICIONES = 5;
+
+    public static void main(String[] args) throws Exception {
+        int filas = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random aleatorio = new Random(42);
+        IndiceTrigramas indice = new IndiceTrigramas();
+
+        try (Connection conexion = DriverManager.getConnection("jdbc:h2:mem:pacientes;MODE=Oracle", "sa", "")) {
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.execute("CREATE TABLE asignaciones (id BIGINT PRIMARY KEY, nombre_paciente VARCHAR(200))");
+            }
+            long t0 = System.nanoTime();
+            try (PreparedStatement insercion = conexion.prepareStatement("INSERT INTO asignaciones VALUES (?, ?)")) {
+                for (int id = 1; id <= filas; id++) {
+                    String nombre = nombre(aleatorio);
+                    insercion.setLong(1, id);
+                    insercion.setString(2, nombre);
+                    insercion.addBatch();
+                    if (id % 10_000 == 0) {
+                        insercion.executeBatch();
+                    }
+                }
+                insercion.executeBatch();
+            }
+            System.out.printf("%d filas insertadas en %d ms%n", filas, (System.nanoTime() - t0) / 1_000_000);
+
+            t0 = System.nanoTime();
+            try (Statement sentencia = conexion.createStatement();
+                 ResultSet rs = sentencia.executeQuery("SELECT id, nombre_paciente FROM asignaciones")) {
+                while (rs.next()) {
+                    indice.agregar(rs.getLong(1), rs.getString(2));
+                }
+            }
+            long memoria = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+            System.out.printf("índice cargado en %d ms (heap usado tras la carga: %d MB)%n%n",
+                    (System.nanoTime() - t0) / 1_000_000, memoria / (1024 * 1024));
+
+            System.out.printf("%-14s %-12s %-12s %-14s %-14s%n", "término", "LIKE ms", "índice ms", "LIKE filas", "índice filas");
+            try (PreparedStatement like = conexion.prepareStatement(
+                    "SELECT COUNT(*) FROM asignaciones WHERE LOWER(nombre_paciente) LIKE LOWER(CONCAT('%', ?, '%'))")) {
+                for (String termino : TERMINOS) {
+                    like.setString(1, termino);
+                    long coincidenciasLike = 0;
+                    long likeNanos = 0;
+                    for (int r = 0; r <= REPETICIONES; r++) {
+                        long inicio = System.nanoTime();
+                        try (ResultSet rs = like.executeQuery()) {
+                            rs.next();
+                            coincidenciasLike = rs.getLong(1);
+                        }
+                        // La primera vuelta es calentamiento
+                        likeNanos += r == 0 ? 0 : System.nanoTime() - inicio;
+                    }
+
+                    int coincidenciasIndice = 0;
+                    long indiceNanos = 0;
+                    for (int r = 0; r <= REPETICIONES; r++) {
+                        long inicio = System.nanoTime();
+                        coincidenciasIndice = indice.buscar(termino, MAXIMO).total();
+                        indiceNanos += r == 0 ? 0 : System.nanoTime() - inicio;
+                    }
+
+                    System.out.printf("%-14s %-12.2f %-12.2f %-14d %-14d%n", termino,
+                            likeNanos / 1e6 / REPETICIONES, indiceNanos / 1e6 / REPETICIONES, coincidenciasLike, coincidenciasIndice);
+                }
+            }
+        }
+    }
+
+    // La mitad de los nombres se escriben sin tildes, como suelen llegar desde formularios antiguos
+    private static String nombre(Random aleatorio) {
+        String nombre = NOMBRES[aleatorio.nextInt(NOMBRES.length)] + " "
+                + APELLIDOS[aleatorio.nextInt(APELLIDOS.length)] + " "
+                + APELLIDOS[aleatorio.nextInt(APELLIDOS.length)];
+        return aleatorio.nextBoolean() ? IndiceTrigramas.normalizar(nombre) : nombre;
+    }
+}
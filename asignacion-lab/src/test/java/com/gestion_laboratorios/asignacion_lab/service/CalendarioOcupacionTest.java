@@ -0,0 +1,123 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.dto.DisponibilidadLaboratorioDto.HuecoLibre;
+import com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Bordes de las franjas de 5 minutos del calendario de ocupación y huecos que cruzan la medianoche.
+ */
+class CalendarioOcupacionTest {
+
+    private static final LocalDate DIA = LocalDate.of(2030, 3, 4);
+
+    @Test
+    void marcaTodaFranjaTocadaAunqueSeaParcialmente() {
+        CalendarioOcupacion calendario = new CalendarioOcupacion();
+        calendario.marcar(hora(10, 2), hora(10, 7));
+
+        assertThat(huecos(calendario, hora(9, 55), hora(10, 20), 5))
+                .containsExactly(tuple(hora(9, 55), hora(10, 0)), tuple(hora(10, 10), hora(10, 20)));
+    }
+
+    @Test
+    void unaFranjaQueTerminaEnElBordeNoOcupaLaSiguiente() {
+        CalendarioOcupacion calendario = new CalendarioOcupacion();
+        calendario.marcar(hora(10, 0), hora(10, 30));
+
+        assertThat(huecos(calendario, hora(10, 0), hora(11, 0), 30))
+                .containsExactly(tuple(hora(10, 30), hora(11, 0)));
+    }
+
+    @Test
+    void segundosSueltosOcupanLaFranjaSiguiente() {
+        CalendarioOcupacion calendario = new CalendarioOcupacion();
+        calendario.marcar(hora(10, 0), hora(10, 30).plusSeconds(1));
+
+        assertThat(huecos(calendario, hora(10, 0), hora(11, 0), 5))
+                .containsExactly(tuple(hora(10, 35), hora(11, 0)));
+    }
+
+    @Test
+    void losLimitesDeLaConsultaSeAjustanHaciaDentro() {
+        CalendarioOcupacion calendario = new CalendarioOcupacion();
+
+        assertThat(huecos(calendario, hora(10, 3), hora(10, 58), 5))
+                .containsExactly(tuple(hora(10, 5), hora(10, 55)));
+    }
+
+    @Test
+    void descartaHuecosMasCortosQueLaDuracion() {
+        CalendarioOcupacion calendario = new CalendarioOcupacion();
+        calendario.marcar(hora(10, 0), hora(10, 30));
+        calendario.marcar(hora(10, 50), hora(11, 0));
+
+        assertThat(huecos(calendario, hora(10, 0), hora(12, 0), 21))
+                .containsExactly(tuple(hora(11, 0), hora(12, 0)));
+        assertThat(calendario.primerHueco(hora(10, 0), hora(12, 0), 20))
+                .hasValue(HuecoLibre.de(hora(10, 30), hora(10, 50)));
+    }
+
+    @Test
+    void unHuecoLibreCruzaLaMedianoche() {
+        CalendarioOcupacion calendario = new CalendarioOcupacion();
+        calendario.marcar(hora(8, 0), hora(22, 0));
+        calendario.marcar(DIA.plusDays(1).atTime(2, 0), DIA.plusDays(1).atTime(10, 0));
+
+        assertThat(calendario.primerHueco(hora(8, 0), DIA.plusDays(2).atStartOfDay(), 180))
+                .hasValue(HuecoLibre.de(hora(22, 0), DIA.plusDays(1).atTime(2, 0)));
+    }
+
+    @Test
+    void unaFranjaOcupadaCruzaLaMedianocheYSeDesmarcaEntera() {
+        CalendarioOcupacion calendario = new CalendarioOcupacion();
+        calendario.marcar(hora(23, 0), DIA.plusDays(1).atTime(1, 0));
+
+        assertThat(huecos(calendario, hora(22, 0), DIA.plusDays(1).atTime(2, 0), 5))
+                .containsExactly(tuple(hora(22, 0), hora(23, 0)),
+                        tuple(DIA.plusDays(1).atTime(1, 0), DIA.plusDays(1).atTime(2, 0)));
+
+        calendario.desmarcar(hora(23, 0), DIA.plusDays(1).atTime(1, 0));
+        assertThat(huecos(calendario, hora(22, 0), DIA.plusDays(1).atTime(2, 0), 5))
+                .containsExactly(tuple(hora(22, 0), DIA.plusDays(1).atTime(2, 0)));
+    }
+
+    @Test
+    void desdeIntervalosReunidosDeLaBaseDeDatos() {
+        CalendarioOcupacion calendario = CalendarioOcupacion.de(List.of(
+                new IntervaloOcupado(1L, 1L, hora(9, 0), hora(9, 30)),
+                new IntervaloOcupado(2L, 1L, hora(9, 20), hora(10, 0)),
+                new IntervaloOcupado(3L, 1L, hora(11, 0), null)));
+
+        assertThat(huecos(calendario, hora(9, 0), hora(13, 0), 30))
+                .containsExactly(tuple(hora(10, 0), hora(11, 0)), tuple(hora(12, 0), hora(13, 0)));
+    }
+
+    @Test
+    void sinHuecoDevuelveVacio() {
+        CalendarioOcupacion calendario = new CalendarioOcupacion();
+        calendario.marcar(hora(9, 0), hora(12, 0));
+
+        assertThat(calendario.primerHueco(hora(9, 0), hora(12, 0), 5)).isEmpty();
+        assertThat(calendario.huecos(hora(9, 0), hora(12, 0), 5)).isEmpty();
+    }
+
+    private static List<Tuple> huecos(CalendarioOcupacion calendario,
+                                    LocalDateTime desde, LocalDateTime hasta, int minutos) {
+        return calendario.huecos(desde, hasta, minutos).stream()
+                .map(hueco -> tuple(hueco.getInicio(), hueco.getFin()))
+                .toList();
+    }
+
+    private static LocalDateTime hora(int hora, int minuto) {
+        return DIA.atTime(hora, minuto);
+    }
+}
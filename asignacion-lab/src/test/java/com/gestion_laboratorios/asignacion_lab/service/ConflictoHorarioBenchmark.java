@@ -0,0 +1,86 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificación de conflictos de horario de crearAsignacion en modo LOCAL, sobre IndiceAgendaLaboratorio
+ * con 'franjas' asignaciones de 30 minutos por laboratorio en 20 laboratorios:
+ * - libre: la franja pedida cae en un hueco (recorre los candidatos sin encontrar solapamiento).
+ * - ocupada: la franja solapa una asignación existente.
+ * - propia: al editar, la única franja solapada es la de la propia asignación y se excluye.
+ *
+ * Ejecutar: mvn -P benchmarks -DskipTests test -Dbenchmark.incluir=ConflictoHorarioBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConflictoHorarioBenchmark {
+
+    private static final long LABORATORIOS = 20;
+
+    @Param({"100", "10000"})
+    private int franjas;
+
+    private IndiceAgendaLaboratorio indice;
+    private LocalDateTime base;
+    private LocalDateTime huecoInicio;
+    private LocalDateTime ocupadaInicio;
+    private long asignacionOcupada;
+
+    @Setup
+    public void preparar() {
+        indice = new IndiceAgendaLaboratorio(null, new BloqueoLaboratorios(1024, 5_000));
+        base = LocalDateTime.of(2030, 1, 7, 8, 0);
+        long id = 1;
+        for (long laboratorio = 1; laboratorio <= LABORATORIOS; laboratorio++) {
+            // Franjas de 30 minutos separadas por huecos de 15
+            for (int i = 0; i < franjas; i++) {
+                LocalDateTime inicio = base.plusMinutes(45L * i);
+                indice.registrar(new IntervaloOcupado(id++, laboratorio, inicio, inicio.plusMinutes(30)));
+            }
+        }
+        int mitad = franjas / 2;
+        huecoInicio = base.plusMinutes(45L * mitad + 30);
+        ocupadaInicio = base.plusMinutes(45L * mitad + 10);
+        // Asignación que ocupa esa franja en el laboratorio 7
+        asignacionOcupada = 6L * franjas + mitad + 1;
+    }
+
+    @Benchmark
+    public boolean libre() {
+        return indice.hayConflicto(7L, huecoInicio, huecoInicio.plusMinutes(15), null);
+    }
+
+    @Benchmark
+    public boolean ocupada() {
+        return indice.hayConflicto(7L, ocupadaInicio, ocupadaInicio.plusMinutes(15), null);
+    }
+
+    @Benchmark
+    public boolean propia() {
+        return indice.hayConflicto(7L, ocupadaInicio, ocupadaInicio.plusMinutes(15), asignacionOcupada);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ConflictoHorarioBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,131 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.entity.Asignacion;
+import com.gestion_laboratorios.asignacion_lab.entity.Laboratorio;
+import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import com.gestion_laboratorios.asignacion_lab.repository.AsignacionRepository;
+import com.gestion_laboratorios.asignacion_lab.repository.LaboratorioRepository;
+import com.gestion_laboratorios.asignacion_lab.repository.TipoAnalisisRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba que los listados no cargan laboratorio y tipo de análisis fila a fila (N+1):
+ * el número de sentencias SQL de cada consulta no debe variar con el número de asignaciones.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:consultas-sql;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.bootstrap.admin.enabled=false"
+})
+class ConsultasAsignacionesSqlTest {
+
+    private static final LocalDate DIA = LocalDate.now().plusDays(7);
+    private static final int FILAS_POR_LABORATORIO = 5;
+
+    @Autowired
+    private AsignacionService asignacionService;
+
+    @Autowired
+    private LaboratorioService laboratorioService;
+
+    @Autowired
+    private AsignacionRepository asignacionRepository;
+
+    @Autowired
+    private LaboratorioRepository laboratorioRepository;
+
+    @Autowired
+    private TipoAnalisisRepository tipoAnalisisRepository;
+
+    @Autowired
+    private SincronizacionCaches sincronizacionCaches;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void sentenciasPorListadoNoCrecenConLasFilas() {
+        Long laboratorioId = sembrar(0, 10);
+        Map<String, Long> conPocasFilas = sentenciasPorConsulta(laboratorioId);
+        sembrar(10, 60);
+        Map<String, Long> conMasFilas = sentenciasPorConsulta(laboratorioId);
+
+        assertThat(conMasFilas).isEqualTo(conPocasFilas);
+    }
+
+    // Un laboratorio y un tipo de análisis distintos cada pocas filas, para que una carga perezosa por fila se note
+    private Long sembrar(int desde, int hasta) {
+        List<Asignacion> asignaciones = new ArrayList<>();
+        Laboratorio laboratorio = null;
+        TipoAnalisis tipo = null;
+        for (int i = desde; i < hasta; i++) {
+            if (i % FILAS_POR_LABORATORIO == 0) {
+                laboratorio = laboratorioRepository.save(Laboratorio.builder()
+                        .nombre("Laboratorio " + i)
+                        .ubicacion("Piso " + i)
+                        .capacidadMaxima(500)
+                        .estado(Laboratorio.EstadoLaboratorio.DISPONIBLE)
+                        .build());
+                tipo = tipoAnalisisRepository.save(TipoAnalisis.builder()
+                        .nombre("Análisis " + i)
+                        .duracionEstimada(10)
+                        .costo(BigDecimal.TEN)
+                        .build());
+            }
+            LocalDateTime inicio = DIA.atTime(6, 0).plusMinutes(15L * i);
+            asignaciones.add(Asignacion.builder()
+                    .usuarioId(1L)
+                    .nombrePaciente("Paciente " + i)
+                    .laboratorio(laboratorio)
+                    .tipoAnalisis(tipo)
+                    .fechaHoraInicio(inicio)
+                    .fechaHoraFin(inicio.plusMinutes(10))
+                    .estado(Asignacion.EstadoAsignacion.PROGRAMADA)
+                    .build());
+        }
+        asignacionRepository.saveAll(asignaciones);
+        return asignaciones.get(0).getLaboratorio().getId();
+    }
+
+    // Con las cachés de catálogo y de segundo nivel vacías, para comparar las mismas consultas en ambas mediciones
+    private Map<String, Long> sentenciasPorConsulta(Long laboratorioId) {
+        sincronizacionCaches.invalidarTodoLocal();
+        Map<String, Long> sentencias = new LinkedHashMap<>();
+        sentencias.put("todas", contar(asignacionService::obtenerTodasLasAsignaciones));
+        sentencias.put("pagina", contar(() -> asignacionService.obtenerPaginaAsignaciones(null, 200)));
+        sentencias.put("usuario", contar(() -> asignacionService.obtenerAsignacionesPorUsuario(1L)));
+        sentencias.put("laboratorio", contar(() -> asignacionService.obtenerAsignacionesPorLaboratorio(laboratorioId)));
+        sentencias.put("fecha", contar(() -> asignacionService.obtenerAsignacionesPorFecha(DIA)));
+        sentencias.put("estado", contar(() -> asignacionService.obtenerAsignacionesPorEstado(Asignacion.EstadoAsignacion.PROGRAMADA)));
+        sentencias.put("paciente", contar(() -> asignacionService.buscarPorPaciente("paciente")));
+        sentencias.put("laboratorios", contar(laboratorioService::obtenerTodosLosLaboratorios));
+        return sentencias;
+    }
+
+    private long contar(Runnable consulta) {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        consulta.run();
+        return estadisticas.getPrepareStatementCount();
+    }
+}
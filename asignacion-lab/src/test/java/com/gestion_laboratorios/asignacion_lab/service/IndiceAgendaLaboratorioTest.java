@@ -0,0 +1,151 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.dto.ConsistenciaAgendaDto;
+import com.gestion_laboratorios.asignacion_lab.dto.DisponibilidadLaboratorioDto.HuecoLibre;
+import com.gestion_laboratorios.asignacion_lab.dto.IntervaloOcupado;
+import com.gestion_laboratorios.asignacion_lab.repository.AsignacionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Solapamientos del índice de agenda, compensación de los cambios de una transacción revertida
+ * y comparación con la base de datos.
+ */
+class IndiceAgendaLaboratorioTest {
+
+    private static final LocalDate DIA = LocalDate.of(2030, 3, 4);
+    private static final Long LABORATORIO = 1L;
+
+    private final AsignacionRepository asignacionRepository = mock(AsignacionRepository.class);
+    private final IndiceAgendaLaboratorio indice =
+            new IndiceAgendaLaboratorio(asignacionRepository, new BloqueoLaboratorios(16, 1_000));
+
+    @AfterEach
+    void limpiarSincronizacion() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void detectaSolapamientosConFranjasSemiabiertas() {
+        indice.registrar(franja(1L, LABORATORIO, 10, 0, 30));
+
+        assertThat(indice.hayConflicto(LABORATORIO, hora(10, 15), hora(10, 45), null)).isTrue();
+        assertThat(indice.hayConflicto(LABORATORIO, hora(9, 30), hora(10, 1), null)).isTrue();
+        assertThat(indice.hayConflicto(LABORATORIO, hora(10, 30), hora(11, 0), null)).isFalse();
+        assertThat(indice.hayConflicto(LABORATORIO, hora(9, 0), hora(10, 0), null)).isFalse();
+        assertThat(indice.hayConflicto(2L, hora(10, 0), hora(10, 30), null)).isFalse();
+    }
+
+    @Test
+    void excluyeLaPropiaAsignacion() {
+        indice.registrar(franja(1L, LABORATORIO, 10, 0, 30));
+
+        assertThat(indice.hayConflicto(LABORATORIO, hora(10, 0), hora(10, 30), 1L)).isFalse();
+        assertThat(indice.hayConflicto(LABORATORIO, hora(10, 0), hora(10, 30), 2L)).isTrue();
+    }
+
+    @Test
+    void encuentraFranjasLargasQueEmpiezanMuchoAntes() {
+        indice.registrar(franja(1L, LABORATORIO, 8, 0, 240));
+        indice.registrar(franja(2L, LABORATORIO, 11, 30, 15));
+
+        assertThat(indice.hayConflicto(LABORATORIO, hora(11, 50), hora(11, 55), null)).isTrue();
+        assertThat(indice.intervalosEntre(LABORATORIO, hora(11, 40), hora(11, 50)))
+                .extracting(IntervaloOcupado::asignacionId)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void moverUnaFranjaLiberaLaAnterior() {
+        indice.registrar(franja(1L, LABORATORIO, 10, 0, 30));
+        indice.registrar(franja(1L, 2L, 12, 0, 30));
+
+        assertThat(indice.hayConflicto(LABORATORIO, hora(10, 0), hora(10, 30), null)).isFalse();
+        assertThat(indice.hayConflicto(2L, hora(12, 0), hora(12, 30), null)).isTrue();
+        assertThat(indice.totalIntervalos()).isEqualTo(1);
+    }
+
+    @Test
+    void revierteLosCambiosSiLaTransaccionHaceRollback() {
+        IntervaloOcupado movida = franja(1L, LABORATORIO, 10, 0, 30);
+        IntervaloOcupado liberada = franja(2L, LABORATORIO, 11, 0, 30);
+        indice.registrar(movida);
+        indice.registrar(liberada);
+
+        TransactionSynchronizationManager.initSynchronization();
+        indice.registrar(franja(1L, LABORATORIO, 14, 0, 30));
+        indice.liberar(2L);
+        indice.registrar(franja(3L, LABORATORIO, 16, 0, 30));
+        completar(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(indice.intervalosEntre(LABORATORIO, DIA.atStartOfDay(), DIA.plusDays(1).atStartOfDay()))
+                .containsExactly(movida, liberada);
+        assertThat(indice.huecosLibres(LABORATORIO, hora(10, 0), hora(17, 0), 30))
+                .extracting(HuecoLibre::getInicio, HuecoLibre::getFin)
+                .containsExactly(tuple(hora(10, 30), hora(11, 0)), tuple(hora(11, 30), hora(17, 0)));
+    }
+
+    @Test
+    void conservaLosCambiosSiLaTransaccionConfirma() {
+        indice.registrar(franja(1L, LABORATORIO, 10, 0, 30));
+
+        TransactionSynchronizationManager.initSynchronization();
+        indice.liberar(1L);
+        indice.registrar(franja(2L, LABORATORIO, 11, 0, 30));
+        completar(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(indice.intervalosEntre(LABORATORIO, DIA.atStartOfDay(), DIA.plusDays(1).atStartOfDay()))
+                .extracting(IntervaloOcupado::asignacionId)
+                .containsExactly(2L);
+    }
+
+    @Test
+    void verificaYReconstruyeDesdeLaBaseDeDatos() {
+        IntervaloOcupado comun = franja(1L, LABORATORIO, 9, 0, 30);
+        IntervaloOcupado desfasada = franja(2L, LABORATORIO, 10, 0, 30);
+        indice.registrar(comun);
+        indice.registrar(desfasada);
+        indice.registrar(franja(3L, LABORATORIO, 11, 0, 30));
+        when(asignacionRepository.findIntervalosActivos()).thenReturn(List.of(
+                comun, franja(2L, LABORATORIO, 10, 15, 30), franja(4L, LABORATORIO, 12, 0, 30)));
+
+        ConsistenciaAgendaDto verificacion = indice.verificarConsistencia(false);
+        assertThat(verificacion.isConsistente()).isFalse();
+        assertThat(verificacion.getFaltantesEnIndice()).containsExactly(4L);
+        assertThat(verificacion.getSobrantesEnIndice()).containsExactly(3L);
+        assertThat(verificacion.getDesfasados()).containsExactly(2L);
+        assertThat(verificacion.isReparado()).isFalse();
+
+        assertThat(indice.verificarConsistencia(true).isReparado()).isTrue();
+        assertThat(indice.verificarConsistencia(false).isConsistente()).isTrue();
+        assertThat(indice.hayConflicto(LABORATORIO, hora(11, 0), hora(11, 30), null)).isFalse();
+    }
+
+    private static void completar(int estado) {
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(s -> s.afterCompletion(estado));
+    }
+
+    private static IntervaloOcupado franja(Long asignacionId, Long laboratorioId, int hora, int minuto, int duracion) {
+        LocalDateTime inicio = hora(hora, minuto);
+        return new IntervaloOcupado(asignacionId, laboratorioId, inicio, inicio.plusMinutes(duracion));
+    }
+
+    private static LocalDateTime hora(int hora, int minuto) {
+        return DIA.atTime(hora, minuto);
+    }
+}
@@ -0,0 +1,122 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import com.gestion_laboratorios.asignacion_lab.repository.TipoAnalisisRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.gestion_laboratorios.asignacion_lab.service.IndiceRangosTipoAnalisis.SIN_LIMITE_DURACION;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Consultas por rango de costo y duración: límites inclusivos, costos repetidos, tipos sin duración
+ * o sin costo (como NULL en SQL) y descarte del índice al invalidarlo.
+ */
+class IndiceRangosTipoAnalisisTest {
+
+    private final TipoAnalisisRepository tipoAnalisisRepository = mock(TipoAnalisisRepository.class);
+    private final IndiceRangosTipoAnalisis indice = new IndiceRangosTipoAnalisis(tipoAnalisisRepository);
+
+    @BeforeEach
+    void cargarTipos() {
+        when(tipoAnalisisRepository.findByActivoTrueOrderByNombre()).thenReturn(List.of(
+                tipo(1L, "10.00", 15),
+                tipo(2L, "20.00", 30),
+                tipo(3L, "20.00", 45),
+                tipo(4L, "30.00", null),
+                tipo(5L, "40.50", 30),
+                tipo(6L, null, 10)));
+    }
+
+    @AfterEach
+    void limpiarSincronizacion() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void losLimitesDeCostoSonInclusivos() {
+        assertThat(porCosto(2_000, 3_000, SIN_LIMITE_DURACION)).containsExactly(2L, 3L, 4L);
+        assertThat(porCosto(2_000, 2_000, SIN_LIMITE_DURACION)).containsExactly(2L, 3L);
+        assertThat(porCosto(2_001, 2_999, SIN_LIMITE_DURACION)).isEmpty();
+        assertThat(porCosto(4_050, Long.MAX_VALUE, SIN_LIMITE_DURACION)).containsExactly(5L);
+        assertThat(indice.contar(Long.MIN_VALUE, Long.MAX_VALUE, SIN_LIMITE_DURACION)).isEqualTo(5);
+    }
+
+    @Test
+    void elLimiteDeDuracionEsInclusivoYExcluyeLosTiposSinDuracion() {
+        assertThat(porCosto(Long.MIN_VALUE, Long.MAX_VALUE, 30)).containsExactly(1L, 2L, 5L);
+        assertThat(indice.contar(Long.MIN_VALUE, Long.MAX_VALUE, 30)).isEqualTo(3);
+        assertThat(porCosto(3_000, 3_000, 1_000)).isEmpty();
+        assertThat(porCosto(3_000, 3_000, SIN_LIMITE_DURACION)).containsExactly(4L);
+    }
+
+    @Test
+    void porDuracionOrdenaYExcluyeLosTiposSinDuracion() {
+        assertThat(porDuracion(30)).containsExactly(6L, 1L, 2L, 5L);
+        assertThat(porDuracion(9)).isEmpty();
+        assertThat(porDuracion(SIN_LIMITE_DURACION)).containsExactly(6L, 1L, 2L, 5L, 3L);
+    }
+
+    @Test
+    void centimosRedondeaSegunElLimiteYSatura() {
+        assertThat(IndiceRangosTipoAnalisis.centimos(new BigDecimal("10.005"), RoundingMode.HALF_UP)).isEqualTo(1_001);
+        assertThat(IndiceRangosTipoAnalisis.centimos(new BigDecimal("10.001"), RoundingMode.CEILING)).isEqualTo(1_001);
+        assertThat(IndiceRangosTipoAnalisis.centimos(new BigDecimal("10.009"), RoundingMode.FLOOR)).isEqualTo(1_000);
+        assertThat(IndiceRangosTipoAnalisis.centimos(new BigDecimal("1e30"), RoundingMode.FLOOR)).isEqualTo(Long.MAX_VALUE);
+        assertThat(IndiceRangosTipoAnalisis.centimos(new BigDecimal("-1e30"), RoundingMode.CEILING)).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    void seCargaUnaVezYSeRecargaTrasInvalidar() {
+        indice.contar(Long.MIN_VALUE, Long.MAX_VALUE, SIN_LIMITE_DURACION);
+        indice.contar(Long.MIN_VALUE, Long.MAX_VALUE, SIN_LIMITE_DURACION);
+        verify(tipoAnalisisRepository, times(1)).findByActivoTrueOrderByNombre();
+
+        TransactionSynchronizationManager.initSynchronization();
+        indice.invalidar();
+        assertThat(indice.contar(Long.MIN_VALUE, Long.MAX_VALUE, SIN_LIMITE_DURACION)).isEqualTo(5);
+        verify(tipoAnalisisRepository, times(2)).findByActivoTrueOrderByNombre();
+
+        // Al terminar la transacción se descarta otra vez lo leído durante ella
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        when(tipoAnalisisRepository.findByActivoTrueOrderByNombre()).thenReturn(List.of(tipo(1L, "10.00", 15)));
+        assertThat(indice.contar(Long.MIN_VALUE, Long.MAX_VALUE, SIN_LIMITE_DURACION)).isEqualTo(1);
+    }
+
+    private List<Long> porCosto(long costoMin, long costoMax, int duracionMaxima) {
+        List<Long> ids = new ArrayList<>();
+        indice.recorrer(costoMin, costoMax, duracionMaxima, ids::add);
+        return ids;
+    }
+
+    private List<Long> porDuracion(int duracionMaxima) {
+        List<Long> ids = new ArrayList<>();
+        indice.recorrerPorDuracion(duracionMaxima, ids::add);
+        return ids;
+    }
+
+    private static TipoAnalisis tipo(Long id, String costo, Integer duracion) {
+        return TipoAnalisis.builder()
+                .id(id)
+                .nombre("Análisis " + id)
+                .costo(costo != null ? new BigDecimal(costo) : null)
+                .duracionEstimada(duracion)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.service.IndiceTexto.Campo;
+import com.gestion_laboratorios.asignacion_lab.service.IndiceTexto.Puntuado;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Búsqueda del catálogo: coincidencias exactas, por prefijo y con errores de tecleo, su puntuación
+ * y la distancia de edición acotada.
+ */
+class IndiceTextoTest {
+
+    @Test
+    void distanciaCuentaSustitucionesInsercionesYTransposiciones() {
+        assertThat(IndiceTexto.distancia("glucosa", "glucosa", 2)).isZero();
+        assertThat(IndiceTexto.distancia("glucosa", "glucoza", 2)).isEqualTo(1);
+        assertThat(IndiceTexto.distancia("glucosa", "glucossa", 2)).isEqualTo(1);
+        assertThat(IndiceTexto.distancia("glucosa", "glcosa", 2)).isEqualTo(1);
+        assertThat(IndiceTexto.distancia("glucosa", "gluocsa", 2)).isEqualTo(1);
+        assertThat(IndiceTexto.distancia("hemograma", "hemgoarma", 2)).isEqualTo(2);
+    }
+
+    @Test
+    void distanciaSeCortaAlSuperarElMaximo() {
+        assertThat(IndiceTexto.distancia("glucosa", "xyzwvut", 1)).isEqualTo(2);
+        assertThat(IndiceTexto.distancia("perfil", "perfil lipidico", 2)).isEqualTo(3);
+        assertThat(IndiceTexto.distancia("urea", "orina", 1)).isEqualTo(2);
+    }
+
+    @Test
+    void exactaPuntuaMasQuePrefijoYQueAproximada() {
+        IndiceTexto indice = new IndiceTexto();
+        indice.agregar(1, List.of(new Campo("Glucosa", 1.0)));
+        indice.agregar(2, List.of(new Campo("Glucosamina", 1.0)));
+        indice.agregar(3, List.of(new Campo("Glucoza", 1.0)));
+
+        assertThat(indice.buscar("glucosa"))
+                .extracting(Puntuado::id, Puntuado::puntuacion)
+                .containsExactly(tuple(1L, 1.0), tuple(2L, 0.7), tuple(3L, 0.4));
+    }
+
+    @Test
+    void buscaPorPrefijoSinDistinguirTildes() {
+        IndiceTexto indice = new IndiceTexto();
+        indice.agregar(1, List.of(new Campo("Hemograma completo", 2.0), new Campo("Hematología", 1.0)));
+        indice.agregar(2, List.of(new Campo("Perfil hepático", 2.0)));
+
+        assertThat(indice.buscar("HEMO")).extracting(Puntuado::id).containsExactly(1L);
+        assertThat(indice.buscar("hemo").get(0).puntuacion()).isCloseTo(1.4, offset(1e-9));
+        assertThat(indice.buscar("hepatico")).extracting(Puntuado::id).containsExactly(2L);
+        assertThat(indice.buscar("he")).extracting(Puntuado::id).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void toleraErroresSegunLaLongitudDeLaPalabra() {
+        IndiceTexto indice = new IndiceTexto();
+        indice.agregar(1, List.of(new Campo("Hemograma", 1.0)));
+        indice.agregar(2, List.of(new Campo("Urea", 1.0)));
+        indice.agregar(3, List.of(new Campo("Sal", 1.0)));
+
+        // 8 letras o más: hasta dos errores
+        assertThat(indice.buscar("hemgoarma")).extracting(Puntuado::id).containsExactly(1L);
+        // Desde 4 letras: uno
+        assertThat(indice.buscar("urfa")).extracting(Puntuado::id).containsExactly(2L);
+        assertThat(indice.buscar("uera")).extracting(Puntuado::id).containsExactly(2L);
+        assertThat(indice.buscar("orfa")).isEmpty();
+        // Menos de 4 letras: ninguno
+        assertThat(indice.buscar("sak")).isEmpty();
+    }
+
+    @Test
+    void toleraErroresEnElPrefijoDeUnaPalabraLarga() {
+        IndiceTexto indice = new IndiceTexto();
+        indice.agregar(1, List.of(new Campo("Hemograma", 1.0)));
+
+        assertThat(indice.buscar("hmeog"))
+                .extracting(Puntuado::id, Puntuado::puntuacion)
+                .containsExactly(tuple(1L, 0.4));
+    }
+
+    @Test
+    void cadaPalabraDebeCoincidirYLasPuntuacionesSeSuman() {
+        IndiceTexto indice = new IndiceTexto();
+        indice.agregar(1, List.of(new Campo("Perfil lipídico", 2.0), new Campo("Bioquímica", 1.0)));
+        indice.agregar(2, List.of(new Campo("Perfil hepático", 2.0), new Campo("Bioquímica", 1.0)));
+
+        assertThat(indice.buscar("perfil lipidico"))
+                .extracting(Puntuado::id, Puntuado::puntuacion)
+                .containsExactly(tuple(1L, 4.0));
+        assertThat(indice.buscar("bioquimica perfil"))
+                .extracting(Puntuado::id, Puntuado::puntuacion)
+                .containsExactly(tuple(1L, 3.0), tuple(2L, 3.0));
+        assertThat(indice.buscar("perfil renal")).isEmpty();
+    }
+
+    @Test
+    void reindexarYQuitarActualizanLasPalabras() {
+        IndiceTexto indice = new IndiceTexto();
+        indice.agregar(1, List.of(new Campo("Creatinina", 1.0)));
+        indice.agregar(1, List.of(new Campo("Ácido úrico", 1.0)));
+
+        assertThat(indice.buscar("creatinina")).isEmpty();
+        assertThat(indice.buscar("acido urico")).extracting(Puntuado::id).containsExactly(1L);
+
+        indice.quitar(1);
+        assertThat(indice.buscar("acido")).isEmpty();
+        assertThat(indice.tamano()).isZero();
+    }
+}
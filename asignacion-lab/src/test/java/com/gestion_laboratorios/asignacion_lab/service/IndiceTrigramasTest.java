@@ -0,0 +1,109 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.service.IndiceTrigramas.Coincidencia;
+import com.gestion_laboratorios.asignacion_lab.service.IndiceTrigramas.Resultado;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Búsqueda por trigramas: equivalencia con un LIKE '%término%' normalizado, intersección de listas,
+ * orden de relevancia y compactación de las bajas.
+ */
+class IndiceTrigramasTest {
+
+    @Test
+    void normalizaMayusculasTildesYSignos() {
+        assertThat(IndiceTrigramas.normalizar("  José-María  Núñez, Jr. ")).isEqualTo("jose maria nunez jr");
+        assertThat(IndiceTrigramas.normalizar(null)).isEmpty();
+    }
+
+    @Test
+    void buscaSubcadenasSinDistinguirTildes() {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        indice.agregar(1, "María García");
+        indice.agregar(2, "Mario Garcés");
+        indice.agregar(3, "Rosa Martínez");
+
+        assertThat(ids(indice.buscar("GARC", 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(indice.buscar("marí", 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(indice.buscar("garces", 10))).containsExactly(2L);
+        assertThat(ids(indice.buscar("ar", 10))).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(indice.buscar("lopez", 10).total()).isZero();
+    }
+
+    @Test
+    void laInterseccionSeVerificaContraElTexto() {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        // Contiene los trigramas 'ana' y 'nal' pero no la subcadena 'anal'
+        indice.agregar(1, "ana nal");
+        indice.agregar(2, "analia");
+        indice.agregar(3, "juana lopez");
+
+        assertThat(ids(indice.buscar("anal", 10))).containsExactly(2L);
+        assertThat(ids(indice.buscar("ana", 10))).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(ids(indice.buscar("anax", 10))).isEmpty();
+    }
+
+    @Test
+    void ordenaPorRelevanciaYCuentaElTotal() {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        indice.agregar(1, "Ana Rosa");
+        indice.agregar(2, "Rosa");
+        indice.agregar(3, "Rosalía Pérez");
+        indice.agregar(4, "Ana Rosales");
+        indice.agregar(5, "Barosa");
+
+        Resultado resultado = indice.buscar("rosa", 10);
+        assertThat(resultado.coincidencias())
+                .extracting(Coincidencia::id, Coincidencia::rango)
+                .containsExactly(tuple(2L, 0), tuple(3L, 1), tuple(1L, 2), tuple(4L, 2), tuple(5L, 3));
+
+        Resultado limitado = indice.buscar("rosa", 2);
+        assertThat(ids(limitado)).containsExactly(2L, 3L);
+        assertThat(limitado.total()).isEqualTo(5);
+    }
+
+    @Test
+    void reindexarYQuitarActualizanLasBusquedas() {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        indice.agregar(1, "Pedro Gómez");
+        indice.agregar(2, "Pedro Ruiz");
+
+        assertThat(indice.agregar(1, "Pablo Gómez")).isEqualTo("pedro gomez");
+        assertThat(indice.quitar(2)).isEqualTo("pedro ruiz");
+        assertThat(indice.quitar(2)).isNull();
+
+        assertThat(indice.buscar("pedro", 10).total()).isZero();
+        assertThat(ids(indice.buscar("pablo", 10))).containsExactly(1L);
+        assertThat(indice.tamano()).isEqualTo(1);
+    }
+
+    @Test
+    void compactaLasBajasSinPerderDocumentos() {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        LongStream.range(0, 3_000).forEach(id -> indice.agregar(id, "Paciente " + id));
+        // Más de 1024 bajas y más de la mitad de los documentos: se compacta durante este bucle
+        LongStream.range(0, 2_000).forEach(indice::quitar);
+
+        assertThat(indice.tamano()).isEqualTo(1_000);
+        assertThat(indice.buscar("paciente", 5_000).total()).isEqualTo(1_000);
+        assertThat(indice.buscar("paciente 1999", 10).total()).isZero();
+        assertThat(ids(indice.buscar("paciente 2999", 10))).containsExactly(2_999L);
+
+        indice.agregar(5_000, "Paciente nuevo");
+        indice.agregar(2_500, "Paciente movido");
+        assertThat(ids(indice.buscar("nuevo", 10))).containsExactly(5_000L);
+        assertThat(ids(indice.buscar("movido", 10))).containsExactly(2_500L);
+        assertThat(indice.buscar("paciente 2500", 10).total()).isZero();
+        assertThat(indice.tamano()).isEqualTo(1_001);
+    }
+
+    private static List<Long> ids(Resultado resultado) {
+        return resultado.coincidencias().stream().map(Coincidencia::id).toList();
+    }
+}
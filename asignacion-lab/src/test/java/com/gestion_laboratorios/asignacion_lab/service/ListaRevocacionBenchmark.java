@@ -0,0 +1,67 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Benchmark de ListaRevocacion: tasa real de falsos positivos del filtro de Bloom y coste por consulta
+ * (ns y bytes asignados) de un jti no revocado, el caso de casi todas las peticiones, y de uno revocado.
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.asignacion_lab.service.ListaRevocacionBenchmark
+ *   [-Dexec.args="revocados"]
+ */
+public class ListaRevocacionBenchmark {
+
+    private static final int CONSULTAS = 1_000_000;
+
+    public static void main(String[] args) {
+        int revocados = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        ListaRevocacion lista = new ListaRevocacion(100_000, 0.001);
+        Instant expiracion = Instant.now().plusSeconds(3600);
+        List<String> jtisRevocados = new ArrayList<>();
+        for (int i = 0; i < revocados; i++) {
+            String jti = UUID.randomUUID().toString();
+            jtisRevocados.add(jti);
+            lista.agregar(jti, expiracion);
+        }
+        List<String> jtisVigentes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            jtisVigentes.add(UUID.randomUUID().toString());
+        }
+
+        ListaRevocacion.FiltroBloom filtro = new ListaRevocacion.FiltroBloom(100_000, 0.001);
+        jtisRevocados.forEach(filtro::agregar);
+        int falsosPositivos = 0;
+        for (int i = 0; i < CONSULTAS; i++) {
+            if (filtro.puedeContener(UUID.randomUUID().toString())) {
+                falsosPositivos++;
+            }
+        }
+        System.out.printf("%d revocados, falsos positivos del filtro: %.4f%%%n", revocados, 100.0 * falsosPositivos / CONSULTAS);
+
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        medir("no revocado", lista, jtisVigentes, hilos);
+        medir("revocado", lista, jtisRevocados.subList(0, 10_000), hilos);
+    }
+
+    private static void medir(String caso, ListaRevocacion lista, List<String> jtis, com.sun.management.ThreadMXBean hilos) {
+        int positivos = 0;
+        for (int i = 0; i < CONSULTAS; i++) {
+            positivos += lista.contiene(jtis.get(i % jtis.size())) ? 1 : 0;
+        }
+        positivos = 0;
+        long bytes = hilos.getCurrentThreadAllocatedBytes();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < CONSULTAS; i++) {
+            positivos += lista.contiene(jtis.get(i % jtis.size())) ? 1 : 0;
+        }
+        long nanos = System.nanoTime() - t0;
+        bytes = hilos.getCurrentThreadAllocatedBytes() - bytes;
+        System.out.printf("%-12s %8.1f ns/consulta  %6.2f bytes/consulta  %d positivos%n",
+                caso, (double) nanos / CONSULTAS, (double) bytes / CONSULTAS, positivos);
+    }
+}
@@ -0,0 +1,91 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.service.ListaRevocacion.FiltroBloom;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lista de revocación: consulta exacta detrás del filtro de Bloom, reconstrucción del filtro al barrer
+ * los vencidos y al superar la capacidad.
+ */
+class ListaRevocacionTest {
+
+    private static final Instant VIGENTE = Instant.now().plus(1, ChronoUnit.HOURS);
+
+    @Test
+    void contieneSoloLosRevocadosVigentes() {
+        ListaRevocacion lista = new ListaRevocacion(100, 0.01);
+        lista.agregar("jti-1", VIGENTE);
+        lista.agregar("jti-1", VIGENTE);
+        lista.agregar("jti-vencido", Instant.now().minusSeconds(1));
+
+        assertThat(lista.contiene("jti-1")).isTrue();
+        assertThat(lista.contiene("jti-2")).isFalse();
+        assertThat(lista.contiene("jti-vencido")).isFalse();
+        assertThat(lista.tamano()).isEqualTo(1);
+    }
+
+    @Test
+    void barrerQuitaLosVencidosYReconstruyeElFiltro() throws InterruptedException {
+        ListaRevocacion lista = new ListaRevocacion(2_000, 0.01);
+        Instant pronto = Instant.now().plusMillis(200);
+        IntStream.range(0, 1_000).forEach(i -> lista.agregar("vence-" + i, pronto));
+        IntStream.range(0, 1_000).forEach(i -> lista.agregar("sigue-" + i, VIGENTE));
+        FiltroBloom anterior = filtro(lista);
+
+        Thread.sleep(300);
+        assertThat(lista.barrer()).isEqualTo(1_000);
+
+        FiltroBloom reconstruido = filtro(lista);
+        assertThat(reconstruido).isNotSameAs(anterior);
+        assertThat(lista.tamano()).isEqualTo(1_000);
+        assertThat(IntStream.range(0, 1_000).allMatch(i -> lista.contiene("sigue-" + i))).isTrue();
+        assertThat(IntStream.range(0, 1_000).noneMatch(i -> lista.contiene("vence-" + i))).isTrue();
+        // Los barridos ya no ocupan bits: sólo quedan los falsos positivos propios del filtro
+        assertThat(IntStream.range(0, 1_000).filter(i -> reconstruido.puedeContener("vence-" + i)).count())
+                .isLessThan(50);
+    }
+
+    @Test
+    void barrerSinVencidosConservaElFiltro() {
+        ListaRevocacion lista = new ListaRevocacion(100, 0.01);
+        lista.agregar("jti-1", VIGENTE);
+        FiltroBloom anterior = filtro(lista);
+
+        assertThat(lista.barrer()).isZero();
+        assertThat(filtro(lista)).isSameAs(anterior);
+    }
+
+    @Test
+    void alSuperarLaCapacidadDuplicaYReconstruyeElFiltro() {
+        ListaRevocacion lista = new ListaRevocacion(100, 0.01);
+        IntStream.range(0, 1_000).forEach(i -> lista.agregar("jti-" + i, VIGENTE));
+
+        assertThat(ReflectionTestUtils.getField(lista, "capacidad")).isEqualTo(1_600);
+        assertThat(IntStream.range(0, 1_000).allMatch(i -> lista.contiene("jti-" + i))).isTrue();
+        // Dimensionado para 100 tendría casi todos los bits a uno; tras crecer mantiene la tasa objetivo
+        FiltroBloom filtro = filtro(lista);
+        assertThat(IntStream.range(0, 10_000).filter(i -> filtro.puedeContener("otro-" + i)).count())
+                .isLessThan(300);
+    }
+
+    @Test
+    void elFiltroNoTieneFalsosNegativosYRespetaLaTasaObjetivo() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filtro.agregar("jti-" + i));
+
+        assertThat(IntStream.range(0, 10_000).allMatch(i -> filtro.puedeContener("jti-" + i))).isTrue();
+        assertThat(IntStream.range(0, 100_000).filter(i -> filtro.puedeContener("otro-" + i)).count())
+                .isLessThan(2_000);
+    }
+
+    private static FiltroBloom filtro(ListaRevocacion lista) {
+        return (FiltroBloom) ReflectionTestUtils.getField(lista, "filtro");
+    }
+}
@@ -0,0 +1,72 @@
+package com.gestion_laboratorios.asignacion_lab.service;
+
+import com.gestion_laboratorios.asignacion_lab.entity.TipoAnalisis;
+import com.gestion_laboratorios.asignacion_lab.repository.TipoAnalisisRepository;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark de IndiceRangosTipoAnalisis: latencia de los filtros combinados (costo AND duración) y bytes
+ * asignados por consulta, que deben ser cero una vez cargado el índice.
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.asignacion_lab.service.RangosTipoAnalisisBenchmark
+ *   [-Dexec.args="tipos"]
+ */
+public class RangosTipoAnalisisBenchmark {
+
+    private static final int REPETICIONES = 1_000_000;
+
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        Random aleatorio = new Random(3);
+        List<TipoAnalisis> tipos = new ArrayList<>();
+        for (long id = 1; id <= cantidad; id++) {
+            tipos.add(TipoAnalisis.builder()
+                    .id(id)
+                    .nombre("Tipo " + id)
+                    .costo(BigDecimal.valueOf(500 + aleatorio.nextInt(50_000), 2))
+                    .duracionEstimada(aleatorio.nextInt(10) == 0 ? null : 10 + aleatorio.nextInt(170))
+                    .activo(true)
+                    .build());
+        }
+        TipoAnalisisRepository repositorio = (TipoAnalisisRepository) Proxy.newProxyInstance(
+                TipoAnalisisRepository.class.getClassLoader(), new Class<?>[]{TipoAnalisisRepository.class},
+                (proxy, metodo, argumentos) -> {
+                    if (metodo.getName().equals("findByActivoTrueOrderByNombre")) {
+                        return tipos;
+                    }
+                    throw new UnsupportedOperationException(metodo.getName());
+                });
+        IndiceRangosTipoAnalisis indice = new IndiceRangosTipoAnalisis(repositorio);
+
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[][] consultas = {{5_000, 10_000, 60}, {0, Long.MAX_VALUE, 30}, {20_000, 40_000, Integer.MAX_VALUE}, {0, 100, 10}};
+        System.out.printf("%d tipos de análisis%n%-34s %-10s %-12s %-10s%n", cantidad, "filtro (céntimos, minutos)", "ns", "resultados", "bytes");
+        for (long[] consulta : consultas) {
+            long costoMin = consulta[0];
+            long costoMax = consulta[1];
+            int duracion = (int) consulta[2];
+            long[] suma = {0};
+            for (int i = 0; i < REPETICIONES; i++) {
+                indice.recorrer(costoMin, costoMax, duracion, id -> suma[0] += id);
+            }
+            int resultados = 0;
+            long bytes = hilos.getCurrentThreadAllocatedBytes();
+            long t0 = System.nanoTime();
+            for (int i = 0; i < REPETICIONES; i++) {
+                resultados = indice.contar(costoMin, costoMax, duracion);
+            }
+            long nanos = System.nanoTime() - t0;
+            bytes = hilos.getCurrentThreadAllocatedBytes() - bytes;
+            System.out.printf("%-34s %-10.1f %-12d %-10.2f%n",
+                    "[" + costoMin + ", " + (costoMax == Long.MAX_VALUE ? "∞" : costoMax) + "] <= " + (duracion == Integer.MAX_VALUE ? "∞" : duracion),
+                    (double) nanos / REPETICIONES, resultados, (double) bytes / REPETICIONES);
+        }
+    }
+}
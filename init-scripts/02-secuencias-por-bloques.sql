@@ -0,0 +1,19 @@
+-- Migración de secuencias a ids por bloques (pooled-lo, app.ids.tamano-bloque=50).
+-- Con pooled-lo cada valor de la secuencia es el inicio de un bloque de 50 ids, por lo que
+-- INCREMENT BY debe coincidir con el tamaño de bloque. Los ids existentes quedan por debajo
+-- del siguiente valor, así que no hay colisiones con filas previas.
+ALTER SESSION SET "_ORACLE_SCRIPT"=true;
+
+BEGIN
+    FOR s IN (
+        SELECT sequence_name
+        FROM dba_sequences
+        WHERE sequence_owner = 'GESTION_LAB_APP'
+          AND sequence_name IN ('USUARIO_SEQUENCE', 'LABORATORIO_SEQUENCE', 'TIPO_ANALISIS_SEQUENCE',
+                                'ASIGNACION_SEQUENCE', 'MEDICO_LABORATORIO_SEQUENCE')
+          AND increment_by <> 50
+    ) LOOP
+        EXECUTE IMMEDIATE 'ALTER SEQUENCE GESTION_LAB_APP.' || s.sequence_name || ' INCREMENT BY 50';
+    END LOOP;
+END;
+/
@@ -0,0 +1,248 @@
+package com.gestion_laboratorios.pruebas_carga;
+
+import org.h2.tools.Server;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Base de datos H2 servida por TCP a los dos servicios desde este proceso, y siembra del
+ * conjunto de datos: laboratorios, tipos de análisis, médicos y asignaciones en franjas de 30 minutos,
+ * completadas o canceladas en el pasado y programadas hasta dias-futuros días. Se siembra por JDBC
+ * directo, con el esquema ya creado por Hibernate, y se dejan las secuencias y los contadores de
+ * capacidad diaria coherentes con lo insertado. La base va en MODE=Oracle, como en producción.
+ */
+final class BaseDatosCarga implements AutoCloseable {
+
+    private static final int LOTE = 5_000;
+    private static final int MINUTOS_FRANJA = 30;
+    private static final String[] NOMBRES = {"María", "José", "Ana", "Luis", "Carmen", "Jorge", "Lucía", "Pedro",
+            "Elena", "Miguel", "Rosa", "Andrés", "Paula", "Diego", "Sofía", "Raúl"};
+    private static final String[] APELLIDOS = {"García", "Rodríguez", "González", "Fernández", "López", "Martínez",
+            "Sánchez", "Pérez", "Gómez", "Martín", "Jiménez", "Ruiz", "Hernández", "Díaz", "Moreno", "Álvarez"};
+    private static final String[] AREAS = {"Hematología", "Bioquímica", "Microbiología", "Inmunología", "Genética",
+            "Citología", "Toxicología", "Endocrinología", "Parasitología", "Virología"};
+    private static final String[] SEDES = {"Edificio Norte", "Edificio Sur", "Pabellón Central", "Anexo Médico", "Torre Clínica"};
+    private static final int[] DURACIONES = {15, 20, 30};
+
+    private final Server servidor;
+    private final String urlLocal;
+    private final int puerto;
+
+    private BaseDatosCarga(Server servidor, String urlLocal, int puerto) {
+        this.servidor = servidor;
+        this.urlLocal = urlLocal;
+        this.puerto = puerto;
+    }
+
+    static BaseDatosCarga iniciar(Configuracion configuracion) throws Exception {
+        Path directorio = configuracion.directorio().resolve("h2");
+        Files.createDirectories(directorio);
+        if (configuracion.sembrar()) {
+            try (var ficheros = Files.list(directorio)) {
+                for (Path fichero : ficheros.toList()) {
+                    Files.delete(fichero);
+                }
+            }
+        }
+        Server servidor = Server.createTcpServer("-tcpPort", String.valueOf(configuracion.puertoH2()),
+                "-baseDir", directorio.toString(), "-ifNotExists").start();
+        return new BaseDatosCarga(servidor, "jdbc:h2:" + directorio.resolve("carga") + ";MODE=Oracle", configuracion.puertoH2());
+    }
+
+    // URL para los servicios; en este proceso se usa la conexión embebida a la misma base
+    String urlServicios() {
+        return "jdbc:h2:tcp://localhost:" + puerto + "/carga;MODE=Oracle";
+    }
+
+    void sembrar(Configuracion configuracion) throws SQLException {
+        Random aleatorio = new Random(42);
+        LocalDateTime ahora = LocalDateTime.now();
+        try (Connection conexion = conectar()) {
+            conexion.setAutoCommit(false);
+            long primerMedico = siguienteId(conexion, "usuarios");
+            sembrarUsuarios(conexion, configuracion, primerMedico, ahora);
+            long primerLaboratorio = siguienteId(conexion, "laboratorios");
+            sembrarLaboratorios(conexion, configuracion, primerLaboratorio, aleatorio, ahora);
+            long primerTipo = siguienteId(conexion, "tipos_analisis");
+            sembrarTipos(conexion, configuracion, primerTipo, aleatorio, ahora);
+            sembrarAsignaciones(conexion, configuracion, primerMedico, primerLaboratorio, primerTipo, aleatorio, ahora);
+
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.executeUpdate("DELETE FROM ocupacion_diaria_laboratorio");
+                sentencia.executeUpdate("INSERT INTO ocupacion_diaria_laboratorio (laboratorio_id, fecha, total_asignaciones) "
+                        + "SELECT laboratorio_id, TRUNC(fecha_hora_inicio), COUNT(*) FROM asignaciones "
+                        + "WHERE estado <> 'CANCELADA' GROUP BY laboratorio_id, TRUNC(fecha_hora_inicio)");
+            }
+            reiniciarSecuencia(conexion, "usuario_sequence", "usuarios");
+            reiniciarSecuencia(conexion, "laboratorio_sequence", "laboratorios");
+            reiniciarSecuencia(conexion, "tipo_analisis_sequence", "tipos_analisis");
+            reiniciarSecuencia(conexion, "asignacion_sequence", "asignaciones");
+            conexion.commit();
+        }
+    }
+
+    // Datos para los clientes: ids sembrados de médicos, laboratorios y tipos
+    Ids ids(Configuracion configuracion) throws SQLException {
+        try (Connection conexion = conectar()) {
+            return new Ids(
+                    minimo(conexion, "SELECT MIN(id) FROM usuarios WHERE username LIKE 'medico%'"),
+                    minimo(conexion, "SELECT MIN(id) FROM laboratorios"),
+                    minimo(conexion, "SELECT MIN(id) FROM tipos_analisis"),
+                    configuracion.usuarios(), configuracion.laboratorios(), configuracion.tiposAnalisis());
+        }
+    }
+
+    record Ids(long primerMedico, long primerLaboratorio, long primerTipo, int medicos, int laboratorios, int tipos) {
+    }
+
+    @Override
+    public void close() {
+        servidor.stop();
+    }
+
+    private void sembrarUsuarios(Connection conexion, Configuracion configuracion, long primerId, LocalDateTime ahora)
+            throws SQLException {
+        // Un solo hash para todos: BCrypt de coste 10 tarda ~100 ms
+        String hash = new BCryptPasswordEncoder().encode(Configuracion.CONTRASENA);
+        try (PreparedStatement insercion = conexion.prepareStatement("INSERT INTO usuarios (id, username, password, email, "
+                + "nombre, apellido, tipo_usuario, activo, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, 'MEDICO', TRUE, ?, ?)")) {
+            for (int i = 1; i <= configuracion.usuarios(); i++) {
+                insercion.setLong(1, primerId + i - 1);
+                insercion.setString(2, "medico" + i);
+                insercion.setString(3, hash);
+                insercion.setString(4, "medico" + i + "@carga.local");
+                insercion.setString(5, NOMBRES[i % NOMBRES.length]);
+                insercion.setString(6, APELLIDOS[(i / NOMBRES.length) % APELLIDOS.length]);
+                insercion.setTimestamp(7, Timestamp.valueOf(ahora));
+                insercion.setTimestamp(8, Timestamp.valueOf(ahora));
+                insercion.addBatch();
+            }
+            insercion.executeBatch();
+        }
+    }
+
+    private void sembrarLaboratorios(Connection conexion, Configuracion configuracion, long primerId, Random aleatorio,
+                                     LocalDateTime ahora) throws SQLException {
+        try (PreparedStatement insercion = conexion.prepareStatement("INSERT INTO laboratorios (id, nombre, descripcion, "
+                + "ubicacion, capacidad_maxima, estado, equipamiento, fecha_creacion, fecha_actualizacion) "
+                + "VALUES (?, ?, ?, ?, ?, 'DISPONIBLE', ?, ?, ?)")) {
+            for (int i = 0; i < configuracion.laboratorios(); i++) {
+                String area = AREAS[i % AREAS.length];
+                insercion.setLong(1, primerId + i);
+                insercion.setString(2, "Laboratorio de " + area + " " + (i + 1));
+                insercion.setString(3, "Laboratorio de " + area.toLowerCase());
+                insercion.setString(4, SEDES[aleatorio.nextInt(SEDES.length)] + ", planta " + aleatorio.nextInt(6));
+                // Franjas de 30 minutos todo el día: 48 por día, con margen para que la capacidad rechace algunas
+                insercion.setInt(5, 40);
+                insercion.setString(6, "centrífuga, microscopio");
+                insercion.setTimestamp(7, Timestamp.valueOf(ahora));
+                insercion.setTimestamp(8, Timestamp.valueOf(ahora));
+                insercion.addBatch();
+            }
+            insercion.executeBatch();
+        }
+    }
+
+    private void sembrarTipos(Connection conexion, Configuracion configuracion, long primerId, Random aleatorio,
+                              LocalDateTime ahora) throws SQLException {
+        try (PreparedStatement insercion = conexion.prepareStatement("INSERT INTO tipos_analisis (id, nombre, descripcion, "
+                + "duracion_estimada, costo, activo, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, TRUE, ?, ?)")) {
+            for (int i = 0; i < configuracion.tiposAnalisis(); i++) {
+                insercion.setLong(1, primerId + i);
+                insercion.setString(2, "Análisis " + AREAS[i % AREAS.length] + " " + (i + 1));
+                insercion.setString(3, "Tipo de análisis sembrado para la prueba de carga");
+                insercion.setInt(4, DURACIONES[i % DURACIONES.length]);
+                insercion.setBigDecimal(5, BigDecimal.valueOf(500 + aleatorio.nextInt(20_000), 2));
+                insercion.setTimestamp(6, Timestamp.valueOf(ahora));
+                insercion.setTimestamp(7, Timestamp.valueOf(ahora));
+                insercion.addBatch();
+            }
+            insercion.executeBatch();
+        }
+    }
+
+    // Por laboratorio, franjas consecutivas hacia atrás desde hoy + dias-futuros, ocupadas con probabilidad 'ocupacion'
+    private void sembrarAsignaciones(Connection conexion, Configuracion configuracion, long primerMedico,
+                                     long primerLaboratorio, long primerTipo, Random aleatorio, LocalDateTime ahora)
+            throws SQLException {
+        LocalDateTime limite = LocalDate.now().plusDays(configuracion.diasFuturos()).atStartOfDay();
+        long id = siguienteId(conexion, "asignaciones");
+        long pendientes = 0;
+        long inicioSiembra = System.nanoTime();
+        try (PreparedStatement insercion = conexion.prepareStatement("INSERT INTO asignaciones (id, usuario_id, "
+                + "nombre_paciente, laboratorio_id, tipo_analisis_id, fecha_hora_inicio, fecha_hora_fin, estado, resultados, "
+                + "fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int laboratorio = 0; laboratorio < configuracion.laboratorios(); laboratorio++) {
+                long delLaboratorio = configuracion.asignaciones() / configuracion.laboratorios()
+                        + (laboratorio < configuracion.asignaciones() % configuracion.laboratorios() ? 1 : 0);
+                LocalDateTime franja = limite;
+                for (long sembradas = 0; sembradas < delLaboratorio; ) {
+                    franja = franja.minusMinutes(MINUTOS_FRANJA);
+                    if (aleatorio.nextDouble() >= configuracion.ocupacion()) {
+                        continue;
+                    }
+                    int tipo = aleatorio.nextInt(configuracion.tiposAnalisis());
+                    boolean pasada = franja.isBefore(ahora);
+                    String estado = !pasada ? "PROGRAMADA" : aleatorio.nextInt(100) < 8 ? "CANCELADA" : "COMPLETADA";
+                    insercion.setLong(1, id++);
+                    insercion.setLong(2, primerMedico + aleatorio.nextInt(configuracion.usuarios()));
+                    insercion.setString(3, NOMBRES[aleatorio.nextInt(NOMBRES.length)] + " "
+                            + APELLIDOS[aleatorio.nextInt(APELLIDOS.length)] + " " + APELLIDOS[aleatorio.nextInt(APELLIDOS.length)]);
+                    insercion.setLong(4, primerLaboratorio + laboratorio);
+                    insercion.setLong(5, primerTipo + tipo);
+                    insercion.setTimestamp(6, Timestamp.valueOf(franja));
+                    insercion.setTimestamp(7, Timestamp.valueOf(franja.plusMinutes(DURACIONES[tipo % DURACIONES.length])));
+                    insercion.setString(8, estado);
+                    insercion.setString(9, "COMPLETADA".equals(estado) ? "Valores dentro de rango" : null);
+                    insercion.setTimestamp(10, Timestamp.valueOf(franja.minusDays(3)));
+                    insercion.setTimestamp(11, Timestamp.valueOf(pasada ? franja : ahora));
+                    insercion.addBatch();
+                    sembradas++;
+                    if (++pendientes % LOTE == 0) {
+                        insercion.executeBatch();
+                        conexion.commit();
+                    }
+                    if (pendientes % 500_000 == 0) {
+                        System.out.printf("  %,d asignaciones sembradas (%d s)%n", pendientes, (System.nanoTime() - inicioSiembra) / 1_000_000_000);
+                    }
+                }
+            }
+            insercion.executeBatch();
+        }
+    }
+
+    private static long siguienteId(Connection conexion, String tabla) throws SQLException {
+        return minimo(conexion, "SELECT COALESCE(MAX(id), 0) + 1 FROM " + tabla);
+    }
+
+    private static long minimo(Connection conexion, String consulta) throws SQLException {
+        try (Statement sentencia = conexion.createStatement(); ResultSet resultado = sentencia.executeQuery(consulta)) {
+            resultado.next();
+            return resultado.getLong(1);
+        }
+    }
+
+    private static void reiniciarSecuencia(Connection conexion, String secuencia, String tabla) throws SQLException {
+        long siguiente = siguienteId(conexion, tabla);
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("ALTER SEQUENCE " + secuencia + " RESTART WITH " + siguiente);
+        }
+    }
+
+    private Connection conectar() throws SQLException {
+        return DriverManager.getConnection(urlLocal, "sa", "");
+    }
+}
@@ -0,0 +1,126 @@
+package com.gestion_laboratorios.pruebas_carga;
+
+import com.gestion_laboratorios.pruebas_carga.EstadisticasCarga.Paso;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cliente en bucle cerrado que reproduce el flujo de un médico: login, listado de laboratorios,
+ * disponibilidad de uno de ellos, reserva de una franja, inicio y completado del análisis. Cada sesión
+ * hace reservas-por-sesion reservas con el mismo token. Una reserva rechazada (conflicto de horario o
+ * capacidad) cuenta con su código y el flujo pasa a la siguiente.
+ */
+final class ClienteCarga implements Runnable {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    // El id de la asignación es el primer campo de la respuesta
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Duration TIEMPO_MAXIMO = Duration.ofSeconds(30);
+    // Reservas entre mañana y dentro de 60 días, sobre la rejilla de 30 minutos de la siembra
+    private static final int DIAS_RESERVA = 60;
+
+    private final HttpClient http;
+    private final String usuarios;
+    private final String asignacion;
+    private final BaseDatosCarga.Ids ids;
+    private final int reservasPorSesion;
+    private final EstadisticasCarga estadisticas;
+    private final long fin;
+
+    ClienteCarga(HttpClient http, String usuarios, String asignacion, BaseDatosCarga.Ids ids, int reservasPorSesion,
+                 EstadisticasCarga estadisticas, long fin) {
+        this.http = http;
+        this.usuarios = usuarios;
+        this.asignacion = asignacion;
+        this.ids = ids;
+        this.reservasPorSesion = reservasPorSesion;
+        this.estadisticas = estadisticas;
+        this.fin = fin;
+    }
+
+    @Override
+    public void run() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        while (System.nanoTime() < fin) {
+            try {
+                int medico = aleatorio.nextInt(ids.medicos()) + 1;
+                HttpResponse<String> login = enviar(Paso.LOGIN, HttpRequest.newBuilder(URI.create(usuarios + "/api/usuarios/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"username\":\"medico" + medico + "\",\"password\":\"" + Configuracion.CONTRASENA + "\"}")));
+                Matcher token = TOKEN.matcher(login.body());
+                if (login.statusCode() != 200 || !token.find()) {
+                    continue;
+                }
+                String autorizacion = "Bearer " + token.group(1);
+                for (int i = 0; i < reservasPorSesion && System.nanoTime() < fin; i++) {
+                    reservar(autorizacion, ids.primerMedico() + medico - 1, aleatorio);
+                }
+            } catch (IOException e) {
+                // Ya contado por enviar; se empieza otra sesión
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void reservar(String autorizacion, long usuarioId, ThreadLocalRandom aleatorio) throws IOException, InterruptedException {
+        long laboratorio = ids.primerLaboratorio() + aleatorio.nextInt(ids.laboratorios());
+        long tipo = ids.primerTipo() + aleatorio.nextInt(ids.tipos());
+        LocalDateTime dia = LocalDate.now().plusDays(1 + aleatorio.nextInt(DIAS_RESERVA)).atStartOfDay();
+
+        enviar(Paso.LABORATORIOS, autenticada(asignacion + "/api/laboratorios", autorizacion).GET());
+        enviar(Paso.DISPONIBILIDAD, autenticada(asignacion + "/api/laboratorios/" + laboratorio + "/disponibilidad?desde="
+                + dia + "&tipoAnalisisId=" + tipo, autorizacion).GET());
+
+        LocalDateTime inicio = dia.plusMinutes(30L * aleatorio.nextInt(48));
+        HttpResponse<String> reserva = enviar(Paso.RESERVA, autenticada(asignacion + "/api/asignaciones", autorizacion)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"usuarioId\":" + usuarioId
+                        + ",\"nombrePaciente\":\"Paciente de carga " + aleatorio.nextInt(100_000)
+                        + "\",\"laboratorioId\":" + laboratorio + ",\"tipoAnalisisId\":" + tipo
+                        + ",\"fechaHoraInicio\":\"" + inicio + "\"}")));
+        Matcher id = ID.matcher(reserva.body());
+        if (reserva.statusCode() != 201 || !id.find()) {
+            return;
+        }
+        String ruta = asignacion + "/api/asignaciones/" + id.group(1);
+        if (enviar(Paso.INICIO, autenticada(ruta + "/iniciar", autorizacion)
+                .method("PATCH", HttpRequest.BodyPublishers.noBody())).statusCode() != 200) {
+            return;
+        }
+        if (enviar(Paso.COMPLETADO, autenticada(ruta + "/completar", autorizacion)
+                .header("Content-Type", "text/plain")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("Valores dentro de rango"))).statusCode() == 200) {
+            estadisticas.flujoCompleto();
+        }
+    }
+
+    private static HttpRequest.Builder autenticada(String url, String autorizacion) {
+        return HttpRequest.newBuilder(URI.create(url)).header("Authorization", autorizacion);
+    }
+
+    private HttpResponse<String> enviar(Paso paso, HttpRequest.Builder peticion) throws IOException, InterruptedException {
+        long inicio = System.nanoTime();
+        try {
+            HttpResponse<String> respuesta = http.send(peticion.timeout(TIEMPO_MAXIMO).build(), HttpResponse.BodyHandlers.ofString());
+            estadisticas.registrar(paso, respuesta.statusCode(), System.nanoTime() - inicio);
+            return respuesta;
+        } catch (IOException e) {
+            // Código 0: error de conexión o tiempo agotado
+            estadisticas.registrar(paso, 0, System.nanoTime() - inicio);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.gestion_laboratorios.pruebas_carga;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parámetros de la prueba, como argumentos clave=valor; los que no se indican toman el valor por defecto.
+ */
+record Configuracion(
+        int laboratorios,
+        int tiposAnalisis,
+        int usuarios,
+        long asignaciones,
+        double ocupacion,
+        int diasFuturos,
+        boolean sembrar,
+        int concurrencia,
+        int segundos,
+        int calentamiento,
+        int reservasPorSesion,
+        int puertoH2,
+        int puertoUsuarios,
+        int puertoAsignacion,
+        String opcionesJvm,
+        Path jarUsuarios,
+        Path jarAsignacion,
+        Path directorio) {
+
+    static final String CONTRASENA = "carga123";
+
+    private static final Set<String> CLAVES = Set.of("laboratorios", "tipos", "usuarios", "asignaciones", "ocupacion",
+            "dias-futuros", "sembrar", "concurrencia", "segundos", "calentamiento", "reservas-por-sesion", "puerto-h2",
+            "puerto-usuarios", "puerto-asignacion", "jvm", "jar-usuarios", "jar-asignacion", "directorio");
+
+    static Configuracion de(String[] args) {
+        Map<String, String> valores = new HashMap<>();
+        for (String argumento : args) {
+            int igual = argumento.indexOf('=');
+            if (igual <= 0) {
+                throw new IllegalArgumentException("Argumento sin formato clave=valor: " + argumento);
+            }
+            valores.put(argumento.substring(0, igual), argumento.substring(igual + 1));
+        }
+        Configuracion configuracion = new Configuracion(
+                entero(valores, "laboratorios", 50),
+                entero(valores, "tipos", 30),
+                entero(valores, "usuarios", 1000),
+                Long.parseLong(valores.getOrDefault("asignaciones", "200000")),
+                Double.parseDouble(valores.getOrDefault("ocupacion", "0.6")),
+                entero(valores, "dias-futuros", 14),
+                Boolean.parseBoolean(valores.getOrDefault("sembrar", "true")),
+                entero(valores, "concurrencia", 16),
+                entero(valores, "segundos", 60),
+                entero(valores, "calentamiento", 10),
+                entero(valores, "reservas-por-sesion", 5),
+                entero(valores, "puerto-h2", 19092),
+                entero(valores, "puerto-usuarios", 18110),
+                entero(valores, "puerto-asignacion", 18120),
+                valores.getOrDefault("jvm", "-Xmx1g"),
+                Path.of(valores.getOrDefault("jar-usuarios", "../usuarios/target/usuarios-0.0.1-SNAPSHOT.jar")).toAbsolutePath(),
+                Path.of(valores.getOrDefault("jar-asignacion", "../asignacion-lab/target/asignacion-lab-0.0.1-SNAPSHOT.jar")).toAbsolutePath(),
+                Path.of(valores.getOrDefault("directorio", "target/carga")).toAbsolutePath());
+        List<String> desconocidos = valores.keySet().stream().filter(c -> !CLAVES.contains(c)).sorted().toList();
+        if (!desconocidos.isEmpty()) {
+            throw new IllegalArgumentException("Parámetros desconocidos: " + desconocidos);
+        }
+        if (configuracion.ocupacion <= 0 || configuracion.ocupacion > 1) {
+            throw new IllegalArgumentException("ocupacion debe estar en (0, 1]");
+        }
+        return configuracion;
+    }
+
+    private static int entero(Map<String, String> valores, String clave, int porDefecto) {
+        return Integer.parseInt(valores.getOrDefault(clave, String.valueOf(porDefecto)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.gestion_laboratorios.pruebas_carga;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencia (HdrHistogram, en microsegundos) y códigos de respuesta por paso del flujo. Sólo se registra
+ * mientras se mide: lo anterior al fin del calentamiento se descarta.
+ */
+final class EstadisticasCarga {
+
+    private static final long MAXIMO_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    enum Paso {
+        LOGIN, LABORATORIOS, DISPONIBILIDAD, RESERVA, INICIO, COMPLETADO
+    }
+
+    private final Map<Paso, Recorder> latencias = new EnumMap<>(Paso.class);
+    private final Map<Paso, ConcurrentMap<Integer, LongAdder>> codigos = new EnumMap<>(Paso.class);
+    private final LongAdder flujosCompletos = new LongAdder();
+    private volatile boolean midiendo;
+    private long inicioMedicion;
+    private long finMedicion;
+
+    EstadisticasCarga() {
+        for (Paso paso : Paso.values()) {
+            latencias.put(paso, new Recorder(1, MAXIMO_MICROS, 3));
+            codigos.put(paso, new ConcurrentHashMap<>());
+        }
+    }
+
+    void registrar(Paso paso, int codigo, long nanos) {
+        if (!midiendo) {
+            return;
+        }
+        latencias.get(paso).recordValue(Math.max(1, Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAXIMO_MICROS)));
+        codigos.get(paso).computeIfAbsent(codigo, c -> new LongAdder()).increment();
+    }
+
+    void flujoCompleto() {
+        if (midiendo) {
+            flujosCompletos.increment();
+        }
+    }
+
+    void empezarMedicion() {
+        latencias.values().forEach(Recorder::reset);
+        inicioMedicion = System.nanoTime();
+        midiendo = true;
+    }
+
+    void terminarMedicion() {
+        midiendo = false;
+        finMedicion = System.nanoTime();
+    }
+
+    // Tabla por paso y el mismo resultado en JSON para comparar ejecuciones
+    void informar(Configuracion configuracion, Path json) throws IOException {
+        double segundos = (finMedicion - inicioMedicion) / 1e9;
+        System.out.printf("%n%d clientes, %.0f s medidos, %.1f flujos completos/s%n",
+                configuracion.concurrencia(), segundos, flujosCompletos.sum() / segundos);
+        System.out.printf("%-15s %-10s %-8s %-9s %-9s %-9s %-9s %-9s %s%n",
+                "paso", "peticiones", "por s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms", "códigos");
+        List<String> pasos = new ArrayList<>();
+        for (Paso paso : Paso.values()) {
+            Histogram histograma = latencias.get(paso).getIntervalHistogram();
+            Map<Integer, Long> porCodigo = new TreeMap<>();
+            codigos.get(paso).forEach((codigo, total) -> porCodigo.put(codigo, total.sum()));
+            long total = histograma.getTotalCount();
+            System.out.printf(Locale.ROOT, "%-15s %-10d %-8.1f %-9.1f %-9.1f %-9.1f %-9.1f %-9.1f %s%n",
+                    paso.name().toLowerCase(), total, total / segundos,
+                    ms(histograma.getValueAtPercentile(50)), ms(histograma.getValueAtPercentile(90)),
+                    ms(histograma.getValueAtPercentile(99)), ms(histograma.getValueAtPercentile(99.9)),
+                    ms(histograma.getMaxValue()), porCodigo);
+            pasos.add(String.format(Locale.ROOT, "{\"paso\":\"%s\",\"peticiones\":%d,\"porSegundo\":%.2f,\"p50Ms\":%.3f,"
+                            + "\"p90Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maximoMs\":%.3f,\"codigos\":{%s}}",
+                    paso.name().toLowerCase(), total, total / segundos,
+                    ms(histograma.getValueAtPercentile(50)), ms(histograma.getValueAtPercentile(90)),
+                    ms(histograma.getValueAtPercentile(99)), ms(histograma.getValueAtPercentile(99.9)),
+                    ms(histograma.getMaxValue()),
+                    String.join(",", porCodigo.entrySet().stream().map(e -> "\"" + e.getKey() + "\":" + e.getValue()).toList())));
+        }
+        Files.writeString(json, String.format(Locale.ROOT,
+                "{\"concurrencia\":%d,\"segundos\":%.1f,\"asignacionesSembradas\":%d,\"flujosPorSegundo\":%.2f,\"pasos\":[%s]}%n",
+                configuracion.concurrencia(), segundos, configuracion.asignaciones(), flujosCompletos.sum() / segundos,
+                String.join(",", pasos)));
+        System.out.println("Resultado en " + json);
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
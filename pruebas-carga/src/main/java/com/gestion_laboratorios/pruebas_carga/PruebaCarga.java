@@ -0,0 +1,93 @@
+package com.gestion_laboratorios.pruebas_carga;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga de extremo a extremo sin Oracle: levanta un servidor H2 en modo Oracle por TCP, arranca
+ * usuarios y asignacion-lab contra él (primero con ddl-auto=create para crear el esquema), siembra el
+ * conjunto de datos, vuelve a arrancarlos con el esquema existente para que carguen sus índices y cachés
+ * sobre los datos sembrados y lanza 'concurrencia' clientes con el flujo de {@link ClienteCarga}.
+ * Informa de peticiones por segundo y percentiles de latencia por paso, también en target/carga/resultado.json.
+ *
+ * Ejecutar (con los jars de los servicios ya empaquetados con mvn -DskipTests package en cada módulo):
+ *   mvn compile exec:java [-Dexec.args="asignaciones=2000000 concurrencia=32 segundos=120"]
+ *
+ * Parámetros (clave=valor): laboratorios=50 tipos=30 usuarios=1000 asignaciones=200000 ocupacion=0.6
+ *   dias-futuros=14 sembrar=true concurrencia=16 segundos=60 calentamiento=10 reservas-por-sesion=5
+ *   jvm=-Xmx1g puerto-h2, puerto-usuarios, puerto-asignacion, jar-usuarios, jar-asignacion, directorio.
+ * Con sembrar=false se reutiliza la base de la ejecución anterior (los tamaños deben coincidir).
+ */
+public class PruebaCarga {
+
+    public static void main(String[] args) throws Exception {
+        Configuracion configuracion = Configuracion.de(args);
+        Files.createDirectories(configuracion.directorio());
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        try (BaseDatosCarga base = BaseDatosCarga.iniciar(configuracion)) {
+            if (configuracion.sembrar()) {
+                long inicio = System.nanoTime();
+                System.out.println("Creando el esquema...");
+                arrancarYParar(configuracion, base, http);
+                System.out.printf("Sembrando %d laboratorios, %d tipos de análisis, %d médicos y %,d asignaciones...%n",
+                        configuracion.laboratorios(), configuracion.tiposAnalisis(), configuracion.usuarios(), configuracion.asignaciones());
+                base.sembrar(configuracion);
+                System.out.printf("Esquema y datos listos en %d s%n", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicio));
+            }
+            BaseDatosCarga.Ids ids = base.ids(configuracion);
+
+            System.out.println("Arrancando los servicios...");
+            try (ServicioArrancado usuarios = ServicioArrancado.arrancar("usuarios", configuracion.jarUsuarios(),
+                    configuracion.puertoUsuarios(), base.urlServicios(), "none", configuracion);
+                 ServicioArrancado asignacion = ServicioArrancado.arrancar("asignacion-lab", configuracion.jarAsignacion(),
+                         configuracion.puertoAsignacion(), base.urlServicios(), "none", configuracion)) {
+                usuarios.esperarListo(http);
+                asignacion.esperarListo(http);
+                ejecutarCarga(configuracion, ids, http, usuarios.base(), asignacion.base());
+            }
+        }
+    }
+
+    private static void arrancarYParar(Configuracion configuracion, BaseDatosCarga base, HttpClient http) throws Exception {
+        // Uno tras otro: los dos crean sus tablas en el mismo esquema
+        try (ServicioArrancado usuarios = ServicioArrancado.arrancar("usuarios", configuracion.jarUsuarios(),
+                configuracion.puertoUsuarios(), base.urlServicios(), "create", configuracion)) {
+            usuarios.esperarListo(http);
+        }
+        try (ServicioArrancado asignacion = ServicioArrancado.arrancar("asignacion-lab", configuracion.jarAsignacion(),
+                configuracion.puertoAsignacion(), base.urlServicios(), "create", configuracion)) {
+            asignacion.esperarListo(http);
+        }
+    }
+
+    private static void ejecutarCarga(Configuracion configuracion, BaseDatosCarga.Ids ids, HttpClient http,
+                                      String usuarios, String asignacion) throws Exception {
+        EstadisticasCarga estadisticas = new EstadisticasCarga();
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(configuracion.calentamiento() + configuracion.segundos());
+        List<Thread> clientes = new ArrayList<>();
+        for (int i = 0; i < configuracion.concurrencia(); i++) {
+            Thread cliente = new Thread(new ClienteCarga(http, usuarios, asignacion, ids,
+                    configuracion.reservasPorSesion(), estadisticas, fin), "cliente-carga-" + i);
+            cliente.start();
+            clientes.add(cliente);
+        }
+        System.out.printf("%d clientes: %d s de calentamiento y %d s medidos%n",
+                configuracion.concurrencia(), configuracion.calentamiento(), configuracion.segundos());
+        Thread.sleep(TimeUnit.SECONDS.toMillis(configuracion.calentamiento()));
+        estadisticas.empezarMedicion();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(configuracion.segundos()));
+        estadisticas.terminarMedicion();
+        for (Thread cliente : clientes) {
+            cliente.join();
+        }
+        estadisticas.informar(configuracion, configuracion.directorio().resolve("resultado.json"));
+    }
+}
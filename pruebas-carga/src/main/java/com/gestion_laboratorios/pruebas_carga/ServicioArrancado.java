@@ -0,0 +1,112 @@
+package com.gestion_laboratorios.pruebas_carga;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uno de los servicios arrancado como proceso aparte desde su jar de Spring Boot, con el driver de H2
+ * añadido al classpath mediante PropertiesLauncher (loader.path) para no tocar sus dependencias.
+ */
+final class ServicioArrancado implements AutoCloseable {
+
+    private static final Duration ESPERA_ARRANQUE = Duration.ofMinutes(5);
+
+    private final String nombre;
+    private final Process proceso;
+    private final Path log;
+    private final int puerto;
+
+    private ServicioArrancado(String nombre, Process proceso, Path log, int puerto) {
+        this.nombre = nombre;
+        this.proceso = proceso;
+        this.log = log;
+        this.puerto = puerto;
+    }
+
+    static ServicioArrancado arrancar(String nombre, Path jar, int puerto, String urlBaseDatos, String ddl,
+                                      Configuracion configuracion) throws IOException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No existe " + jar + ": compilar antes con mvn -DskipTests package en " + nombre);
+        }
+        Path h2;
+        try {
+            h2 = Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (Exception e) {
+            throw new IllegalStateException("No se encuentra el jar de H2", e);
+        }
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        comando.addAll(List.of(configuracion.opcionesJvm().trim().split("\\s+")));
+        comando.addAll(List.of(
+                "-Dloader.path=" + h2,
+                "-cp", jar.toString(),
+                "org.springframework.boot.loader.launch.PropertiesLauncher",
+                "--server.port=" + puerto,
+                "--spring.datasource.url=" + urlBaseDatos,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=" + ddl,
+                "--spring.jpa.show-sql=false",
+                "--spring.devtools.restart.enabled=false",
+                "--management.endpoint.health.probes.enabled=true"));
+        comando.removeIf(String::isEmpty);
+
+        Path log = configuracion.directorio().resolve(nombre + ".log");
+        Files.createDirectories(log.getParent());
+        Process proceso = new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        return new ServicioArrancado(nombre, proceso, log, puerto);
+    }
+
+    String base() {
+        return "http://localhost:" + puerto;
+    }
+
+    // Espera a que la sonda de disponibilidad responda 200, es decir, a que hayan terminado los ApplicationRunner
+    // (reconciliación de contadores e índices); si el proceso termina antes, muestra el final del log
+    void esperarListo(HttpClient http) throws Exception {
+        long limite = System.nanoTime() + ESPERA_ARRANQUE.toNanos();
+        HttpRequest salud = HttpRequest.newBuilder(URI.create(base() + "/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(5)).GET().build();
+        while (System.nanoTime() < limite) {
+            if (!proceso.isAlive()) {
+                throw new IllegalStateException(nombre + " terminó al arrancar:\n" + finalDelLog());
+            }
+            try {
+                if (http.send(salud, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Aún no escucha
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(nombre + " no arrancó en " + ESPERA_ARRANQUE + ":\n" + finalDelLog());
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        proceso.destroy();
+        if (!proceso.waitFor(30, TimeUnit.SECONDS)) {
+            proceso.destroyForcibly().waitFor();
+        }
+    }
+
+    private String finalDelLog() throws IOException {
+        List<String> lineas = Files.readAllLines(log);
+        return String.join("\n", lineas.subList(Math.max(0, lineas.size() - 40), lineas.size()));
+    }
+}
@@ -2,8 +2,10 @@ package com.gestion_laboratorios.usuarios;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UsuariosApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,13 @@
+package com.gestion_laboratorios.usuarios.config;
+
+import java.time.Instant;
+
+/**
+ * Claims de un JWT con la firma ya verificada. jti, emitido y expiracion pueden ser null en tokens antiguos.
+ */
+public record ClaimsToken(String jti, String username, String rol, Long userId, Instant emitido, Instant expiracion) {
+
+    public boolean expirado() {
+        return expiracion != null && !expiracion.isAfter(Instant.now());
+    }
+}
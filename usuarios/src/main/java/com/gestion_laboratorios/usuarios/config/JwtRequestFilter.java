@@ -1,28 +1,45 @@
 package com.gestion_laboratorios.usuarios.config;
 
 import com.gestion_laboratorios.usuarios.service.CustomUserDetailsService;
+import com.gestion_laboratorios.usuarios.service.RevocacionTokens;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+    /**
+     * BASE_DATOS consulta el usuario en cada petición; CACHE usa la caché de CustomUserDetailsService;
+     * TOKEN confía en el rol firmado del token. En los tres modos se rechazan los jti revocados.
+     */
+    public enum ModoAutenticacion { BASE_DATOS, CACHE, TOKEN }
+
     private final CustomUserDetailsService userDetailsService;
     private final JwtTokenUtil jwtTokenUtil;
+    private final RevocacionTokens revocacionTokens;
+
+    @Value("${app.seguridad.modo-autenticacion:CACHE}")
+    private ModoAutenticacion modoAutenticacion;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -30,38 +47,48 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
+        // JWT Token está en la forma "Bearer token". Remover Bearer y verificarlo una sola vez
+        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            jwtTokenUtil.extraerClaims(requestTokenHeader.substring(7))
+                    .flatMap(this::cargarUsuario)
+                    .ifPresent(userDetails -> {
+                        UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
+                            new UsernamePasswordAuthenticationToken(
+                                userDetails, null, userDetails.getAuthorities());
+                        usernamePasswordAuthenticationToken
+                                .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-        // JWT Token está en la forma "Bearer token". Remover Bearer y obtener solo el token
-        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
-            try {
-                username = jwtTokenUtil.extractUsername(jwtToken);
-            } catch (Exception e) {
-                log.error("Unable to get JWT Token: {}", e.getMessage());
-            }
+                        // Después de establecer la autenticación en el contexto, especificamos
+                        // que el usuario actual está autenticado. Entonces pasa la validación de Spring Security.
+                        SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                    });
         }
+        chain.doFilter(request, response);
+    }
 
-        // Una vez obtenido el token, validarlo
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            // Si el token es válido, configurar Spring Security para establecer manualmente la autenticación
-            if (jwtTokenUtil.validateToken(jwtToken, userDetails)) {
-
-                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = 
-                    new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                usernamePasswordAuthenticationToken
-                        .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                
-                // Después de establecer la autenticación en el contexto, especificamos
-                // que el usuario actual está autenticado. Entonces pasa la validación de Spring Security.
-                SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+    private Optional<UserDetails> cargarUsuario(ClaimsToken claims) {
+        if (claims.username() == null || revocacionTokens.revocado(claims.jti())) {
+            return Optional.empty();
+        }
+        if (modoAutenticacion == ModoAutenticacion.TOKEN) {
+            // Sin jti el token no se puede revocar: en este modo se exige volver a iniciar sesión
+            if (claims.rol() == null || claims.jti() == null) {
+                log.debug("Token rechazado para usuario: {}", claims.username());
+                return Optional.empty();
             }
+            return Optional.of(User.withUsername(claims.username())
+                    .password("")
+                    .authorities(List.of(new SimpleGrantedAuthority("ROLE_" + claims.rol())))
+                    .build());
+        }
+        try {
+            return Optional.of(modoAutenticacion == ModoAutenticacion.BASE_DATOS
+                    ? userDetailsService.loadUserByUsernameSinCache(claims.username())
+                    : userDetailsService.loadUserByUsername(claims.username()));
+        } catch (UsernameNotFoundException e) {
+            log.debug("Token de usuario no válido: {}", e.getMessage());
+            return Optional.empty();
         }
-        chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.gestion_laboratorios.usuarios.config;
+
+import com.gestion_laboratorios.usuarios.service.LatenciasRutas;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Mide cada petición completa, seguridad incluida, y la registra en {@link LatenciasRutas} bajo el
+ * patrón de @RequestMapping que la atendió. Las peticiones asíncronas se miden hasta que se completan.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class LatenciaRutasFilter extends OncePerRequestFilter {
+
+    private final LatenciasRutas latenciasRutas;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long inicio = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        registrar(request, inicio);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                registrar(request, inicio);
+            }
+        }
+    }
+
+    private void registrar(HttpServletRequest request, long inicio) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        latenciasRutas.registrar(request.getMethod(),
+                patron instanceof String ruta ? ruta : LatenciasRutas.SIN_RUTA,
+                System.nanoTime() - inicio);
+    }
+}
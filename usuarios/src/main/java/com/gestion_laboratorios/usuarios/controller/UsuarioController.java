@@ -43,6 +43,12 @@ public class UsuarioController {
         return ResponseEntity.ok(usuarios);
     }
 
+    @GetMapping("/admin/hash")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<EstadisticasHashDto> obtenerEstadisticasHash() {
+        return ResponseEntity.ok(usuarioService.obtenerEstadisticasHash());
+    }
+
     @GetMapping("/activos")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<UsuarioResponseDto>> obtenerUsuariosActivos() {
@@ -0,0 +1,25 @@
+package com.gestion_laboratorios.usuarios.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticasHashDto {
+
+    private int hilos;
+    private int colaMaxima;
+    private int enCola;
+    private int enEjecucion;
+    private long completadas;
+    private long rechazadasColaLlena;
+    private long rechazadasTiempoAgotado;
+    private double tiempoMedioEsperaMs;
+    private double tiempoMaximoEsperaMs;
+    private double tiempoMedioHashMs;
+    private double tiempoMaximoHashMs;
+}
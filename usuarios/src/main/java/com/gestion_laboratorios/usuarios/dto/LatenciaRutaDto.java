@@ -0,0 +1,23 @@
+package com.gestion_laboratorios.usuarios.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LatenciaRutaDto {
+
+    private String metodo;
+    private String ruta;
+    private long peticiones;
+    private long ventanaSegundos;
+    private double p50Ms;
+    private double p90Ms;
+    private double p99Ms;
+    private double p999Ms;
+    private double maximoMs;
+}
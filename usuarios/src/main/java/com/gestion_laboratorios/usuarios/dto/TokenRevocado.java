@@ -0,0 +1,6 @@
+package com.gestion_laboratorios.usuarios.dto;
+
+import java.time.LocalDateTime;
+
+public record TokenRevocado(String jti, LocalDateTime expiracion, LocalDateTime fechaRevocacion) {
+}
@@ -0,0 +1,39 @@
+package com.gestion_laboratorios.usuarios.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * JWT emitido en un login, identificado por su claim jti. Revocar un usuario marca sus tokens vigentes con
+ * la fecha de revocación; ambos servicios leen los revocados para rechazarlos antes de que expiren. Las
+ * filas se borran cuando el token expira.
+ */
+@Entity
+@Table(name = "tokens_emitidos", indexes = {
+        @Index(name = "idx_tokens_emitidos_username", columnList = "username"),
+        @Index(name = "idx_tokens_emitidos_revocacion", columnList = "fecha_revocacion")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenEmitido {
+
+    @Id
+    @Column(name = "jti", length = 36)
+    private String jti;
+
+    @Column(name = "username", nullable = false, length = 50)
+    private String username;
+
+    @Column(name = "expiracion", nullable = false)
+    private LocalDateTime expiracion;
+
+    @Column(name = "fecha_revocacion")
+    private LocalDateTime fechaRevocacion;
+}
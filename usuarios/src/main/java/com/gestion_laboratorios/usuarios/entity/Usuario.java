@@ -1,5 +1,6 @@
 package com.gestion_laboratorios.usuarios.entity;
 
+import com.gestion_laboratorios.usuarios.config.SecuenciaPorBloques;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -22,8 +23,7 @@ import java.time.LocalDateTime;
 public class Usuario {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuario_seq")
-    @SequenceGenerator(name = "usuario_seq", sequenceName = "usuario_sequence", allocationSize = 1)
+    @SecuenciaPorBloques(nombre = "usuario_sequence")
     private Long id;
 
     @NotBlank(message = "El nombre de usuario es obligatorio")
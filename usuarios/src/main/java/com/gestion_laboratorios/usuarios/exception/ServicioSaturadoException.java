@@ -0,0 +1,27 @@
+package com.gestion_laboratorios.usuarios.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+@Getter
+public class ServicioSaturadoException extends RuntimeException {
+
+    private final HttpStatus estado;
+    private final long reintentarEnSegundos;
+
+    public ServicioSaturadoException(String message, HttpStatus estado, long reintentarEnSegundos) {
+        super(message);
+        this.estado = estado;
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public static ServicioSaturadoException colaLlena() {
+        return new ServicioSaturadoException("Demasiadas solicitudes de autenticación en curso, reintente en unos segundos",
+                HttpStatus.TOO_MANY_REQUESTS, 1);
+    }
+
+    public static ServicioSaturadoException tiempoAgotado() {
+        return new ServicioSaturadoException("Servicio de autenticación saturado, reintente más tarde",
+                HttpStatus.SERVICE_UNAVAILABLE, 5);
+    }
+}
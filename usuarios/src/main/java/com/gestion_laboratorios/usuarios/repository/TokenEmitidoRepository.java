@@ -0,0 +1,33 @@
+package com.gestion_laboratorios.usuarios.repository;
+
+import com.gestion_laboratorios.usuarios.dto.TokenRevocado;
+import com.gestion_laboratorios.usuarios.entity.TokenEmitido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenEmitidoRepository extends JpaRepository<TokenEmitido, String> {
+
+    @Modifying
+    @Query("UPDATE TokenEmitido t SET t.fechaRevocacion = :ahora " +
+           "WHERE t.username = :username AND t.fechaRevocacion IS NULL AND t.expiracion > :ahora")
+    int revocarVigentes(@Param("username") String username, @Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT new com.gestion_laboratorios.usuarios.dto.TokenRevocado(t.jti, t.expiracion, t.fechaRevocacion) " +
+           "FROM TokenEmitido t WHERE t.fechaRevocacion >= :desde AND t.expiracion > :ahora")
+    List<TokenRevocado> findRevocadosDesde(@Param("desde") LocalDateTime desde, @Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT new com.gestion_laboratorios.usuarios.dto.TokenRevocado(t.jti, t.expiracion, t.fechaRevocacion) " +
+           "FROM TokenEmitido t WHERE t.username = :username AND t.fechaRevocacion IS NOT NULL AND t.expiracion > :ahora")
+    List<TokenRevocado> findRevocadosDeUsuario(@Param("username") String username, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("DELETE FROM TokenEmitido t WHERE t.expiracion <= :ahora")
+    int eliminarExpirados(@Param("ahora") LocalDateTime ahora);
+}
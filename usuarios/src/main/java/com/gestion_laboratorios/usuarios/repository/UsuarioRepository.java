@@ -1,8 +1,12 @@
 package com.gestion_laboratorios.usuarios.repository;
 
 import com.gestion_laboratorios.usuarios.entity.Usuario;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -13,6 +17,12 @@ import java.util.Optional;
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     Optional<Usuario> findByUsername(String username);
+
+    // SELECT ... FOR UPDATE: ordena el registro del token de un login frente a desactivaciones y cambios de contraseña
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT u FROM Usuario u WHERE u.username = :username")
+    Optional<Usuario> findByUsernameForUpdate(@Param("username") String username);
     
     Optional<Usuario> findByEmail(String email);
     
@@ -23,7 +33,7 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     boolean existsByTipoUsuario(Usuario.TipoUsuario tipoUsuario);
     
     List<Usuario> findByActivoTrue();
-    
+
     List<Usuario> findByTipoUsuario(Usuario.TipoUsuario tipoUsuario);
     
     @Query("SELECT u FROM Usuario u WHERE u.activo = true AND u.tipoUsuario = :tipoUsuario")
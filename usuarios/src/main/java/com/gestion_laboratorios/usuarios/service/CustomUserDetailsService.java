@@ -2,43 +2,104 @@ package com.gestion_laboratorios.usuarios.service;
 
 import com.gestion_laboratorios.usuarios.entity.Usuario;
 import com.gestion_laboratorios.usuarios.repository.UsuarioRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Carga de usuarios para Spring Security con una caché acotada por username. Se guarda una copia inmutable
+ * de los datos y cada llamada construye un UserDetails nuevo, porque Spring Security puede borrar las
+ * credenciales del objeto devuelto. UsuarioService invalida la entrada al activar, desactivar, eliminar o
+ * cambiar la contraseña; la expiración acota lo que otra instancia pueda tener desactualizado.
+ */
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UsuarioRepository usuarioRepository;
 
+    @Value("${app.seguridad.cache-usuarios.tamano-maximo:10000}")
+    private int tamanoMaximo;
+
+    @Value("${app.seguridad.cache-usuarios.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    private Cache<String, DatosUsuario> usuarios;
+
+    private record DatosUsuario(String username, String password, Usuario.TipoUsuario tipoUsuario, boolean activo) {
+    }
+
+    @PostConstruct
+    void inicializar() {
+        usuarios = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .build();
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Usuario usuario = usuarioRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+        // Los usuarios inexistentes no se cachean
+        return construir(username, usuarios.get(username, this::buscar));
+    }
 
-        if (!usuario.getActivo()) {
+    public UserDetails loadUserByUsernameSinCache(String username) throws UsernameNotFoundException {
+        return construir(username, buscar(username));
+    }
+
+    private DatosUsuario buscar(String username) {
+        return usuarioRepository.findByUsername(username)
+                .map(u -> new DatosUsuario(u.getUsername(), u.getPassword(), u.getTipoUsuario(), Boolean.TRUE.equals(u.getActivo())))
+                .orElse(null);
+    }
+
+    private static UserDetails construir(String username, DatosUsuario usuario) {
+        if (usuario == null) {
+            throw new UsernameNotFoundException("Usuario no encontrado: " + username);
+        }
+
+        if (!usuario.activo()) {
             throw new UsernameNotFoundException("Usuario inactivo: " + username);
         }
 
         List<GrantedAuthority> authorities = new ArrayList<>();
-        authorities.add(new SimpleGrantedAuthority("ROLE_" + usuario.getTipoUsuario().name()));
+        authorities.add(new SimpleGrantedAuthority("ROLE_" + usuario.tipoUsuario().name()));
 
         return org.springframework.security.core.userdetails.User.builder()
-                .username(usuario.getUsername())
-                .password(usuario.getPassword())
+                .username(usuario.username())
+                .password(usuario.password())
                 .authorities(authorities)
                 .accountExpired(false)
                 .accountLocked(false)
                 .credentialsExpired(false)
-                .disabled(!usuario.getActivo())
+                .disabled(!usuario.activo())
                 .build();
     }
-}
\ No newline at end of file
+
+    // Ahora y al terminar la transacción, para descartar lo que otro hilo cargue antes del commit
+    public void invalidar(String username) {
+        usuarios.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    usuarios.invalidate(username);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.gestion_laboratorios.usuarios.service;
+
+import com.gestion_laboratorios.usuarios.dto.EstadisticasHashDto;
+import com.gestion_laboratorios.usuarios.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Ejecutor acotado para BCrypt. Cada hash ocupa un núcleo ~100 ms, así que en lugar de calcularlo en el
+ * hilo de Tomcat se encola en un pool de tantos hilos como núcleos (app.seguridad.hash.hilos) con una cola
+ * limitada. Se rechaza al instante con 429 si la cola está llena o si la espera estimada (posición en cola
+ * por la media móvil del tiempo de hash) supera app.seguridad.hash.espera-maxima-ms; si aun así una
+ * petición espera más de ese tiempo se cancela con 503. Así una ráfaga de logins no deja sin CPU ni sin
+ * hilos al resto de endpoints. Se mide por separado el tiempo en cola y el de cálculo, también como
+ * métricas usuarios.hash.espera y usuarios.hash.calculo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HashContrasenas {
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    // 0: tantos hilos como núcleos
+    @Value("${app.seguridad.hash.hilos:0}")
+    private int hilos;
+
+    // 0: 16 por hilo, unos 1,6 s de espera con BCrypt de coste 10
+    @Value("${app.seguridad.hash.cola-maxima:0}")
+    private int colaMaxima;
+
+    @Value("${app.seguridad.hash.espera-maxima-ms:2000}")
+    private long esperaMaximaMs;
+
+    private ThreadPoolExecutor ejecutor;
+    // Media móvil exponencial (peso 1/8) del tiempo de cálculo; parte de un BCrypt de coste 10
+    private volatile long mediaNanosHash = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder rechazadasColaLlena = new LongAdder();
+    private final LongAdder rechazadasTiempoAgotado = new LongAdder();
+    private final LongAdder nanosEspera = new LongAdder();
+    private final LongAdder nanosHash = new LongAdder();
+    private final LongAccumulator maximoNanosEspera = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maximoNanosHash = new LongAccumulator(Math::max, 0);
+    private Timer timerEspera;
+    private Timer timerCalculo;
+
+    @PostConstruct
+    void inicializar() {
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        if (colaMaxima <= 0) {
+            colaMaxima = 16 * tamano;
+        }
+        AtomicInteger numero = new AtomicInteger();
+        ejecutor = new ThreadPoolExecutor(tamano, tamano, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(colaMaxima),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "hash-contrasena-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        registrarMetricas();
+        log.info("Ejecutor de hash de contraseñas: {} hilos, cola de {}", tamano, colaMaxima);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        ejecutor.shutdownNow();
+    }
+
+    public boolean coincide(String contrasena, String hash) {
+        return ejecutar(() -> passwordEncoder.matches(contrasena, hash));
+    }
+
+    public String codificar(String contrasena) {
+        return ejecutar(() -> passwordEncoder.encode(contrasena));
+    }
+
+    public EstadisticasHashDto estadisticas() {
+        long total = completadas.sum();
+        return EstadisticasHashDto.builder()
+                .hilos(ejecutor.getMaximumPoolSize())
+                .colaMaxima(colaMaxima)
+                .enCola(ejecutor.getQueue().size())
+                .enEjecucion(ejecutor.getActiveCount())
+                .completadas(total)
+                .rechazadasColaLlena(rechazadasColaLlena.sum())
+                .rechazadasTiempoAgotado(rechazadasTiempoAgotado.sum())
+                .tiempoMedioEsperaMs(total == 0 ? 0 : nanosEspera.sum() / 1e6 / total)
+                .tiempoMaximoEsperaMs(maximoNanosEspera.get() / 1e6)
+                .tiempoMedioHashMs(total == 0 ? 0 : nanosHash.sum() / 1e6 / total)
+                .tiempoMaximoHashMs(maximoNanosHash.get() / 1e6)
+                .build();
+    }
+
+    private <T> T ejecutar(Supplier<T> calculo) {
+        long encolada = System.nanoTime();
+        long esperaEstimada = (ejecutor.getQueue().size() + 1) * mediaNanosHash / ejecutor.getMaximumPoolSize();
+        if (esperaEstimada > TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs)) {
+            rechazadasColaLlena.increment();
+            throw ServicioSaturadoException.colaLlena();
+        }
+        Future<T> futuro;
+        try {
+            futuro = ejecutor.submit(() -> {
+                long inicio = System.nanoTime();
+                try {
+                    return calculo.get();
+                } finally {
+                    long fin = System.nanoTime();
+                    registrar(inicio - encolada, fin - inicio);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rechazadasColaLlena.increment();
+            throw ServicioSaturadoException.colaLlena();
+        }
+
+        try {
+            return futuro.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Si aún está en cola ya no se calcula; un hash en curso no se puede interrumpir y termina
+            futuro.cancel(false);
+            rechazadasTiempoAgotado.increment();
+            throw ServicioSaturadoException.tiempoAgotado();
+        } catch (InterruptedException e) {
+            futuro.cancel(false);
+            Thread.currentThread().interrupt();
+            throw ServicioSaturadoException.tiempoAgotado();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Error calculando el hash de la contraseña", e.getCause());
+        }
+    }
+
+    private void registrarMetricas() {
+        timerEspera = Timer.builder("usuarios.hash.espera")
+                .description("Tiempo en cola hasta empezar el hash de la contraseña")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        timerCalculo = Timer.builder("usuarios.hash.calculo")
+                .description("Tiempo de cálculo de BCrypt")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        FunctionCounter.builder("usuarios.hash.rechazos", rechazadasColaLlena, LongAdder::sum)
+                .tag("motivo", "cola_llena")
+                .register(meterRegistry);
+        FunctionCounter.builder("usuarios.hash.rechazos", rechazadasTiempoAgotado, LongAdder::sum)
+                .tag("motivo", "tiempo_agotado")
+                .register(meterRegistry);
+        Gauge.builder("usuarios.hash.en_cola", ejecutor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("usuarios.hash.en_ejecucion", ejecutor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    private void registrar(long nanosEnCola, long nanosCalculo) {
+        timerEspera.record(nanosEnCola, TimeUnit.NANOSECONDS);
+        timerCalculo.record(nanosCalculo, TimeUnit.NANOSECONDS);
+        completadas.increment();
+        nanosEspera.add(nanosEnCola);
+        nanosHash.add(nanosCalculo);
+        maximoNanosEspera.accumulate(nanosEnCola);
+        maximoNanosHash.accumulate(nanosCalculo);
+        mediaNanosHash += (nanosCalculo - mediaNanosHash) / 8;
+    }
+}
@@ -0,0 +1,145 @@
+package com.gestion_laboratorios.usuarios.service;
+
+import com.gestion_laboratorios.usuarios.config.ClaimsToken;
+import com.gestion_laboratorios.usuarios.dto.TokenRevocado;
+import com.gestion_laboratorios.usuarios.entity.TokenEmitido;
+import com.gestion_laboratorios.usuarios.entity.Usuario;
+import com.gestion_laboratorios.usuarios.repository.TokenEmitidoRepository;
+import com.gestion_laboratorios.usuarios.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Revocación de JWT por jti. Cada login registra su token en tokens_emitidos; desactivar, eliminar o
+ * cambiar la contraseña de un usuario marca sus tokens vigentes como revocados. La comprobación de cada
+ * petición se hace contra una {@link ListaRevocacion} en memoria que se alimenta de los revocados en esta
+ * instancia al confirmarse la transacción y, para los de otras instancias, de una consulta periódica a la
+ * tabla (el servicio de asignaciones hace la misma consulta). Los tokens expirados se barren de memoria en
+ * cada consulta y de la tabla en la limpieza periódica.
+ * El jti de un login se registra con la fila del usuario bloqueada, y quien revoca actualiza esa fila antes
+ * de marcar los tokens: o el login ve el cambio y no emite el token, o la revocación ve el token registrado.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RevocacionTokens implements ApplicationRunner {
+
+    private final TokenEmitidoRepository tokenEmitidoRepository;
+    private final UsuarioRepository usuarioRepository;
+
+    @Value("${app.seguridad.revocacion.capacidad:100000}")
+    private int capacidad;
+
+    @Value("${app.seguridad.revocacion.probabilidad-falsos-positivos:0.001}")
+    private double probabilidadFalsosPositivos;
+
+    @Value("${jwt.expiration:86400}")
+    private long duracionTokenSegundos;
+
+    // Cubre transacciones confirmadas tarde y diferencias de reloj entre instancias
+    @Value("${app.seguridad.revocacion.margen-segundos:60}")
+    private long margenSegundos;
+
+    private ListaRevocacion lista;
+    private volatile LocalDateTime ultimaRevocacionLeida;
+
+    @PostConstruct
+    void inicializar() {
+        lista = new ListaRevocacion(capacidad, probabilidadFalsosPositivos);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        sondear();
+        log.info("Lista de revocación cargada con {} tokens", lista.tamano());
+    }
+
+    public boolean revocado(String jti) {
+        return jti != null && lista.contiene(jti);
+    }
+
+    // Registra el token sólo si el usuario sigue activo y con la contraseña que comprobó el login; entre esa
+    // comprobación y este punto pudo desactivarse, eliminarse o cambiar su contraseña mientras esperaba BCrypt
+    @Transactional
+    public boolean registrarSiVigente(ClaimsToken claims, String passwordComprobada) {
+        boolean vigente = usuarioRepository.findByUsernameForUpdate(claims.username())
+                .filter(Usuario::getActivo)
+                .filter(usuario -> usuario.getPassword().equals(passwordComprobada))
+                .isPresent();
+        if (vigente) {
+            tokenEmitidoRepository.save(TokenEmitido.builder()
+                    .jti(claims.jti())
+                    .username(claims.username())
+                    .expiracion(LocalDateTime.ofInstant(claims.expiracion(), ZoneId.systemDefault()))
+                    .build());
+        }
+        return vigente;
+    }
+
+    // En la transacción de quien llama; la lista local se actualiza al confirmarse
+    public void revocar(String username) {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (tokenEmitidoRepository.revocarVigentes(username, ahora) == 0) {
+            return;
+        }
+        List<TokenRevocado> revocados = tokenEmitidoRepository.findRevocadosDeUsuario(username, ahora);
+        log.info("Revocados {} tokens del usuario: {}", revocados.size(), username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    agregar(revocados);
+                }
+            });
+        } else {
+            agregar(revocados);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.seguridad.revocacion.intervalo-ms:5000}",
+               initialDelayString = "${app.seguridad.revocacion.intervalo-ms:5000}")
+    @Transactional(readOnly = true)
+    public void sondear() {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime desde = ultimaRevocacionLeida == null
+                ? ahora.minusSeconds(duracionTokenSegundos)
+                : ultimaRevocacionLeida.minusSeconds(margenSegundos);
+        agregar(tokenEmitidoRepository.findRevocadosDesde(desde, ahora));
+        int barridos = lista.barrer();
+        if (barridos > 0) {
+            log.debug("Barridos {} tokens revocados ya expirados", barridos);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.seguridad.revocacion.limpieza-ms:3600000}",
+               initialDelayString = "${app.seguridad.revocacion.limpieza-ms:3600000}")
+    @Transactional
+    public void eliminarExpirados() {
+        int eliminados = tokenEmitidoRepository.eliminarExpirados(LocalDateTime.now());
+        if (eliminados > 0) {
+            log.info("Eliminados {} tokens expirados de tokens_emitidos", eliminados);
+        }
+    }
+
+    private void agregar(List<TokenRevocado> revocados) {
+        for (TokenRevocado revocado : revocados) {
+            lista.agregar(revocado.jti(), revocado.expiracion().atZone(ZoneId.systemDefault()).toInstant());
+            if (ultimaRevocacionLeida == null || revocado.fechaRevocacion().isAfter(ultimaRevocacionLeida)) {
+                ultimaRevocacionLeida = revocado.fechaRevocacion();
+            }
+        }
+    }
+}
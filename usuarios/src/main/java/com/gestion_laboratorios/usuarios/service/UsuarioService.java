@@ -7,30 +7,68 @@ import com.gestion_laboratorios.usuarios.exception.DuplicateResourceException;
 import com.gestion_laboratorios.usuarios.exception.InvalidCredentialsException;
 import com.gestion_laboratorios.usuarios.exception.UsuarioNotFoundException;
 import com.gestion_laboratorios.usuarios.repository.UsuarioRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "servicio.metodo", histogram = true)
 @Slf4j
 public class UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final HashContrasenas hashContrasenas;
     private final JwtTokenUtil jwtTokenUtil;
+    private final CustomUserDetailsService userDetailsService;
+    private final RevocacionTokens revocacionTokens;
+    private final PlatformTransactionManager transactionManager;
 
-    @Transactional
+    // Para escribir después de calcular BCrypt: la espera y el hash no retienen una conexión del pool
+    private TransactionTemplate transaccion;
+
+    @PostConstruct
+    void crearTransaccion() {
+        transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    // Sin transacción: se comprueban los duplicados, se calcula el hash y sólo entonces se abre la del alta
     public UsuarioResponseDto crearUsuario(UsuarioRequestDto request) {
         log.info("Creando nuevo usuario con username: {}", request.getUsername());
         
+        comprobarDisponible(request);
+        String password = hashContrasenas.codificar(request.getPassword());
+
+        Usuario usuarioGuardado = transaccion.execute(estado -> {
+            // Otra alta con el mismo username o email pudo confirmarse mientras se calculaba el hash
+            comprobarDisponible(request);
+            return usuarioRepository.save(Usuario.builder()
+                    .username(request.getUsername())
+                    .password(password)
+                    .email(request.getEmail())
+                    .nombre(request.getNombre())
+                    .apellido(request.getApellido())
+                    .tipoUsuario(request.getTipoUsuario())
+                    .activo(true)
+                    .build());
+        });
+        log.info("Usuario creado exitosamente con ID: {}", usuarioGuardado.getId());
+        
+        return mapToResponseDto(usuarioGuardado);
+    }
+
+    private void comprobarDisponible(UsuarioRequestDto request) {
         if (usuarioRepository.existsByUsername(request.getUsername())) {
             throw DuplicateResourceException.username(request.getUsername());
         }
@@ -38,24 +76,9 @@ public class UsuarioService {
         if (usuarioRepository.existsByEmail(request.getEmail())) {
             throw DuplicateResourceException.email(request.getEmail());
         }
-
-        Usuario usuario = Usuario.builder()
-                .username(request.getUsername())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .email(request.getEmail())
-                .nombre(request.getNombre())
-                .apellido(request.getApellido())
-                .tipoUsuario(request.getTipoUsuario())
-                .activo(true)
-                .build();
-
-        Usuario usuarioGuardado = usuarioRepository.save(usuario);
-        log.info("Usuario creado exitosamente con ID: {}", usuarioGuardado.getId());
-        
-        return mapToResponseDto(usuarioGuardado);
     }
 
-    @Transactional
+    // Sin transacción, como crearUsuario
     public UsuarioResponseDto crearMedico(CreateMedicoRequestDto request) {
         UsuarioRequestDto usuarioRequest = UsuarioRequestDto.builder()
                 .username(request.getUsername())
@@ -159,6 +182,7 @@ public class UsuarioService {
                 .orElseThrow(() -> UsuarioNotFoundException.porId(id));
         
         usuarioRepository.delete(usuario);
+        revocarSesiones(usuario.getUsername());
         log.info("Usuario eliminado exitosamente con ID: {}", id);
     }
 
@@ -171,6 +195,7 @@ public class UsuarioService {
         
         usuario.setActivo(false);
         usuarioRepository.save(usuario);
+        revocarSesiones(usuario.getUsername());
         log.info("Usuario desactivado exitosamente con ID: {}", id);
     }
 
@@ -183,10 +208,12 @@ public class UsuarioService {
         
         usuario.setActivo(true);
         usuarioRepository.save(usuario);
+        // Los tokens revocados al desactivarlo siguen revocados
+        userDetailsService.invalidar(usuario.getUsername());
         log.info("Usuario activado exitosamente con ID: {}", id);
     }
 
-    @Transactional(readOnly = true)
+    // Sin transacción: la espera y el cálculo de BCrypt no retienen una conexión del pool
     public LoginResponseDto login(LoginRequestDto loginRequest) {
         log.info("Intento de login para usuario: {}", loginRequest.getUsername());
         
@@ -194,7 +221,7 @@ public class UsuarioService {
                 .orElseThrow(InvalidCredentialsException::credencialesIncorrectas);
 
         // Validar contraseña usando BCrypt
-        if (!passwordEncoder.matches(loginRequest.getPassword(), usuario.getPassword())) {
+        if (!hashContrasenas.coincide(loginRequest.getPassword(), usuario.getPassword())) {
             log.warn("Contraseña incorrecta para usuario: {}", loginRequest.getUsername());
             throw InvalidCredentialsException.credencialesIncorrectas();
         }
@@ -213,6 +240,14 @@ public class UsuarioService {
             usuario.getTipoUsuario().name(), 
             usuario.getId()
         );
+        // Se registra el jti para poder revocar el token antes de que expire
+        boolean registrado = jwtTokenUtil.extraerClaims(token)
+                .map(claims -> revocacionTokens.registrarSiVigente(claims, usuario.getPassword()))
+                .orElse(false);
+        if (!registrado) {
+            log.warn("Usuario desactivado o con contraseña cambiada durante el login: {}", loginRequest.getUsername());
+            throw InvalidCredentialsException.credencialesIncorrectas();
+        }
         
         return LoginResponseDto.builder()
                 .mensaje("Login exitoso")
@@ -221,6 +256,10 @@ public class UsuarioService {
                 .build();
     }
 
+    public EstadisticasHashDto obtenerEstadisticasHash() {
+        return hashContrasenas.estadisticas();
+    }
+
     private UsuarioResponseDto mapToResponseDto(Usuario usuario) {
         return UsuarioResponseDto.builder()
                 .id(usuario.getId())
@@ -260,26 +299,48 @@ public class UsuarioService {
         return token;
     }
 
-    @Transactional
+    // Sin transacción: el token se valida antes de calcular el hash y otra vez, con la fila del usuario
+    // bloqueada, en la transacción que escribe, por si se usó o caducó mientras tanto
     public String restablecerPassword(ResetPasswordRequestDto request) {
         log.info("Restableciendo contraseña con token: {}", request.getToken());
         
-        Usuario usuario = usuarioRepository.findByResetPasswordToken(request.getToken())
-                .orElseThrow(() -> new UsuarioNotFoundException("Token de recuperación inválido"));
+        String username = usuarioConTokenVigente(
+                usuarioRepository.findByResetPasswordToken(request.getToken())).getUsername();
+        String password = hashContrasenas.codificar(request.getNuevaPassword());
         
-        if (usuario.getResetPasswordExpires().isBefore(LocalDateTime.now())) {
-            throw new UsuarioNotFoundException("Token de recuperación expirado");
-        }
-        
-        // Actualizar contraseña
-        usuario.setPassword(passwordEncoder.encode(request.getNuevaPassword()));
-        usuario.setResetPasswordToken(null);
-        usuario.setResetPasswordExpires(null);
-        
-        usuarioRepository.save(usuario);
+        Usuario usuario = transaccion.execute(estado -> {
+            Usuario vigente = usuarioConTokenVigente(usuarioRepository.findByUsernameForUpdate(username)
+                    .filter(u -> request.getToken().equals(u.getResetPasswordToken())));
+            // Actualizar contraseña
+            vigente.setPassword(password);
+            vigente.setResetPasswordToken(null);
+            vigente.setResetPasswordExpires(null);
+            
+            usuarioRepository.save(vigente);
+            revocarSesiones(vigente.getUsername());
+            return vigente;
+        });
         
         log.info("Contraseña restablecida exitosamente para usuario: {}", usuario.getUsername());
         
         return "Contraseña restablecida exitosamente";
     }
-}
\ No newline at end of file
+
+    private static Usuario usuarioConTokenVigente(Optional<Usuario> conToken) {
+        Usuario usuario = conToken
+                .orElseThrow(() -> new UsuarioNotFoundException("Token de recuperación inválido"));
+        
+        if (usuario.getResetPasswordExpires().isBefore(LocalDateTime.now())) {
+            throw new UsuarioNotFoundException("Token de recuperación expirado");
+        }
+        return usuario;
+    }
+
+    // El cambio del usuario se escribe antes de revocar para que su fila quede bloqueada: un login en curso
+    // espera a este commit para registrar su token (ver RevocacionTokens.registrarSiVigente)
+    private void revocarSesiones(String username) {
+        usuarioRepository.flush();
+        userDetailsService.invalidar(username);
+        revocacionTokens.revocar(username);
+    }
+}
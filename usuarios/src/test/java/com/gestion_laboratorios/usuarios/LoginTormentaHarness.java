@@ -0,0 +1,169 @@
+package com.gestion_laboratorios.usuarios;
+
+import com.gestion_laboratorios.usuarios.dto.EstadisticasHashDto;
+import com.gestion_laboratorios.usuarios.service.HashContrasenas;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Arnés de carga de login: levanta usuarios embebido sobre H2 y mide la latencia de un endpoint ajeno al
+ * login (GET /api/usuarios/username/admin) en reposo y durante una ráfaga de logins concurrentes, con el
+ * hash de contraseñas sin acotar (un hilo y cola de sobra por petición, como calcularlo en el hilo de
+ * Tomcat) y con el ejecutor acotado por defecto.
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.gestion_laboratorios.usuarios.LoginTormentaHarness
+ *   [-Dexec.args="clientesLogin segundos"]
+ */
+public class LoginTormentaHarness {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String LOGIN = "{\"username\":\"admin\",\"password\":\"admin123\"}";
+
+    public static void main(String[] args) throws Exception {
+        int clientesLogin = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        List<String> resultados = new ArrayList<>();
+        resultados.add(ejecutar("sin acotar", clientesLogin, segundos,
+                "--app.seguridad.hash.hilos=" + clientesLogin, "--app.seguridad.hash.cola-maxima=" + clientesLogin,
+                "--app.seguridad.hash.espera-maxima-ms=600000"));
+        resultados.add(ejecutar("acotado", clientesLogin, segundos));
+        System.out.println();
+        System.out.printf("%-11s %-19s %-19s %-10s %-8s %-8s %-13s %s%n",
+                "hash", "reposo p50/p99 ms", "ráfaga p50/p99 ms", "logins/s", "429", "503", "cola ms medio", "hash ms medio");
+        resultados.forEach(System.out::println);
+    }
+
+    private static String ejecutar(String nombre, int clientesLogin, int segundos, String... extra) throws Exception {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:login_" + clientesLogin + "_" + extra.length + ";MODE=Oracle;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--server.tomcat.threads.max=" + (clientesLogin + 50),
+                "--logging.level.root=WARN",
+                "--logging.level.com.gestion_laboratorios=ERROR"));
+        argumentos.addAll(List.of(extra));
+
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(UsuariosApplication.class)
+                .run(argumentos.toArray(String[]::new))) {
+            String base = "http://localhost:" + ((WebServerApplicationContext) contexto).getWebServer().getPort() + "/api/usuarios";
+            HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+            Matcher token = TOKEN.matcher(login(http, base).body());
+            if (!token.find()) {
+                throw new IllegalStateException("No se obtuvo token de admin");
+            }
+            String autorizacion = "Bearer " + token.group(1);
+
+            List<Long> reposo = sondear(http, base, autorizacion, Duration.ofSeconds(3));
+
+            AtomicBoolean activa = new AtomicBoolean(true);
+            Map<Integer, LongAdder> estados = new ConcurrentHashMap<>();
+            List<Thread> clientes = new ArrayList<>();
+            for (int i = 0; i < clientesLogin; i++) {
+                Thread cliente = new Thread(() -> {
+                    while (activa.get()) {
+                        int estado;
+                        long reintentar = 0;
+                        try {
+                            HttpResponse<String> respuesta = login(http, base);
+                            estado = respuesta.statusCode();
+                            reintentar = respuesta.headers().firstValueAsLong("Retry-After").orElse(0);
+                        } catch (Exception e) {
+                            estado = -1;
+                        }
+                        estados.computeIfAbsent(estado, k -> new LongAdder()).increment();
+                        // Como un cliente bien portado, respeta Retry-After
+                        dormir(reintentar * 1000);
+                    }
+                });
+                cliente.start();
+                clientes.add(cliente);
+            }
+            dormir(1000);
+            long t0 = System.nanoTime();
+            List<Long> rafaga = sondear(http, base, autorizacion, Duration.ofSeconds(segundos));
+            double duracion = (System.nanoTime() - t0) / 1e9 + 1;
+            activa.set(false);
+            for (Thread cliente : clientes) {
+                cliente.join();
+            }
+
+            EstadisticasHashDto hash = contexto.getBean(HashContrasenas.class).estadisticas();
+            return String.format("%-11s %-19s %-19s %-10.1f %-8d %-8d %-13.1f %.1f", nombre,
+                    percentiles(reposo), percentiles(rafaga), contar(estados, 200) / duracion,
+                    contar(estados, 429), contar(estados, 503), hash.getTiempoMedioEsperaMs(), hash.getTiempoMedioHashMs());
+        }
+    }
+
+    // Un cliente secuencial con una pausa de 20 ms entre peticiones; latencias en microsegundos
+    private static List<Long> sondear(HttpClient http, String base, String autorizacion, Duration duracion) throws Exception {
+        List<Long> latencias = new ArrayList<>();
+        long fin = System.nanoTime() + duracion.toNanos();
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create(base + "/username/admin"))
+                .header("Authorization", autorizacion)
+                .GET()
+                .build();
+        while (System.nanoTime() < fin) {
+            long inicio = System.nanoTime();
+            int estado = http.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (estado == 200) {
+                latencias.add((System.nanoTime() - inicio) / 1000);
+            }
+            dormir(20);
+        }
+        return latencias;
+    }
+
+    private static HttpResponse<String> login(HttpClient http, String base) throws Exception {
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create(base + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(LOGIN))
+                .build();
+        return http.send(peticion, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String percentiles(List<Long> latencias) {
+        if (latencias.isEmpty()) {
+            return "-";
+        }
+        List<Long> ordenadas = new ArrayList<>(latencias);
+        Collections.sort(ordenadas);
+        return String.format("%.1f / %.1f", ordenadas.get(ordenadas.size() / 2) / 1000.0,
+                ordenadas.get((int) Math.min(ordenadas.size() - 1, Math.ceil(ordenadas.size() * 0.99) - 1)) / 1000.0);
+    }
+
+    private static long contar(Map<Integer, LongAdder> estados, int estado) {
+        LongAdder contador = estados.get(estado);
+        return contador != null ? contador.sum() : 0;
+    }
+
+    private static void dormir(long milisegundos) {
+        try {
+            Thread.sleep(milisegundos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
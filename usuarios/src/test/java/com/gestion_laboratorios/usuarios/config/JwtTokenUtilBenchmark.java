@@ -0,0 +1,66 @@
+package com.gestion_laboratorios.usuarios.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de JwtTokenUtil con firma HS512:
+ * - generar: token de login con rol, userId y jti.
+ * - extraerClaims: el parseo único que usa JwtRequestFilter.
+ * - validar: validateToken, que parsea dos veces (firma y expiración).
+ *
+ * Ejecutar: mvn -P benchmarks -DskipTests test -Dbenchmark.incluir=JwtTokenUtilBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenUtilBenchmark {
+
+    private JwtTokenUtil jwtTokenUtil;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", "mySecretKey123456789012345678901234567890123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtTokenUtil, "jwtExpirationInMs", 86400);
+        jwtTokenUtil.inicializar();
+        token = jwtTokenUtil.generateToken("benchmark", "ADMIN", 1L);
+    }
+
+    @Benchmark
+    public String generar() {
+        return jwtTokenUtil.generateToken("benchmark", "ADMIN", 1L);
+    }
+
+    @Benchmark
+    public Optional<ClaimsToken> extraerClaims() {
+        return jwtTokenUtil.extraerClaims(token);
+    }
+
+    @Benchmark
+    public Boolean validar() {
+        return jwtTokenUtil.validateToken(token);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JwtTokenUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,61 @@
+package com.gestion_laboratorios.usuarios.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de BCrypt por factor de coste (10 es el de SecurityConfig): coincide es el trabajo de cada login
+ * y codificar el de registro y cambio de contraseña. Sirve para dimensionar app.seguridad.hash.*.
+ *
+ * Ejecutar: mvn -P benchmarks -DskipTests test -Dbenchmark.incluir=ContrasenasBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ContrasenasBenchmark {
+
+    private static final String CONTRASENA = "admin123";
+
+    @Param({"10", "12"})
+    private int coste;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        encoder = new BCryptPasswordEncoder(coste);
+        hash = encoder.encode(CONTRASENA);
+    }
+
+    @Benchmark
+    public boolean coincide() {
+        return encoder.matches(CONTRASENA, hash);
+    }
+
+    @Benchmark
+    public String codificar() {
+        return encoder.encode(CONTRASENA);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ContrasenasBenchmark.class.getSimpleName()).build()).run();
+    }
+}